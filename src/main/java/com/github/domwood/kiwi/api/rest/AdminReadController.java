@@ -1,7 +1,10 @@
 package com.github.domwood.kiwi.api.rest;
 
+import com.github.domwood.kiwi.data.input.ConsumerGroupLagSort;
+import com.github.domwood.kiwi.data.input.ImmutableConsumerGroupLagRequest;
 import com.github.domwood.kiwi.data.output.*;
 import com.github.domwood.kiwi.kafka.provision.KafkaTaskProvider;
+import com.github.domwood.kiwi.kafka.task.KafkaTask;
 import com.github.domwood.kiwi.kafka.task.admin.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
@@ -31,7 +34,7 @@ public class AdminReadController {
     @GetMapping("/listTopics")
     @ResponseBody
     public CompletableFuture<TopicList> listTopics(@RequestParam(required = false) Optional<String> clusterName) {
-        ListTopics listTopics = this.taskProvider.listTopics(clusterName);
+        KafkaTask<TopicList> listTopics = this.taskProvider.listTopics(clusterName);
         return listTopics.execute();
     }
 
@@ -40,7 +43,7 @@ public class AdminReadController {
     @ResponseBody
     public CompletableFuture<TopicInfo> topicInfo(@RequestParam(required = false) Optional<String> clusterName,
                                                   @PathVariable String topic) {
-        TopicInformation topicInformation = this.taskProvider.topicInfo(unEncodeParameter(topic), clusterName);
+        KafkaTask<TopicInfo> topicInformation = this.taskProvider.topicInfo(unEncodeParameter(topic), clusterName);
         return topicInformation.execute();
     }
 
@@ -48,7 +51,7 @@ public class AdminReadController {
     @GetMapping("/listConsumerGroups")
     @ResponseBody
     public CompletableFuture<ConsumerGroupList> consumerGroups(@RequestParam(required = false) Optional<String> clusterName) {
-        ConsumerGroupInformation consumerGroupInformation = this.taskProvider.consumerGroups(clusterName);
+        KafkaTask<ConsumerGroupList> consumerGroupInformation = this.taskProvider.consumerGroups(clusterName);
         return consumerGroupInformation.execute();
     }
 
@@ -57,7 +60,7 @@ public class AdminReadController {
     @ResponseBody
     public CompletableFuture<ConsumerGroupList> consumerGroupsForTopic(@RequestParam(required = false) Optional<String> clusterName,
                                                                        @PathVariable String topic) {
-        ConsumerGroupListByTopic consumerGroupByTopic = this.taskProvider.consumerGroupListByTopic(unEncodeParameter(topic), clusterName);
+        KafkaTask<ConsumerGroupList> consumerGroupByTopic = this.taskProvider.consumerGroupListByTopic(unEncodeParameter(topic), clusterName);
         return consumerGroupByTopic.execute();
     }
 
@@ -78,11 +81,31 @@ public class AdminReadController {
         return consumerGroupInformation.execute();
     }
 
+    /**
+     * The lag of every group in the cluster, sorted and paged, to find the most lagging groups in one request
+     */
+    @Async
+    @GetMapping("/consumerGroupLag")
+    @ResponseBody
+    public CompletableFuture<ConsumerGroupLagSnapshot> consumerGroupLag(@RequestParam(required = false) Optional<String> clusterName,
+                                                                        @RequestParam(defaultValue = "TOTAL_LAG") ConsumerGroupLagSort sortBy,
+                                                                        @RequestParam(defaultValue = "true") boolean descending,
+                                                                        @RequestParam(defaultValue = "0") int page,
+                                                                        @RequestParam(defaultValue = "50") int pageSize) {
+        AllConsumerGroupLag consumerGroupLag = this.taskProvider.consumerGroupLag(ImmutableConsumerGroupLagRequest.builder()
+                .sortBy(sortBy)
+                .descending(descending)
+                .page(page)
+                .pageSize(pageSize)
+                .build(), clusterName);
+        return consumerGroupLag.execute();
+    }
+
     @Async
     @GetMapping("/brokers")
     @ResponseBody
     public CompletableFuture<BrokerInfoList> brokers(@RequestParam(required = false) Optional<String> clusterName) {
-        BrokerInformation brokerInformation = this.taskProvider.brokerInformation(clusterName);
+        KafkaTask<BrokerInfoList> brokerInformation = this.taskProvider.brokerInformation(clusterName);
         return brokerInformation.execute();
     }
 
@@ -3,10 +3,8 @@ package com.github.domwood.kiwi.api.rest;
 import com.github.domwood.kiwi.data.input.CreateTopicRequest;
 import com.github.domwood.kiwi.data.input.UpdateTopicConfig;
 import com.github.domwood.kiwi.kafka.provision.KafkaTaskProvider;
-import com.github.domwood.kiwi.kafka.task.admin.CreateTopic;
+import com.github.domwood.kiwi.kafka.task.KafkaTask;
 import com.github.domwood.kiwi.kafka.task.admin.DeleteConsumerGroup;
-import com.github.domwood.kiwi.kafka.task.admin.DeleteTopic;
-import com.github.domwood.kiwi.kafka.task.admin.UpdateTopicConfiguration;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Async;
@@ -37,7 +35,7 @@ public class AdminWriteController {
     @ResponseBody
     public CompletableFuture<Void> createTopic(@RequestParam(required = false) Optional<String> clusterName,
                                                @RequestBody CreateTopicRequest createTopicRequest) {
-        CreateTopic createTopic = this.taskProvider.createTopic(createTopicRequest, clusterName);
+        KafkaTask<Void> createTopic = this.taskProvider.createTopic(createTopicRequest, clusterName);
         return createTopic.execute();
     }
 
@@ -46,7 +44,7 @@ public class AdminWriteController {
     @ResponseBody
     public CompletableFuture<Void> deleteTopic(@RequestParam(required = false) Optional<String> clusterName,
                                                @PathVariable String topic) {
-        DeleteTopic deleteTopic = this.taskProvider.deleteTopic(unEncodeParameter(topic), clusterName);
+        KafkaTask<Void> deleteTopic = this.taskProvider.deleteTopic(unEncodeParameter(topic), clusterName);
         return deleteTopic.execute();
     }
 
@@ -64,7 +62,7 @@ public class AdminWriteController {
     @ResponseBody
     public CompletableFuture<Void> updateTopicConfig(@RequestParam(required = false) Optional<String> clusterName,
                                                      @RequestBody UpdateTopicConfig topicConfig) {
-        UpdateTopicConfiguration topicConfiguration = this.taskProvider.updateTopicConfiguration(topicConfig, clusterName);
+        KafkaTask<Void> topicConfiguration = this.taskProvider.updateTopicConfiguration(topicConfig, clusterName);
         return topicConfiguration.execute();
     }
 
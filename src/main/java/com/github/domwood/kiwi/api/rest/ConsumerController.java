@@ -62,7 +62,7 @@ public class ConsumerController {
         String decodedRequest = base64Decoded(unEncodeParameter(requestEncoded));
         ConsumerToFileRequest request = mapper.readValue(decodedRequest, ConsumerToFileRequest.class);
 
-        ContinuousConsumeMessages<?, ?> consumeMessagesTask = taskProvider.continuousConsumeMessages(request);
+        ContinuousConsumeMessages<?, ?> consumeMessagesTask = taskProvider.downloadConsumeMessages(request);
 
         response.setCharacterEncoding("UTF-8");
         response.setContentType("application/force-download");
@@ -0,0 +1,57 @@
+package com.github.domwood.kiwi.api.rest;
+
+import com.github.domwood.kiwi.data.output.ConsumerGroupLagHistory;
+import com.github.domwood.kiwi.kafka.provision.ConsumerLagSampler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+
+import static com.github.domwood.kiwi.api.rest.utils.RestUtils.unEncodeParameter;
+import static com.github.domwood.kiwi.utilities.Constants.API_ENDPOINT;
+
+@Profile("read-admin")
+@CrossOrigin("*")
+@RestController
+@RequestMapping(API_ENDPOINT)
+public class LagHistoryController {
+
+    private final ConsumerLagSampler lagSampler;
+
+    @Autowired
+    public LagHistoryController(ConsumerLagSampler lagSampler) {
+        this.lagSampler = lagSampler;
+    }
+
+    @PostMapping("/lagHistory/{groupId}")
+    public ResponseEntity<Void> trackLag(@RequestParam(required = false) Optional<String> clusterName,
+                                         @PathVariable String groupId) {
+        if (lagSampler.track(clusterName, unEncodeParameter(groupId))) {
+            return ResponseEntity.ok().build();
+        }
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+    }
+
+    @GetMapping("/lagHistory/{groupId}")
+    @ResponseBody
+    public ResponseEntity<ConsumerGroupLagHistory> lagHistory(@RequestParam(required = false) Optional<String> clusterName,
+                                                              @PathVariable String groupId,
+                                                              @RequestParam(defaultValue = "10") long resolutionSeconds,
+                                                              @RequestParam(defaultValue = "300") long windowSeconds) {
+        return lagSampler.history(clusterName, unEncodeParameter(groupId), resolutionSeconds, windowSeconds)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/lagHistory/{groupId}")
+    public ResponseEntity<Void> untrackLag(@RequestParam(required = false) Optional<String> clusterName,
+                                           @PathVariable String groupId) {
+        if (lagSampler.untrack(clusterName, unEncodeParameter(groupId))) {
+            return ResponseEntity.ok().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.domwood.kiwi.api.rest;
+
+import com.github.domwood.kiwi.data.input.LoadGeneratorRequest;
+import com.github.domwood.kiwi.data.output.LoadGeneratorReport;
+import com.github.domwood.kiwi.kafka.provision.KafkaTaskProvider;
+import com.github.domwood.kiwi.kafka.task.producer.ProduceLoadGenerator;
+import com.github.domwood.kiwi.utilities.FutureUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static com.github.domwood.kiwi.utilities.Constants.API_ENDPOINT;
+
+@Profile("write-producer")
+@CrossOrigin("*")
+@RestController
+@RequestMapping(API_ENDPOINT)
+public class LoadGeneratorController {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final int MAX_FINISHED_GENERATORS = 16;
+
+    private final KafkaTaskProvider taskProvider;
+    private final Map<String, ProduceLoadGenerator> generators;
+
+    @Autowired
+    public LoadGeneratorController(KafkaTaskProvider taskProvider) {
+        this.taskProvider = taskProvider;
+        this.generators = Collections.synchronizedMap(new LinkedHashMap<>());
+    }
+
+    /**
+     * Starts generating load, returning the id with which to fetch its report or stop it
+     *
+     * @throws com.github.domwood.kiwi.exceptions.KiwiTaskRejectedException if there is no room to start the generator
+     */
+    @PostMapping("/loadGenerator")
+    @ResponseBody
+    public String startLoadGenerator(@RequestBody LoadGeneratorRequest request) {
+        String generatorId = UUID.randomUUID().toString();
+        ProduceLoadGenerator generator = taskProvider.loadGenerator(request);
+        pruneFinished();
+        CompletableFuture<?> execution = generator.execute();
+        FutureUtils.throwIfRejected(execution);
+        generators.put(generatorId, generator);
+        logger.info("Started load generator {} for {}", generatorId, request.topic());
+        return generatorId;
+    }
+
+    @GetMapping("/loadGenerator/{generatorId}")
+    @ResponseBody
+    public ResponseEntity<LoadGeneratorReport> loadGeneratorReport(@PathVariable("generatorId") String generatorId) {
+        ProduceLoadGenerator generator = generators.get(generatorId);
+        if (generator == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(generator.latestReport());
+    }
+
+    @DeleteMapping("/loadGenerator/{generatorId}")
+    @ResponseBody
+    public ResponseEntity<LoadGeneratorReport> stopLoadGenerator(@PathVariable("generatorId") String generatorId) {
+        ProduceLoadGenerator generator = generators.remove(generatorId);
+        if (generator == null) {
+            return ResponseEntity.notFound().build();
+        }
+        generator.close();
+        return ResponseEntity.ok(generator.latestReport());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        generators.values().forEach(ProduceLoadGenerator::close);
+    }
+
+    private void pruneFinished() {
+        synchronized (generators) {
+            long finished = generators.values().stream().filter(ProduceLoadGenerator::isClosed).count();
+            Iterator<ProduceLoadGenerator> oldestFirst = generators.values().iterator();
+            while (finished > MAX_FINISHED_GENERATORS && oldestFirst.hasNext()) {
+                if (oldestFirst.next().isClosed()) {
+                    oldestFirst.remove();
+                    finished--;
+                }
+            }
+        }
+    }
+}
@@ -1,17 +1,28 @@
 package com.github.domwood.kiwi.api.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.domwood.kiwi.api.rest.upload.FileUploadReader;
+import com.github.domwood.kiwi.data.input.BulkProducerRequest;
 import com.github.domwood.kiwi.data.input.ProducerRequest;
+import com.github.domwood.kiwi.data.output.BulkProducerResponse;
 import com.github.domwood.kiwi.data.output.ProducerResponse;
 import com.github.domwood.kiwi.kafka.provision.KafkaTaskProvider;
+import com.github.domwood.kiwi.kafka.task.producer.ProduceBulkMessages;
 import com.github.domwood.kiwi.kafka.task.producer.ProduceSingleMessage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Optional;
+import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 
+import static com.github.domwood.kiwi.api.rest.utils.RestUtils.base64Decoded;
+import static com.github.domwood.kiwi.api.rest.utils.RestUtils.unEncodeParameter;
 import static com.github.domwood.kiwi.utilities.Constants.API_ENDPOINT;
 
 @Profile("write-producer")
@@ -21,10 +32,12 @@ import static com.github.domwood.kiwi.utilities.Constants.API_ENDPOINT;
 public class ProducerController {
 
     private final KafkaTaskProvider taskProvider;
+    private final ObjectMapper mapper;
 
     @Autowired
-    public ProducerController(KafkaTaskProvider taskProvider){
+    public ProducerController(KafkaTaskProvider taskProvider, ObjectMapper mapper){
         this.taskProvider = taskProvider;
+        this.mapper = mapper;
     }
 
     @Async
@@ -35,4 +48,23 @@ public class ProducerController {
         return singleMessage.execute();
     }
 
+    /**
+     * Produces each line of the request body, an NDJSON or CSV file as written by a consume to file download,
+     * reading the body as it is produced rather than buffering the whole file
+     */
+    @PostMapping(value = "/produceBulk")
+    @ResponseBody
+    public CompletableFuture<BulkProducerResponse> sendFileToTopic(@RequestParam("request") String requestEncoded,
+                                                                   HttpServletRequest httpRequest) throws IOException {
+        String decodedRequest = base64Decoded(unEncodeParameter(requestEncoded));
+        BulkProducerRequest request = mapper.readValue(decodedRequest, BulkProducerRequest.class);
+
+        BufferedReader input = new BufferedReader(new InputStreamReader(httpRequest.getInputStream(), StandardCharsets.UTF_8));
+        FileUploadReader reader = new FileUploadReader(mapper, request, input);
+
+        ProduceBulkMessages<?, ?> bulkMessages = taskProvider.produceBulkMessages(request, reader);
+        return bulkMessages.execute()
+                .whenComplete((response, e) -> reader.close());
+    }
+
 }
@@ -2,6 +2,7 @@ package com.github.domwood.kiwi.api.rest.exception;
 
 import com.github.domwood.kiwi.data.error.ApiError;
 import com.github.domwood.kiwi.data.error.ImmutableApiError;
+import com.github.domwood.kiwi.exceptions.KiwiTaskRejectedException;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
 import org.slf4j.Logger;
@@ -33,6 +34,9 @@ public class KiwiApiExceptionHandler extends ResponseEntityExceptionHandler {
         if(rootCause instanceof UnknownTopicOrPartitionException){
             status = HttpStatus.NOT_FOUND;
         }
+        else if(ExceptionUtils.indexOfType(ex, KiwiTaskRejectedException.class) >= 0){
+            status = HttpStatus.TOO_MANY_REQUESTS;
+        }
 
         ApiError error = ImmutableApiError.builder()
                 .error(ex.getClass().getName())
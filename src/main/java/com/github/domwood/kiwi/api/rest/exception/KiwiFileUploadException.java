@@ -0,0 +1,8 @@
+package com.github.domwood.kiwi.api.rest.exception;
+
+public class KiwiFileUploadException extends RuntimeException{
+
+    public KiwiFileUploadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.domwood.kiwi.api.rest.upload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.domwood.kiwi.data.input.BulkProducerRequest;
+import com.github.domwood.kiwi.data.input.ConsumerRequestColumns;
+import com.github.domwood.kiwi.data.input.ImmutableProducerRequest;
+import com.github.domwood.kiwi.data.input.ProducerRequest;
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Reads delimited lines in the column order written by a CSV download: key, timestamp, partition, offset,
+ * headers, value. Timestamp, partition and offset columns are skipped, the broker assigning new ones.
+ */
+public class CsvLineReader implements FileLineReader {
+
+    private static final List<ConsumerRequestColumns> COLUMN_ORDER = ImmutableList.of(
+            ConsumerRequestColumns.KEY,
+            ConsumerRequestColumns.TIMESTAMP,
+            ConsumerRequestColumns.PARTITION,
+            ConsumerRequestColumns.OFFSET,
+            ConsumerRequestColumns.HEADERS,
+            ConsumerRequestColumns.VALUE);
+
+    private final ObjectMapper mapper;
+    private final BulkProducerRequest request;
+    private final List<ConsumerRequestColumns> columns;
+    private final Pattern delimiter;
+
+    public CsvLineReader(ObjectMapper mapper,
+                         BulkProducerRequest request) {
+        this.mapper = mapper;
+        this.request = request;
+        this.columns = request.columns().isEmpty() ?
+                ImmutableList.of(ConsumerRequestColumns.KEY, ConsumerRequestColumns.VALUE) :
+                COLUMN_ORDER.stream().filter(request.columns()::contains).collect(toList());
+        this.delimiter = Pattern.compile(Pattern.quote(request.columnDelimiter().orElse("\t")));
+    }
+
+    @Override
+    public ProducerRequest readLine(String line) throws IOException {
+        //The value is the last column, so is left whole should it contain the delimiter
+        String[] values = delimiter.split(line, columns.size());
+        if (values.length < columns.size()) {
+            throw new IllegalArgumentException(String.format("Expected %d columns but found %d", columns.size(), values.length));
+        }
+
+        ImmutableProducerRequest.Builder message = ImmutableProducerRequest.builder()
+                .clusterName(request.clusterName())
+                .topic(request.topic())
+                .kafkaKeyDataType(request.kafkaKeyDataType())
+                .kafkaValueDataType(request.kafkaValueDataType())
+                .key("");
+
+        for (int i = 0; i < columns.size(); i++) {
+            switch (columns.get(i)) {
+                case KEY:
+                    message.key(values[i]);
+                    break;
+                case HEADERS:
+                    message.headers(JsonLineReader.readHeaders(mapper.readTree(unescapeNewLines(values[i]))));
+                    break;
+                case VALUE:
+                    message.payload(Optional.of(unescapeNewLines(values[i])));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return message.build();
+    }
+
+    private String unescapeNewLines(String input) {
+        return input.replace("\\n", "\n");
+    }
+}
@@ -0,0 +1,9 @@
+package com.github.domwood.kiwi.api.rest.upload;
+
+import com.github.domwood.kiwi.data.input.ProducerRequest;
+
+import java.io.IOException;
+
+public interface FileLineReader {
+    ProducerRequest readLine(String line) throws IOException;
+}
@@ -0,0 +1,81 @@
+package com.github.domwood.kiwi.api.rest.upload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.domwood.kiwi.api.rest.exception.KiwiFileUploadException;
+import com.github.domwood.kiwi.data.input.BulkProducerRequest;
+import com.github.domwood.kiwi.data.input.ProducerRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.github.domwood.kiwi.data.input.ConsumerRequestFileType.CSV;
+
+/**
+ * Reads an uploaded file a line at a time, so only the lines being produced are held in memory. Blank lines are
+ * skipped. A line that can't be read fails with an IllegalArgumentException from {@link #next()}, after which
+ * reading can carry on from the following line.
+ */
+public class FileUploadReader implements Iterator<ProducerRequest>, Closeable {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final BufferedReader input;
+    private final FileLineReader reader;
+    private String nextLine;
+    private long lineNumber;
+
+    public FileUploadReader(ObjectMapper mapper,
+                            BulkProducerRequest request,
+                            BufferedReader input) {
+        this.input = input;
+        this.reader = request.fileType().equals(CSV) ?
+                new CsvLineReader(mapper, request) : new JsonLineReader(mapper, request);
+        this.lineNumber = 0;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (nextLine == null) {
+                String line = input.readLine();
+                if (line == null) {
+                    return false;
+                }
+                lineNumber++;
+                if (!line.trim().isEmpty()) {
+                    nextLine = line;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new KiwiFileUploadException("Failed to read uploaded file at line " + lineNumber, e);
+        }
+    }
+
+    @Override
+    public ProducerRequest next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String line = nextLine;
+        nextLine = null;
+        try {
+            return reader.readLine(line);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to read line " + lineNumber + ", " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            input.close();
+        } catch (IOException e) {
+            logger.error("Failed to safely clean up upload stream");
+        }
+    }
+}
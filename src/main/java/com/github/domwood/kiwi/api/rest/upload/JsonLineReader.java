@@ -0,0 +1,62 @@
+package com.github.domwood.kiwi.api.rest.upload;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.domwood.kiwi.data.input.BulkProducerRequest;
+import com.github.domwood.kiwi.data.input.ImmutableProducerRequest;
+import com.github.domwood.kiwi.data.input.ProducerRequest;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads lines in the format written by a JSON download, an object per line with Key, Headers and Value fields. As
+ * with the CSV reader, a line without a Key is produced with an empty key.
+ */
+public class JsonLineReader implements FileLineReader {
+
+    private final ObjectMapper mapper;
+    private final BulkProducerRequest request;
+
+    public JsonLineReader(ObjectMapper mapper,
+                          BulkProducerRequest request) {
+        this.mapper = mapper;
+        this.request = request;
+    }
+
+    @Override
+    public ProducerRequest readLine(String line) throws IOException {
+        JsonNode messageLine = mapper.readTree(line);
+        return ImmutableProducerRequest.builder()
+                .clusterName(request.clusterName())
+                .topic(request.topic())
+                .kafkaKeyDataType(request.kafkaKeyDataType())
+                .kafkaValueDataType(request.kafkaValueDataType())
+                .key(Optional.ofNullable(messageLine.get("Key"))
+                        .filter(key -> !key.isNull())
+                        .map(JsonNode::asText)
+                        .orElse(""))
+                .headers(readHeaders(messageLine.get("Headers")))
+                .payload(Optional.ofNullable(messageLine.get("Value"))
+                        .filter(value -> !value.isNull())
+                        .map(JsonNode::asText))
+                .build();
+    }
+
+    static List<Pair<String, String>> readHeaders(JsonNode headers) {
+        List<Pair<String, String>> headerList = new ArrayList<>();
+        if (headers != null && headers.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = headers.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> header = fields.next();
+                headerList.add(Pair.of(header.getKey(), header.getValue().isNull() ? null : header.getValue().asText()));
+            }
+        }
+        return headerList;
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.domwood.kiwi.api.ws;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.github.domwood.kiwi.data.output.ConsumerResponse;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import static com.github.domwood.kiwi.KiwiConfig.customModules;
+
+/**
+ * Encodes consumer responses as JSON text, or as binary Smile for sessions that negotiated it. Smile writes each
+ * field name, and each short string value such as a header key, once per batch, referring back to it thereafter.
+ */
+class ConsumerResponseEncoder {
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+
+    ConsumerResponseEncoder(final ObjectMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+        this.smileMapper = new ObjectMapper(SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build())
+                .registerModules(customModules());
+    }
+
+    WebSocketMessage<?> encode(final ConsumerResponse response, final boolean binary) throws JsonProcessingException {
+        if (binary) {
+            return new BinaryMessage(smileMapper.writeValueAsBytes(response));
+        }
+        return new TextMessage(jsonMapper.writeValueAsString(response));
+    }
+}
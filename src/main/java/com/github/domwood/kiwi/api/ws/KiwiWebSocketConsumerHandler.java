@@ -1,15 +1,20 @@
 package com.github.domwood.kiwi.api.ws;
 
+import com.github.domwood.kiwi.data.input.AbstractConsumerRequest;
 import com.github.domwood.kiwi.data.input.ConsumerRequest;
 import com.github.domwood.kiwi.data.output.ConsumerResponse;
 import com.github.domwood.kiwi.kafka.provision.KafkaTaskProvider;
+import com.github.domwood.kiwi.kafka.provision.SharedConsumerRegistry;
+import com.github.domwood.kiwi.kafka.task.KafkaContinuousTask;
 import com.github.domwood.kiwi.kafka.task.consumer.ContinuousConsumeMessages;
+import com.github.domwood.kiwi.utilities.FutureUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
@@ -17,16 +22,22 @@ import java.util.function.Consumer;
 public class KiwiWebSocketConsumerHandler {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
-    private final Map<String, ContinuousConsumeMessages<?, ?>> consumers;
+    private final Map<String, KafkaContinuousTask<AbstractConsumerRequest, ConsumerResponse>> consumers;
     private final KafkaTaskProvider taskProvider;
+    private final SharedConsumerRegistry sharedConsumers;
 
     @Autowired
-    public KiwiWebSocketConsumerHandler(KafkaTaskProvider taskProvider) {
+    public KiwiWebSocketConsumerHandler(KafkaTaskProvider taskProvider,
+                                        SharedConsumerRegistry sharedConsumers) {
         this.consumers = new ConcurrentHashMap<>();
         this.taskProvider = taskProvider;
+        this.sharedConsumers = sharedConsumers;
     }
 
 
+    /**
+     * @throws com.github.domwood.kiwi.exceptions.KiwiTaskRejectedException if there is no room to start the consumer
+     */
     public void addConsumerTask(String id,
                                 ConsumerRequest request,
                                 Consumer<ConsumerResponse> consumer) {
@@ -37,21 +48,33 @@ public class KiwiWebSocketConsumerHandler {
 
         if (!consumers.containsKey(id)) {
             logger.info("Adding consumer for session {}", id);
-            ContinuousConsumeMessages<?, ?> consumeMessages = taskProvider.continuousConsumeMessages(request);
-            this.consumers.put(id, consumeMessages);
-            consumeMessages.registerConsumer(consumer);
-            consumeMessages.execute()
-                    .whenComplete((voidValue, e) -> {
-                        if (e != null) logger.error("Task for session " + id + " closed with error", e);
-                        else logger.info("Task closed normally for session {}", id);
-                    });
+            this.consumers.put(id, startConsumerTask(id, request, consumer));
         } else {
             logger.info("Updating existing consumer for session {}", id);
-            ContinuousConsumeMessages<?, ?> consumeMessages = consumers.get(id);
+            KafkaContinuousTask<AbstractConsumerRequest, ConsumerResponse> consumeMessages = consumers.get(id);
             consumeMessages.update(request);
         }
     }
 
+    private KafkaContinuousTask<AbstractConsumerRequest, ConsumerResponse> startConsumerTask(String id,
+                                                                                            ConsumerRequest request,
+                                                                                            Consumer<ConsumerResponse> consumer) {
+        if (sharedConsumers.isShareable(request)) {
+            logger.info("Attaching session {} to a shared consumer", id);
+            return sharedConsumers.subscribe(request, consumer);
+        }
+
+        ContinuousConsumeMessages<?, ?> consumeMessages = taskProvider.continuousConsumeMessages(request);
+        consumeMessages.registerConsumer(consumer);
+        CompletableFuture<Void> execution = consumeMessages.execute();
+        execution.whenComplete((voidValue, e) -> {
+            if (e != null) logger.error("Task for session " + id + " closed with error", e);
+            else logger.info("Task closed normally for session {}", id);
+        });
+        FutureUtils.throwIfRejected(execution);
+        return consumeMessages;
+    }
+
     public void removeConsumerTask(String id) {
         if (consumers.containsKey(id)) {
             logger.info("Close and remove continuous consumer task for {} ", id);
@@ -60,7 +83,7 @@ public class KiwiWebSocketConsumerHandler {
         }
     }
 
-    public ContinuousConsumeMessages<?, ?> getConsumerTask(String id){
+    public KafkaContinuousTask<AbstractConsumerRequest, ConsumerResponse> getConsumerTask(String id){
         return consumers.get(id);
     }
 
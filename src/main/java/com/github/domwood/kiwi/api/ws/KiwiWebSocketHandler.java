@@ -2,26 +2,31 @@ package com.github.domwood.kiwi.api.ws;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.domwood.kiwi.data.input.AbstractConsumerRequest;
 import com.github.domwood.kiwi.data.input.CloseTaskRequest;
 import com.github.domwood.kiwi.data.input.ConsumerRequest;
 import com.github.domwood.kiwi.data.input.InboundRequest;
 import com.github.domwood.kiwi.data.input.MessageAcknowledge;
 import com.github.domwood.kiwi.data.input.PauseTaskRequest;
 import com.github.domwood.kiwi.data.output.ConsumerResponse;
+import com.github.domwood.kiwi.exceptions.KiwiTaskRejectedException;
 import com.github.domwood.kiwi.exceptions.WebSocketSendFailedException;
-import com.github.domwood.kiwi.kafka.task.consumer.ContinuousConsumeMessages;
+import com.github.domwood.kiwi.kafka.task.KafkaContinuousTask;
+import com.google.common.collect.ImmutableList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
-import javax.annotation.PostConstruct;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
@@ -29,16 +34,24 @@ import java.util.function.Consumer;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+/**
+ * Clients can negotiate how consumer responses are sent with the websocket sub protocol: {@value #BINARY_PROTOCOL}
+ * for binary Smile frames, or {@value #TEXT_PROTOCOL}, the default when none is requested, for JSON text frames.
+ * Requests from the client are always JSON text.
+ */
 @Component
-public class KiwiWebSocketHandler extends TextWebSocketHandler {
+public class KiwiWebSocketHandler extends TextWebSocketHandler implements SubProtocolCapable {
+
+    static final String BINARY_PROTOCOL = "kiwi.smile";
+    static final String TEXT_PROTOCOL = "kiwi.json";
 
     private final Long maxWaitTime;
-    private final Long waitInterval;
     private final Long websocketBufferLimit;
-    private Long maxWaitCount = 3000L;
+    private final Integer initialBatchCredit;
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final ObjectMapper objectMapper;
+    private final ConsumerResponseEncoder encoder;
     private final KiwiWebSocketConsumerHandler consumerHandler;
     private final Map<String, KiwiWebSocketSession> sessions;
 
@@ -46,20 +59,21 @@ public class KiwiWebSocketHandler extends TextWebSocketHandler {
     public KiwiWebSocketHandler(final ObjectMapper objectMapper,
                                 final KiwiWebSocketConsumerHandler consumerHandler,
                                 final @Value("${websocket.max.wait.ms:30000}") Long maxWaitTime,
-                                final @Value("${websocket.wait.interval.ms:10}") Long waitInterval,
-                                final @Value("${websocket.message.buffer.limit:1}") Long websocketBufferLimit) {
+                                final @Value("${websocket.message.buffer.limit:1}") Long websocketBufferLimit,
+                                final @Value("${websocket.initial.batch.credit:4}") Integer initialBatchCredit) {
         this.objectMapper = objectMapper;
+        this.encoder = new ConsumerResponseEncoder(objectMapper);
         this.consumerHandler = consumerHandler;
         this.maxWaitTime = maxWaitTime;
-        this.waitInterval = waitInterval;
         this.websocketBufferLimit = websocketBufferLimit;
+        this.initialBatchCredit = initialBatchCredit;
 
         this.sessions = new ConcurrentHashMap<>();
     }
 
-    @PostConstruct
-    public void init() {
-        this.maxWaitCount = this.maxWaitTime / this.waitInterval;
+    @Override
+    public List<String> getSubProtocols() {
+        return ImmutableList.of(BINARY_PROTOCOL, TEXT_PROTOCOL);
     }
 
     @Override
@@ -75,14 +89,14 @@ public class KiwiWebSocketHandler extends TextWebSocketHandler {
             }
             final InboundRequest inboundRequest = objectMapper.readValue(message.getPayload(), InboundRequest.class);
             if (inboundRequest instanceof ConsumerRequest) {
-                consumerHandler.addConsumerTask(kiwiSession.getId(), (ConsumerRequest) inboundRequest, this.sendTextMessage(kiwiSession));
+                consumerHandler.addConsumerTask(kiwiSession.getId(), (ConsumerRequest) inboundRequest, this.sendResponse(kiwiSession));
             } else if (inboundRequest instanceof CloseTaskRequest) {
                 consumerHandler.removeConsumerTask(session.getId());
                 if (((CloseTaskRequest) inboundRequest).closeSession()) {
                     tryCloseSession(kiwiSession, CloseStatus.NORMAL);
                 }
             } else if (inboundRequest instanceof PauseTaskRequest) {
-                ContinuousConsumeMessages<?, ?> consumerTask = consumerHandler.getConsumerTask(kiwiSession.getId());
+                KafkaContinuousTask<AbstractConsumerRequest, ConsumerResponse> consumerTask = consumerHandler.getConsumerTask(kiwiSession.getId());
                 if (consumerTask != null) {
                     if (((PauseTaskRequest) inboundRequest).pauseSession()) {
                         consumerTask.pause();
@@ -92,29 +106,31 @@ public class KiwiWebSocketHandler extends TextWebSocketHandler {
                 }
             }
             if (inboundRequest instanceof MessageAcknowledge) {
-                kiwiSession.setReady();
-                kiwiSession.sendPending();
+                MessageAcknowledge acknowledge = (MessageAcknowledge) inboundRequest;
+                kiwiSession.grant(acknowledge.batches(), acknowledge.bytes().orElse(null));
             }
+        } catch (KiwiTaskRejectedException e) {
+            logger.warn("Rejected websocket request for session {}: {}", session.getId(), e.getMessage());
+            tryCloseSession(kiwiSession, CloseStatus.SERVICE_OVERLOAD.withReason(e.getMessage()));
         } catch (IOException e) {
             logger.error("Failed to parse inbound websocket request " + message.getPayload(), e);
             tryCloseSession(kiwiSession);
         }
     }
 
-    private Consumer<ConsumerResponse> sendTextMessage(KiwiWebSocketSession session) {
+    private Consumer<ConsumerResponse> sendResponse(KiwiWebSocketSession session) {
         return (ConsumerResponse response) -> {
             try {
-                String payload = objectMapper.writeValueAsString(response);
+                WebSocketMessage<?> payload = encoder.encode(response, session.isBinary());
 
-                if (!session.isReady() && response.messages().isEmpty()) {
+                if (!session.hasCredit() && response.messages().isEmpty()) {
                     session.setPending(payload);
                 } else {
-                    maybeBlockConsumer(session);
+                    awaitCredit(session);
 
                     if (!session.isOpen()) {
                         throw new WebSocketSendFailedException("Session closed whilst data pending send");
                     }
-                    session.setNotReady();
                     session.sendMessage(payload);
                 }
             } catch (JsonProcessingException e) {
@@ -130,21 +146,17 @@ public class KiwiWebSocketHandler extends TextWebSocketHandler {
     }
 
 
-    //@SuppressWarnings("squid:S2142")
-    private void maybeBlockConsumer(final KiwiWebSocketSession session) {
+    /**
+     * Blocks upstream until the client grants credit (ie will block kafka consumer polling further)
+     */
+    private void awaitCredit(final KiwiWebSocketSession session) {
         try {
-            int sleeps = 0;
-            while (sessionIsOpenButNotReady(session, sleeps++)) {
-
-                if (logger.isDebugEnabled()) logger.debug("Waiting for websocket backlog to clear");
-
-                //Blocks upstream if socket is backlogged (ie will block kafka consumer polling further)
-                MILLISECONDS.sleep(waitInterval);
-            }
-            if (sleeps >= maxWaitCount)
+            if (!session.awaitCredit(maxWaitTime, MILLISECONDS) && session.isOpen()) {
                 throw new WebSocketSendFailedException("Websocket blocked for too long, reached max wait");
+            }
         } catch (InterruptedException e) {
             logger.error("Interrupted whilst awaiting socket availability", e);
+            Thread.currentThread().interrupt();
             tryCloseSession(session);
             throw new WebSocketSendFailedException(e);
         } catch (WebSocketSendFailedException e) {
@@ -156,21 +168,21 @@ public class KiwiWebSocketHandler extends TextWebSocketHandler {
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        this.sessions.put(session.getId(), new KiwiWebSocketSession(session, websocketBufferLimit));
+        this.sessions.put(session.getId(), new KiwiWebSocketSession(session, websocketBufferLimit, initialBatchCredit));
         logger.info("Websocket session established with id {} from {}", session.getId(), session.getRemoteAddress());
     }
 
     @Override
     public void handleTransportError(WebSocketSession session, Throwable e) throws Exception {
         logger.error("Websocket transport error for session id " + session.getId() + " from " + session.getRemoteAddress(), e);
-        this.sessions.remove(session.getId());
+        releaseSession(this.sessions.remove(session.getId()));
         this.consumerHandler.removeConsumerTask(session.getId());
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         logger.info("Websocket session closed with id {} from {} with status {}", session.getId(), session.getRemoteAddress(), status);
-        this.sessions.remove(session.getId());
+        releaseSession(this.sessions.remove(session.getId()));
         this.consumerHandler.removeConsumerTask(session.getId());
     }
 
@@ -189,13 +201,14 @@ public class KiwiWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    private void releaseSession(KiwiWebSocketSession session) {
+        if (Objects.nonNull(session)) {
+            session.release();
+        }
+    }
+
     private KiwiWebSocketSession getSession(WebSocketSession session) {
         return this.sessions.get(session.getId());
     }
 
-    private boolean sessionIsOpenButNotReady(KiwiWebSocketSession session, int sleepCounter) {
-        return !session.isReady() &&
-                sleepCounter <= this.maxWaitCount &&
-                session.isOpen();
-    }
 }
\ No newline at end of file
@@ -1,37 +1,120 @@
 package com.github.domwood.kiwi.api.ws;
 
 import org.springframework.web.socket.CloseStatus;
-import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 
 import java.io.IOException;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * A websocket session sending batches against credit granted by the client. Each batch sent uses a batch of
+ * credit, and the bytes it contains of any byte credit; once the client has granted bytes, batches are only sent
+ * whilst both remain. Senders without credit wait on it, and are woken as soon as the client grants more.
+ * Messages are sent as binary Smile if the client negotiated the binary sub protocol, and as JSON text otherwise.
+ */
 public class KiwiWebSocketSession {
+    private static final long UNLIMITED_BYTES = Long.MAX_VALUE;
+
     private final ConcurrentWebSocketSessionDecorator delegate;
-    private final AtomicBoolean isReady;
-    private final AtomicReference<String> pending;
+    private final Lock lock;
+    private final Condition creditGranted;
+    private long batchCredit;
+    private long byteCredit;
+    private final boolean binary;
+    private WebSocketMessage<?> pending;
 
     public KiwiWebSocketSession(final WebSocketSession session,
-                                final Long websocketBufferLimit) {
+                                final Long websocketBufferLimit,
+                                final Integer initialBatchCredit) {
+        this.binary = KiwiWebSocketHandler.BINARY_PROTOCOL.equals(session.getAcceptedProtocol());
         this.delegate = new ConcurrentWebSocketSessionDecorator(session, 200, websocketBufferLimit.intValue());
-        this.isReady = new AtomicBoolean(true);
-        this.pending = new AtomicReference<>(null);
+        this.lock = new ReentrantLock();
+        this.creditGranted = lock.newCondition();
+        this.batchCredit = Math.max(1, initialBatchCredit);
+        this.byteCredit = UNLIMITED_BYTES;
+        this.pending = null;
+    }
+
+    public boolean isBinary() {
+        return this.binary;
+    }
+
+    public boolean hasCredit() {
+        lock.lock();
+        try {
+            return batchCredit > 0 && byteCredit > 0;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public boolean isReady() {
-        return this.isReady.get();
+    /**
+     * @return true once there is credit to send, false if the session closes or the timeout passes first
+     */
+    public boolean awaitCredit(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!(batchCredit > 0 && byteCredit > 0)) {
+                if (!this.isOpen() || remaining <= 0) {
+                    return false;
+                }
+                remaining = creditGranted.awaitNanos(remaining);
+            }
+            return this.isOpen();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds to the credit granted, sending the pending message if there was one awaiting credit
+     */
+    public void grant(int batches, Long bytes) throws IOException {
+        lock.lock();
+        try {
+            batchCredit += Math.max(0, batches);
+            if (bytes != null) {
+                byteCredit = byteCredit == UNLIMITED_BYTES ? Math.max(0, bytes) : byteCredit + Math.max(0, bytes);
+            }
+            creditGranted.signalAll();
+            if (Objects.nonNull(pending) && batchCredit > 0 && byteCredit > 0 && this.isOpen()) {
+                send(pending);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public void setNotReady() {
-        this.isReady.set(false);
+    /**
+     * Sends the message using credit, the caller having checked there is some. Sent under the lock, so a pending
+     * message, which it supersedes, can't be sent after it.
+     */
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        lock.lock();
+        try {
+            send(message);
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public void setReady() {
-        this.isReady.set(true);
+    /**
+     * Holds the message until there is credit to send it, replacing any message already held
+     */
+    public void setPending(final WebSocketMessage<?> pending) {
+        lock.lock();
+        try {
+            this.pending = pending;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public int getBufferSize() {
@@ -42,30 +125,36 @@ public class KiwiWebSocketSession {
         return this.delegate.isOpen();
     }
 
-    public void sendMessage(String message) throws IOException {
-        this.delegate.sendMessage(new TextMessage(message));
+    public void close(CloseStatus status) throws IOException {
+        try {
+            this.delegate.close(status);
+        } finally {
+            this.release();
+        }
     }
 
-    public void close(CloseStatus status) throws IOException {
-        this.delegate.close(status);
+    /**
+     * Wakes any sender awaiting credit, so it finds the session closed
+     */
+    public void release() {
+        lock.lock();
+        try {
+            creditGranted.signalAll();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public String getId() {
         return this.delegate.getId();
     }
 
-    public void setPending(final String pending) {
-        this.pending.set(pending);
-    }
-
-    public void sendPending() throws IOException {
-        if (this.isReady.getAndSet(false)) {
-            final String toEmit = this.pending.getAndSet(null);
-            if (Objects.nonNull(toEmit) && this.isOpen()) {
-                this.delegate.sendMessage(new TextMessage(toEmit));
-            } else {
-                this.setReady();
-            }
+    private void send(WebSocketMessage<?> message) throws IOException {
+        this.pending = null;
+        this.batchCredit--;
+        if (this.byteCredit != UNLIMITED_BYTES) {
+            this.byteCredit -= message.getPayloadLength();
         }
+        this.delegate.sendMessage(message);
     }
 }
@@ -16,6 +16,15 @@ public interface AbstractConsumerRequest extends InboundRequest {
 
     Optional<ConsumerStartPosition> consumerStartPosition();
 
+    /**
+     * The direction a bounded scan reads the topic in, a reverse scan finds the most recent matching messages
+     * without reading the whole topic
+     */
+    @Value.Default
+    default ConsumerScanDirection scanDirection() {
+        return ConsumerScanDirection.FORWARD;
+    }
+
     @Value.Default
     default KafkaDataType kafkaKeyDataType() {
         return KafkaDataType.STRING;
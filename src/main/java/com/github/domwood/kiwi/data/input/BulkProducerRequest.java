@@ -0,0 +1,35 @@
+package com.github.domwood.kiwi.data.input;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.util.Optional;
+import java.util.Set;
+
+@JsonSerialize(as = ImmutableBulkProducerRequest.class)
+@JsonDeserialize(as = ImmutableBulkProducerRequest.class)
+@Value.Immutable
+@Value.Style(depluralize = true)
+public interface BulkProducerRequest extends InboundRequest {
+    String topic();
+
+    ConsumerRequestFileType fileType();
+
+    Optional<String> columnDelimiter();
+
+    /**
+     * The columns of each CSV line, in the order a CSV download writes them; key then value if none are given
+     */
+    Set<ConsumerRequestColumns> columns();
+
+    @Value.Default
+    default KafkaDataType kafkaKeyDataType() {
+        return KafkaDataType.STRING;
+    }
+
+    @Value.Default
+    default KafkaDataType kafkaValueDataType() {
+        return KafkaDataType.STRING;
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.domwood.kiwi.data.input;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+/**
+ * Selects one page of the cluster's consumer groups, ordered by sortBy, pages numbered from zero
+ */
+@JsonSerialize(as = ImmutableConsumerGroupLagRequest.class)
+@JsonDeserialize(as = ImmutableConsumerGroupLagRequest.class)
+@Value.Immutable
+public interface ConsumerGroupLagRequest extends InboundRequest {
+
+    @Value.Default
+    default ConsumerGroupLagSort sortBy() {
+        return ConsumerGroupLagSort.TOTAL_LAG;
+    }
+
+    @Value.Default
+    default boolean descending() {
+        return true;
+    }
+
+    @Value.Default
+    default int page() {
+        return 0;
+    }
+
+    @Value.Default
+    default int pageSize() {
+        return 50;
+    }
+}
@@ -0,0 +1,7 @@
+package com.github.domwood.kiwi.data.input;
+
+public enum ConsumerGroupLagSort {
+    TOTAL_LAG,
+    MAX_PARTITION_LAG,
+    GROUP_ID
+}
@@ -0,0 +1,6 @@
+package com.github.domwood.kiwi.data.input;
+
+public enum ConsumerScanDirection {
+    FORWARD,
+    REVERSE
+}
@@ -6,6 +6,7 @@ import org.immutables.value.Value;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 @JsonSerialize(as = ImmutableConsumerStartPosition.class)
@@ -32,4 +33,31 @@ public interface ConsumerStartPosition {
     default Map<Integer, Double> percentages() {
         return Collections.emptyMap();
     }
+
+    /**
+     * Epoch milliseconds, when set the consumer starts from the first record with a timestamp at or after it
+     */
+    Optional<Long> startTimestamp();
+
+    /**
+     * Epoch milliseconds, when set the consumer stops before the first record with a timestamp after it
+     */
+    Optional<Long> endTimestamp();
+
+    /**
+     * When set the consumer starts at the end of each partition, less {@link #tailRecords()}, ignoring any other
+     * start position
+     */
+    @Value.Default
+    default boolean tail() {
+        return false;
+    }
+
+    /**
+     * The number of records before the end of each partition a tailing consumer starts from
+     */
+    @Value.Default
+    default Long tailRecords() {
+        return 0L;
+    }
 }
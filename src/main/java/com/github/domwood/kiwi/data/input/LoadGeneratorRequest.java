@@ -0,0 +1,45 @@
+package com.github.domwood.kiwi.data.input;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Generates messages from the template, see {@link com.github.domwood.kiwi.kafka.utils.MessageTemplate} for
+ * its placeholders. Keys are drawn at random from keyCardinality distinct keys.
+ */
+@JsonSerialize(as = ImmutableLoadGeneratorRequest.class)
+@JsonDeserialize(as = ImmutableLoadGeneratorRequest.class)
+@Value.Immutable
+public interface LoadGeneratorRequest extends InboundRequest {
+    String topic();
+
+    String messageTemplate();
+
+    @Value.Default
+    default double messagesPerSecond() {
+        return 1000.0;
+    }
+
+    @Value.Default
+    default long durationSeconds() {
+        return 60L;
+    }
+
+    @Value.Default
+    default int keyCardinality() {
+        return 1000;
+    }
+
+    /**
+     * Rejects a request that can't generate any load, so it is refused as a bad request rather than failing once started
+     */
+    @Value.Check
+    default void check() {
+        checkState(messagesPerSecond() > 0 && !Double.isInfinite(messagesPerSecond()), "messagesPerSecond must be positive, was %s", messagesPerSecond());
+        checkState(durationSeconds() > 0, "durationSeconds must be positive, was %s", durationSeconds());
+        checkState(keyCardinality() > 0, "keyCardinality must be positive, was %s", keyCardinality());
+    }
+}
@@ -5,9 +5,22 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.immutables.value.Value;
 
+import java.util.Optional;
+
+/**
+ * Grants the server credit to send further batches, one batch unless given, and optionally a number of bytes.
+ * Once bytes have been granted, batches are only sent whilst both batch and byte credit remain.
+ */
 @JsonSerialize(as = ImmutableMessageAcknowledge.class)
 @JsonDeserialize(as = ImmutableMessageAcknowledge.class)
 @Value.Immutable
 @Value.Style(depluralize = true)
 public interface MessageAcknowledge extends InboundRequest{
+
+    @Value.Default
+    default int batches() {
+        return 1;
+    }
+
+    Optional<Long> bytes();
 }
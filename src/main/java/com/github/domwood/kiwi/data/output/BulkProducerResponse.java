@@ -0,0 +1,26 @@
+package com.github.domwood.kiwi.data.output;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.util.List;
+import java.util.Optional;
+
+@JsonDeserialize(as = ImmutableBulkProducerResponse.class)
+@JsonSerialize(as = ImmutableBulkProducerResponse.class)
+@Value.Immutable
+@Value.Style(depluralize = true)
+public interface BulkProducerResponse extends OutboundResponse {
+    String topic();
+
+    long messagesRead();
+
+    long messagesProduced();
+
+    long messagesFailed();
+
+    List<PartitionOffsetRange> partitions();
+
+    Optional<String> firstError();
+}
@@ -0,0 +1,21 @@
+package com.github.domwood.kiwi.data.output;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.util.List;
+
+@JsonDeserialize(as = ImmutableConsumerGroupLag.class)
+@JsonSerialize(as = ImmutableConsumerGroupLag.class)
+@Value.Immutable
+@Value.Style(depluralize = true)
+public interface ConsumerGroupLag {
+    String groupId();
+
+    long totalLag();
+
+    long maxPartitionLag();
+
+    List<TopicLag> topics();
+}
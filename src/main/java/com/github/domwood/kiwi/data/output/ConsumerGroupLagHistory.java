@@ -0,0 +1,26 @@
+package com.github.domwood.kiwi.data.output;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.util.List;
+
+/**
+ * The group's lag over time, the trend and samples of the group as a whole being the totals across its partitions
+ */
+@JsonDeserialize(as = ImmutableConsumerGroupLagHistory.class)
+@JsonSerialize(as = ImmutableConsumerGroupLagHistory.class)
+@Value.Immutable
+@Value.Style(depluralize = true)
+public interface ConsumerGroupLagHistory extends OutboundResponse {
+    String groupId();
+
+    long resolutionSeconds();
+
+    LagTrend trend();
+
+    List<LagSample> samples();
+
+    List<PartitionLagHistory> partitions();
+}
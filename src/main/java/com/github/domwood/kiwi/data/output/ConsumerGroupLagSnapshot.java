@@ -0,0 +1,23 @@
+package com.github.domwood.kiwi.data.output;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.util.List;
+
+@JsonDeserialize(as = ImmutableConsumerGroupLagSnapshot.class)
+@JsonSerialize(as = ImmutableConsumerGroupLagSnapshot.class)
+@Value.Immutable
+@Value.Style(depluralize = true)
+public interface ConsumerGroupLagSnapshot extends OutboundResponse {
+    long timestamp();
+
+    int totalGroups();
+
+    int page();
+
+    int pageSize();
+
+    List<ConsumerGroupLag> groups();
+}
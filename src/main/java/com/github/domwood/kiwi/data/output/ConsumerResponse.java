@@ -14,4 +14,9 @@ import java.util.Optional;
 public interface ConsumerResponse extends OutboundResponseWithPosition{
     Optional<ConsumerPosition> position();
     List<ConsumedMessage> messages();
+
+    /**
+     * The messages dropped so far because the session fell behind, only given by a shared consumer
+     */
+    Optional<Long> droppedMessages();
 }
@@ -0,0 +1,18 @@
+package com.github.domwood.kiwi.data.output;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+@JsonDeserialize(as = ImmutableLagSample.class)
+@JsonSerialize(as = ImmutableLagSample.class)
+@Value.Immutable
+public interface LagSample {
+    long timestamp();
+
+    long committedOffset();
+
+    long endOffset();
+
+    long lag();
+}
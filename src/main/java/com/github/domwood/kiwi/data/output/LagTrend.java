@@ -0,0 +1,24 @@
+package com.github.domwood.kiwi.data.output;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
+/**
+ * Rates are in messages per second over the window. The catch up estimate is absent whilst the group consumes no
+ * faster than messages are produced, as at that rate the lag won't clear.
+ */
+@JsonDeserialize(as = ImmutableLagTrend.class)
+@JsonSerialize(as = ImmutableLagTrend.class)
+@Value.Immutable
+public interface LagTrend {
+    long lag();
+
+    double consumptionRate();
+
+    double productionRate();
+
+    Optional<Long> catchUpSeconds();
+}
@@ -0,0 +1,34 @@
+package com.github.domwood.kiwi.data.output;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+@JsonDeserialize(as = ImmutableLoadGeneratorReport.class)
+@JsonSerialize(as = ImmutableLoadGeneratorReport.class)
+@Value.Immutable
+public interface LoadGeneratorReport extends OutboundResponse {
+    String topic();
+
+    boolean finished();
+
+    long elapsedMs();
+
+    long messagesProduced();
+
+    long messagesFailed();
+
+    long bytesProduced();
+
+    double messagesPerSecond();
+
+    double bytesPerSecond();
+
+    double latencyP50Ms();
+
+    double latencyP95Ms();
+
+    double latencyP99Ms();
+
+    double latencyMaxMs();
+}
@@ -0,0 +1,21 @@
+package com.github.domwood.kiwi.data.output;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.util.List;
+
+@JsonDeserialize(as = ImmutablePartitionLagHistory.class)
+@JsonSerialize(as = ImmutablePartitionLagHistory.class)
+@Value.Immutable
+@Value.Style(depluralize = true)
+public interface PartitionLagHistory {
+    String topic();
+
+    int partition();
+
+    LagTrend trend();
+
+    List<LagSample> samples();
+}
@@ -0,0 +1,18 @@
+package com.github.domwood.kiwi.data.output;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+@JsonDeserialize(as = ImmutablePartitionOffsetRange.class)
+@JsonSerialize(as = ImmutablePartitionOffsetRange.class)
+@Value.Immutable
+public interface PartitionOffsetRange {
+    int partition();
+
+    long firstOffset();
+
+    long lastOffset();
+
+    long messageCount();
+}
@@ -0,0 +1,18 @@
+package com.github.domwood.kiwi.data.output;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+@JsonDeserialize(as = ImmutableTopicLag.class)
+@JsonSerialize(as = ImmutableTopicLag.class)
+@Value.Immutable
+public interface TopicLag {
+    String topic();
+
+    int partitions();
+
+    long totalLag();
+
+    long maxPartitionLag();
+}
@@ -4,4 +4,8 @@ public class KiwiConsumerSubscriptionException extends RuntimeException {
     public KiwiConsumerSubscriptionException(Throwable cause) {
         super(cause);
     }
+
+    public KiwiConsumerSubscriptionException(String message) {
+        super(message);
+    }
 }
@@ -0,0 +1,7 @@
+package com.github.domwood.kiwi.exceptions;
+
+public class KiwiTaskRejectedException extends RuntimeException {
+    public KiwiTaskRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.domwood.kiwi.kafka.filters;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Matches a UTF-8 encoded filter string directly against raw record bytes, so records can be rejected
+ * without being decoded into a String first.
+ * <p>
+ * Substring search uses Boyer-Moore-Horspool with a skip table built once per filter.
+ * Because UTF-8 is self-synchronising a byte level match gives the same result as matching the decoded String.
+ */
+public class BytePatternMatcher {
+
+    private static final int ALPHABET_SIZE = 256;
+
+    private final byte[] pattern;
+    private final int[] skipTable;
+
+    private BytePatternMatcher(final byte[] pattern) {
+        this.pattern = pattern;
+        this.skipTable = buildSkipTable(pattern);
+    }
+
+    /**
+     * @return a matcher for the filter, or empty when the filter cannot be represented exactly as UTF-8 bytes
+     */
+    public static Optional<BytePatternMatcher> of(final String filter) {
+        if (filter == null) {
+            return Optional.empty();
+        }
+        byte[] encoded = filter.getBytes(StandardCharsets.UTF_8);
+        if (!filter.equals(new String(encoded, StandardCharsets.UTF_8))) {
+            return Optional.empty();
+        }
+        return Optional.of(new BytePatternMatcher(encoded));
+    }
+
+    public boolean contains(final byte[] text) {
+        return indexOf(text) >= 0;
+    }
+
+    public boolean startsWith(final byte[] text) {
+        return text.length >= pattern.length && regionMatches(text, 0);
+    }
+
+    public boolean endsWith(final byte[] text) {
+        return text.length >= pattern.length && regionMatches(text, text.length - pattern.length);
+    }
+
+    public boolean matches(final byte[] text) {
+        return Arrays.equals(pattern, text);
+    }
+
+    int indexOf(final byte[] text) {
+        final int patternLength = pattern.length;
+        if (patternLength == 0) {
+            return 0;
+        }
+        final int last = patternLength - 1;
+        int position = 0;
+        while (position <= text.length - patternLength) {
+            int index = last;
+            while (text[position + index] == pattern[index]) {
+                if (index == 0) {
+                    return position;
+                }
+                index--;
+            }
+            position += skipTable[text[position + last] & 0xFF];
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(final byte[] text, final int offset) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (text[offset + i] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] buildSkipTable(final byte[] pattern) {
+        int[] table = new int[ALPHABET_SIZE];
+        Arrays.fill(table, Math.max(pattern.length, 1));
+        for (int i = 0; i < pattern.length - 1; i++) {
+            table[pattern[i] & 0xFF] = pattern.length - 1 - i;
+        }
+        return table;
+    }
+}
@@ -1,12 +1,15 @@
 package com.github.domwood.kiwi.kafka.filters;
 
 import com.github.domwood.kiwi.data.input.filter.MessageFilter;
-import com.github.domwood.kiwi.kafka.utils.KafkaUtils;
+import com.github.domwood.kiwi.kafka.utils.DecodedConsumerRecord;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
@@ -21,29 +24,43 @@ public class FilterBuilder {
     public static <K, V> Predicate<ConsumerRecord<K, V>> compileFilters(final List<MessageFilter> messageFilterList,
                                                                         final Function<K, String> keyHandler,
                                                                         final Function<V, String> valueHandler) {
-        return messageFilterList.stream()
-                .filter(FilterBuilder::isFilterValid)
-                .map(f -> FilterBuilder.compileFilter(f, keyHandler, valueHandler))
-                .reduce(Predicate::and)
-                .orElse(dummyFilter());
+        FilterPlan<K, V> plan = FilterPlanner.plan(messageFilterList);
+        return kafkaRecord -> plan.test(new DecodedConsumerRecord<>(kafkaRecord, keyHandler, valueHandler));
     }
 
-    private static <K, V> Predicate<ConsumerRecord<K, V>> compileFilter(final MessageFilter messageFilter,
-                                                                        final Function<K, String> keyHandler,
-                                                                        final Function<V, String> valueHandler) {
+    static <K, V> Predicate<DecodedConsumerRecord<K, V>> compileFilter(final MessageFilter messageFilter) {
         switch (messageFilter.filterApplication()) {
-            case KEY:
-                return kafkaRecord -> buildFilterType(messageFilter).test(keyExtractor(kafkaRecord, keyHandler));
-            case VALUE:
-                return kafkaRecord -> buildFilterType(messageFilter).test(valueExtractor(kafkaRecord, valueHandler));
-            case HEADER_KEY:
-                return kafkaRecord -> headerKeyExtractor(kafkaRecord, buildFilterType(messageFilter));
-            case HEADER_VALUE:
-                return kafkaRecord -> headerValueExtractor(kafkaRecord, buildFilterType(messageFilter));
-            case OFFSET:
-                return kafkaRecord -> offsetExtractor(kafkaRecord, buildNumericFilterType(messageFilter));
-            case TIMESTAMP:
-                return kafkaRecord -> timestampExtractor(kafkaRecord, buildNumericFilterType(messageFilter));
+            case KEY: {
+                Predicate<String> keyMatcher = buildFilterType(messageFilter);
+                Predicate<byte[]> keyBytesMatcher = buildByteFilterType(messageFilter).orElse(null);
+                return decodedRecord -> keyExtractor(decodedRecord, keyMatcher, keyBytesMatcher);
+            }
+            case VALUE: {
+                Predicate<String> valueMatcher = buildFilterType(messageFilter);
+                Predicate<byte[]> valueBytesMatcher = buildByteFilterType(messageFilter).orElse(null);
+                return decodedRecord -> valueExtractor(decodedRecord, valueMatcher, valueBytesMatcher);
+            }
+            case HEADER_KEY: {
+                Predicate<String> headerMatcher = buildFilterType(messageFilter);
+                return decodedRecord -> headerKeyExtractor(decodedRecord, headerMatcher);
+            }
+            case HEADER_VALUE: {
+                Optional<Predicate<byte[]>> headerBytesMatcher = buildByteFilterType(messageFilter);
+                if (headerBytesMatcher.isPresent()) {
+                    Predicate<byte[]> headerMatcher = headerBytesMatcher.get();
+                    return decodedRecord -> headerRawValueExtractor(decodedRecord, headerMatcher);
+                }
+                Predicate<String> headerMatcher = buildFilterType(messageFilter);
+                return decodedRecord -> headerValueExtractor(decodedRecord, headerMatcher);
+            }
+            case OFFSET: {
+                Predicate<Long> offsetMatcher = buildNumericFilterType(messageFilter);
+                return decodedRecord -> offsetExtractor(decodedRecord, offsetMatcher);
+            }
+            case TIMESTAMP: {
+                Predicate<Long> timestampMatcher = buildNumericFilterType(messageFilter);
+                return decodedRecord -> timestampExtractor(decodedRecord, timestampMatcher);
+            }
             default:
                 return dummyFilter();
         }
@@ -76,6 +93,37 @@ public class FilterBuilder {
         }
     }
 
+    /**
+     * Builds a matcher which runs directly against the UTF-8 bytes of a key, value or header value.
+     * Only case sensitive literal filters can be evaluated this way, everything else needs the decoded String.
+     */
+    private static Optional<Predicate<byte[]>> buildByteFilterType(final MessageFilter messageFilter) {
+        if (!messageFilter.isCaseSensitive()) {
+            return Optional.empty();
+        }
+        return BytePatternMatcher.of(messageFilter.filter())
+                .map(matcher -> buildByteFilterType(messageFilter, matcher));
+    }
+
+    private static Predicate<byte[]> buildByteFilterType(final MessageFilter messageFilter, final BytePatternMatcher matcher) {
+        switch (messageFilter.filterType()) {
+            case STARTS_WITH:
+                return (byte[] value) -> value != null && matcher.startsWith(value);
+            case ENDS_WITH:
+                return (byte[] value) -> value != null && matcher.endsWith(value);
+            case CONTAINS:
+                return (byte[] value) -> value != null && matcher.contains(value);
+            case NOT_CONTAINS:
+                return (byte[] value) -> value == null || !matcher.contains(value);
+            case MATCHES:
+                return (byte[] value) -> value != null && matcher.matches(value);
+            case NOT_MATCHES:
+                return (byte[] value) -> value == null || !matcher.matches(value);
+            default:
+                return null;
+        }
+    }
+
     private static Predicate<Long> buildNumericFilterType(final MessageFilter messageFilter) {
         switch (messageFilter.filterType()) {
             case MATCHES:
@@ -91,39 +139,68 @@ public class FilterBuilder {
         }
     }
 
-    private static <K> String keyExtractor(final ConsumerRecord<K, ?> kafkaRecord, final Function<K, String> keyHandler) {
-        return keyHandler.apply(kafkaRecord.key());
+    private static boolean keyExtractor(final DecodedConsumerRecord<?, ?> decodedRecord,
+                                        final Predicate<String> keyMatcher,
+                                        final Predicate<byte[]> keyBytesMatcher) {
+        final Object key = decodedRecord.record().key();
+        if (keyBytesMatcher != null && key instanceof byte[]) {
+            return keyBytesMatcher.test((byte[]) key);
+        }
+        return keyMatcher.test(decodedRecord.key());
     }
 
-    private static <V> String valueExtractor(final ConsumerRecord<?, V> kafkaRecord, final Function<V, String> valueHandler) {
-        return valueHandler.apply(kafkaRecord.value());
+    private static boolean valueExtractor(final DecodedConsumerRecord<?, ?> decodedRecord,
+                                          final Predicate<String> valueMatcher,
+                                          final Predicate<byte[]> valueBytesMatcher) {
+        final Object value = decodedRecord.record().value();
+        if (valueBytesMatcher != null && value instanceof byte[]) {
+            return valueBytesMatcher.test((byte[]) value);
+        }
+        return valueMatcher.test(decodedRecord.value());
     }
 
-    private static Boolean headerKeyExtractor(final ConsumerRecord<?, ?> kafkaRecord, final Predicate<String> headerMatcher) {
-        return KafkaUtils.fromKafkaHeaders(kafkaRecord.headers())
-                .stream()
-                .map(Pair::getKey)
-                .anyMatch(headerMatcher);
+    private static Boolean headerKeyExtractor(final DecodedConsumerRecord<?, ?> decodedRecord, final Predicate<String> headerMatcher) {
+        for (Pair<String, String> header : decodedRecord.headers()) {
+            if (headerMatcher.test(header.getKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Boolean headerValueExtractor(final DecodedConsumerRecord<?, ?> decodedRecord, final Predicate<String> headerMatcher) {
+        for (Pair<String, String> header : decodedRecord.headers()) {
+            if (headerMatcher.test(String.valueOf(header.getValue()))) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private static Boolean headerValueExtractor(final ConsumerRecord<?, ?> kafkaRecord, final Predicate<String> headerMatcher) {
-        return KafkaUtils.fromKafkaHeaders(kafkaRecord.headers())
-                .stream()
-                .map(Pair::getValue)
-                .map(String::valueOf)
-                .anyMatch(headerMatcher);
+    private static Boolean headerRawValueExtractor(final DecodedConsumerRecord<?, ?> decodedRecord, final Predicate<byte[]> headerMatcher) {
+        final Headers headers = decodedRecord.record().headers();
+        if (headers == null) {
+            return false;
+        }
+        for (Header header : headers.toArray()) {
+            if (headerMatcher.test(header.value())) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private static Boolean offsetExtractor(final ConsumerRecord<?, ?> kafkaRecord, final Predicate<Long> offsetMatcher) {
-        return offsetMatcher.test(kafkaRecord.offset());
+    private static Boolean offsetExtractor(final DecodedConsumerRecord<?, ?> decodedRecord, final Predicate<Long> offsetMatcher) {
+        return offsetMatcher.test(decodedRecord.record().offset());
     }
 
-    private static Boolean timestampExtractor(final ConsumerRecord<?, ?> kafkaRecord, final Predicate<Long> timestampMatcher) {
-        return timestampMatcher.test(kafkaRecord.timestamp());
+    private static Boolean timestampExtractor(final DecodedConsumerRecord<?, ?> decodedRecord, final Predicate<Long> timestampMatcher) {
+        return timestampMatcher.test(decodedRecord.record().timestamp());
     }
 
     private static Predicate<String> startsWithCaseInsensitive(final String filterString) {
-        return (String value) -> value != null && value.toLowerCase().startsWith(filterString.toLowerCase());
+        final String lowerCaseFilter = filterString.toLowerCase();
+        return (String value) -> value != null && value.toLowerCase().startsWith(lowerCaseFilter);
     }
 
     private static Predicate<String> startsWith(final String filterString) {
@@ -131,7 +208,8 @@ public class FilterBuilder {
     }
 
     private static Predicate<String> endsWithCaseInsensitive(final String filterString) {
-        return (String value) -> value != null && value.toLowerCase().endsWith(filterString.toLowerCase());
+        final String lowerCaseFilter = filterString.toLowerCase();
+        return (String value) -> value != null && value.toLowerCase().endsWith(lowerCaseFilter);
     }
 
     private static Predicate<String> endsWith(final String filterString) {
@@ -139,7 +217,8 @@ public class FilterBuilder {
     }
 
     private static Predicate<String> containsCaseInsensitive(final String filterString) {
-        return (String value) -> value != null && value.toLowerCase().contains(filterString.toLowerCase());
+        final String lowerCaseFilter = filterString.toLowerCase();
+        return (String value) -> value != null && value.toLowerCase().contains(lowerCaseFilter);
     }
 
     private static Predicate<String> contains(final String filterString) {
@@ -147,7 +226,8 @@ public class FilterBuilder {
     }
 
     private static Predicate<String> doesNotContainCaseInsensitive(final String filterString) {
-        return (String value) -> value == null || !value.toLowerCase().contains(filterString.toLowerCase());
+        final String lowerCaseFilter = filterString.toLowerCase();
+        return (String value) -> value == null || !value.toLowerCase().contains(lowerCaseFilter);
     }
 
     private static Predicate<String> doesNotContain(final String filterString) {
@@ -176,18 +256,20 @@ public class FilterBuilder {
     }
 
     private static Predicate<Long> lessThan(final String filterString) {
-        return (Long value) -> value != null && value < safeLong(filterString);
+        final long limit = safeLong(filterString);
+        return (Long value) -> value != null && value < limit;
     }
 
     private static Predicate<Long> greaterThan(final String filterString) {
-        return (Long value) -> value != null && value > safeLong(filterString);
+        final long limit = safeLong(filterString);
+        return (Long value) -> value != null && value > limit;
     }
 
-    private static <K, V> Predicate<ConsumerRecord<K, V>> dummyFilter() {
+    private static <T> Predicate<T> dummyFilter() {
         return unused -> true;
     }
 
-    private static boolean isFilterValid(final MessageFilter messageFilter) {
+    static boolean isFilterValid(final MessageFilter messageFilter) {
         return Objects.nonNull(messageFilter.filter()) && isValidNumericFilter(messageFilter);
     }
 
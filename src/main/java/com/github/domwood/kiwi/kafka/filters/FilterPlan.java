@@ -0,0 +1,50 @@
+package com.github.domwood.kiwi.kafka.filters;
+
+import com.github.domwood.kiwi.data.input.filter.MessageFilter;
+import com.github.domwood.kiwi.kafka.utils.DecodedConsumerRecord;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An immutable, pre-compiled set of filters, evaluated in the order chosen by the {@link FilterPlanner}.
+ * A record matches when every stage matches, evaluation stops at the first stage that rejects it.
+ */
+public class FilterPlan<K, V> implements Predicate<DecodedConsumerRecord<K, V>> {
+
+    private final List<MessageFilter> filters;
+    private final List<Predicate<DecodedConsumerRecord<K, V>>> stages;
+
+    FilterPlan(final List<MessageFilter> filters,
+               final List<Predicate<DecodedConsumerRecord<K, V>>> stages) {
+        this.filters = ImmutableList.copyOf(filters);
+        this.stages = ImmutableList.copyOf(stages);
+    }
+
+    @Override
+    public boolean test(final DecodedConsumerRecord<K, V> decodedRecord) {
+        for (Predicate<DecodedConsumerRecord<K, V>> stage : stages) {
+            if (!stage.test(decodedRecord)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the filters in this plan, in the order they are evaluated
+     */
+    public List<MessageFilter> filters() {
+        return filters;
+    }
+
+    public boolean isEmpty() {
+        return stages.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "FilterPlan{filters=" + filters + '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.domwood.kiwi.kafka.filters;
+
+import com.github.domwood.kiwi.data.input.filter.MessageFilter;
+import com.github.domwood.kiwi.kafka.utils.DecodedConsumerRecord;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Compiles a list of {@link MessageFilter} into a {@link FilterPlan}.
+ * <p>
+ * Filters are compiled exactly once, and ordered so the cheapest and most selective checks run first:
+ * offset/timestamp comparisons, then header checks, then key/value substring checks, with regular expressions last.
+ */
+public class FilterPlanner {
+
+    private static final int NUMERIC_COST = 0;
+    private static final int HEADER_COST = 100;
+    private static final int KEY_COST = 200;
+    private static final int VALUE_COST = 300;
+    private static final int REGEX_COST = 1000;
+    private static final int CASE_INSENSITIVE_COST = 5;
+
+    private FilterPlanner() {
+    }
+
+    public static <K, V> FilterPlan<K, V> plan(final List<MessageFilter> messageFilterList) {
+        List<MessageFilter> ordered = messageFilterList.stream()
+                .filter(FilterBuilder::isFilterValid)
+                .sorted(Comparator.comparingInt(FilterPlanner::cost))
+                .collect(toList());
+
+        List<Predicate<DecodedConsumerRecord<K, V>>> stages = ordered.stream()
+                .map(FilterBuilder::<K, V>compileFilter)
+                .collect(toList());
+
+        return new FilterPlan<>(ordered, stages);
+    }
+
+    static int cost(final MessageFilter messageFilter) {
+        int cost = applicationCost(messageFilter) + selectivityCost(messageFilter);
+        return messageFilter.isCaseSensitive() ? cost : cost + CASE_INSENSITIVE_COST;
+    }
+
+    private static int applicationCost(final MessageFilter messageFilter) {
+        switch (messageFilter.filterApplication()) {
+            case OFFSET:
+            case TIMESTAMP:
+                return NUMERIC_COST;
+            case HEADER_KEY:
+            case HEADER_VALUE:
+                return HEADER_COST;
+            case KEY:
+                return KEY_COST;
+            default:
+                return VALUE_COST;
+        }
+    }
+
+    private static int selectivityCost(final MessageFilter messageFilter) {
+        switch (messageFilter.filterType()) {
+            case MATCHES:
+                return 0;
+            case STARTS_WITH:
+            case ENDS_WITH:
+            case LESS_THAN:
+            case GREATER_THAN:
+                return 10;
+            case CONTAINS:
+                return 20;
+            case NOT_MATCHES:
+                return 30;
+            case NOT_CONTAINS:
+                return 40;
+            case REGEX:
+            default:
+                return REGEX_COST;
+        }
+    }
+}
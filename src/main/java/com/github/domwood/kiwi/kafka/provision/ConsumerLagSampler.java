@@ -0,0 +1,209 @@
+package com.github.domwood.kiwi.kafka.provision;
+
+import com.github.domwood.kiwi.data.output.ConsumerGroupLagHistory;
+import com.github.domwood.kiwi.data.output.ImmutableConsumerGroupLagHistory;
+import com.github.domwood.kiwi.data.output.ImmutablePartitionLagHistory;
+import com.github.domwood.kiwi.data.output.LagTrend;
+import com.github.domwood.kiwi.data.output.PartitionLagHistory;
+import com.github.domwood.kiwi.kafka.utils.LagTimeSeries;
+import com.github.domwood.kiwi.utilities.TimeService;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Samples the committed and end offsets of the groups being tracked every interval, keeping an hour of samples at
+ * the sampling interval and a day at one minute. From these the lag trend of each group and partition is given,
+ * whether the group is catching up and when it is expected to have caught up. As a group may read many partitions,
+ * each partition keeps far fewer samples, five minutes at the sampling interval and a day at five minutes, and a
+ * partition the group no longer commits to is dropped once it has gone a day without a sample.
+ */
+@Component
+public class ConsumerLagSampler {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final long FINE_RETENTION_MS = TimeUnit.HOURS.toMillis(1);
+    private static final long COARSE_RESOLUTION_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long COARSE_RETENTION_MS = TimeUnit.DAYS.toMillis(1);
+    private static final long PARTITION_FINE_RETENTION_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final long PARTITION_COARSE_RESOLUTION_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private final KafkaTaskProvider taskProvider;
+    private final long intervalMs;
+    private final int maxGroups;
+    private final TimeService timeService;
+    private final Map<String, TrackedGroup> trackedGroups;
+    private final ScheduledExecutorService sampler;
+
+    @Autowired
+    public ConsumerLagSampler(KafkaTaskProvider taskProvider,
+                              final @Value("${admin.lag.history.interval.ms:10000}") Long intervalMs,
+                              final @Value("${admin.lag.history.max.groups:20}") Integer maxGroups) {
+        this(taskProvider, intervalMs, maxGroups, new TimeService());
+        this.sampler.scheduleWithFixedDelay(this::sample, this.intervalMs, this.intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    ConsumerLagSampler(KafkaTaskProvider taskProvider, long intervalMs, int maxGroups, TimeService timeService) {
+        this.taskProvider = taskProvider;
+        this.intervalMs = Math.max(1000L, intervalMs);
+        this.maxGroups = maxGroups;
+        this.timeService = timeService;
+        this.trackedGroups = new ConcurrentHashMap<>();
+        this.sampler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("kiwi-lag-sampler-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * @return false if the group couldn't be tracked as the maximum number of groups are already tracked
+     */
+    public synchronized boolean track(Optional<String> clusterName, String groupId) {
+        String key = key(clusterName, groupId);
+        if (trackedGroups.containsKey(key)) {
+            return true;
+        }
+        if (trackedGroups.size() >= maxGroups) {
+            return false;
+        }
+        logger.info("Tracking lag of group {} on cluster {}", groupId, clusterName.orElse(""));
+        trackedGroups.put(key, new TrackedGroup(clusterName, groupId));
+        return true;
+    }
+
+    public synchronized boolean untrack(Optional<String> clusterName, String groupId) {
+        return trackedGroups.remove(key(clusterName, groupId)) != null;
+    }
+
+    public Optional<ConsumerGroupLagHistory> history(Optional<String> clusterName,
+                                                     String groupId,
+                                                     long resolutionSeconds,
+                                                     long windowSeconds) {
+        return Optional.ofNullable(trackedGroups.get(key(clusterName, groupId)))
+                .map(group -> group.history(TimeUnit.SECONDS.toMillis(resolutionSeconds), TimeUnit.SECONDS.toMillis(windowSeconds)));
+    }
+
+    void sample() {
+        long timestamp = timeService.now();
+        Map<TrackedGroup, CompletableFuture<Map<TopicPartition, Pair<Long, Long>>>> samples = new HashMap<>();
+        trackedGroups.values().forEach(group -> {
+            try {
+                samples.put(group, taskProvider.consumerGroupOffsets(group.groupId, group.clusterName).execute());
+            } catch (Exception e) {
+                logger.warn("Failed to sample the offsets of group {}", group.groupId, e);
+            }
+        });
+
+        samples.forEach((group, offsets) -> {
+            try {
+                group.record(timestamp, offsets.get(intervalMs, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.warn("Failed to sample the offsets of group {}", group.groupId, e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sampler.shutdownNow();
+    }
+
+    private LagTimeSeries timeSeries() {
+        return new LagTimeSeries(intervalMs, (int) (FINE_RETENTION_MS / intervalMs),
+                COARSE_RESOLUTION_MS, (int) (COARSE_RETENTION_MS / COARSE_RESOLUTION_MS));
+    }
+
+    private LagTimeSeries partitionTimeSeries() {
+        return new LagTimeSeries(intervalMs, (int) Math.max(2, PARTITION_FINE_RETENTION_MS / intervalMs),
+                PARTITION_COARSE_RESOLUTION_MS, (int) (COARSE_RETENTION_MS / PARTITION_COARSE_RESOLUTION_MS));
+    }
+
+    private static String key(Optional<String> clusterName, String groupId) {
+        return clusterName.orElse("") + "|" + groupId;
+    }
+
+    private class TrackedGroup {
+        private final Optional<String> clusterName;
+        private final String groupId;
+        private final LagTimeSeries total;
+        private final Map<TopicPartition, LagTimeSeries> partitions;
+        private volatile Set<TopicPartition> latestPartitions;
+
+        private TrackedGroup(Optional<String> clusterName, String groupId) {
+            this.clusterName = clusterName;
+            this.groupId = groupId;
+            this.total = timeSeries();
+            this.partitions = new ConcurrentHashMap<>();
+            this.latestPartitions = Collections.emptySet();
+        }
+
+        private void record(long timestamp, Map<TopicPartition, Pair<Long, Long>> offsets) {
+            offsets.forEach((tp, offset) -> partitions.computeIfAbsent(tp, p -> partitionTimeSeries())
+                    .record(timestamp, offset.getLeft(), offset.getRight()));
+            partitions.values().removeIf(series -> series.latestTimestamp()
+                    .map(latest -> timestamp - latest > COARSE_RETENTION_MS)
+                    .orElse(true));
+            total.record(timestamp,
+                    offsets.values().stream().mapToLong(Pair::getLeft).sum(),
+                    offsets.values().stream().mapToLong(Pair::getRight).sum());
+            latestPartitions = ImmutableSet.copyOf(offsets.keySet());
+        }
+
+        /**
+         * The group's trend is combined from the trends of the partitions in the latest sample, rather than taken
+         * from its summed offsets, so a partition missing from a sample doesn't show as a jump in the rates
+         */
+        private ConsumerGroupLagHistory history(long resolutionMs, long windowMs) {
+            Map<TopicPartition, LagTrend> partitionTrends = partitions.entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, tp -> tp.getValue().trend(windowMs)));
+            Set<TopicPartition> latest = latestPartitions;
+
+            List<PartitionLagHistory> partitionHistory = partitions.entrySet().stream()
+                    .sorted(Comparator.comparing((Map.Entry<TopicPartition, LagTimeSeries> tp) -> tp.getKey().topic())
+                            .thenComparingInt(tp -> tp.getKey().partition()))
+                    .map(tp -> ImmutablePartitionLagHistory.builder()
+                            .topic(tp.getKey().topic())
+                            .partition(tp.getKey().partition())
+                            .trend(partitionTrends.get(tp.getKey()))
+                            .samples(tp.getValue().samples(resolutionMs))
+                            .build())
+                    .collect(toList());
+
+            return ImmutableConsumerGroupLagHistory.builder()
+                    .groupId(groupId)
+                    .resolutionSeconds(TimeUnit.MILLISECONDS.toSeconds(total.resolutionMs(resolutionMs)))
+                    .trend(LagTimeSeries.combine(partitionTrends.entrySet().stream()
+                            .filter(tp -> latest.contains(tp.getKey()))
+                            .map(Map.Entry::getValue)
+                            .collect(toList())))
+                    .samples(total.samples(resolutionMs))
+                    .partitions(partitionHistory)
+                    .build();
+        }
+    }
+}
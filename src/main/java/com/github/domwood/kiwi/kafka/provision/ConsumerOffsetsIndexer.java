@@ -0,0 +1,156 @@
+package com.github.domwood.kiwi.kafka.provision;
+
+import com.github.domwood.kiwi.kafka.configs.KafkaConfigManager;
+import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
+import com.github.domwood.kiwi.kafka.utils.ConsumerGroupOffsetsIndex;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.domwood.kiwi.kafka.utils.ConsumerOffsetsDecoder.CONSUMER_OFFSETS_TOPIC;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * When enabled, reads each cluster's __consumer_offsets topic into an index of committed offsets and group
+ * assignments, so group and lag requests can be answered without querying the group coordinators.
+ * A configured cluster's reader is started by the first request against it, and the index is offered only whilst the
+ * reader has caught up with the end of the topic as it was when reading began; until then, and after the reader
+ * fails until it catches up again, requests go to the cluster as before. Only committed transactional offsets
+ * are read.
+ */
+@Component
+public class ConsumerOffsetsIndexer {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    private static final long RETRY_BACKOFF_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private final KafkaResourceProvider resourceProvider;
+    private final KafkaConfigManager configManager;
+    private final boolean enabled;
+    private final Map<String, ClusterReader> readers;
+
+    @Autowired
+    public ConsumerOffsetsIndexer(KafkaResourceProvider resourceProvider,
+                                  KafkaConfigManager configManager,
+                                  final @Value("${admin.offsets.index.enabled:false}") Boolean enabled) {
+        this.resourceProvider = resourceProvider;
+        this.configManager = configManager;
+        this.enabled = enabled;
+        this.readers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return the cluster's index once it has caught up, empty if indexing is disabled, the cluster isn't configured
+     * or its index has yet to catch up
+     */
+    public Optional<ConsumerGroupOffsetsIndex> index(Optional<String> clusterName) {
+        if (!enabled || (clusterName.isPresent() && !configManager.getClusterList().contains(clusterName.get()))) {
+            return Optional.empty();
+        }
+        ClusterReader reader = readers.computeIfAbsent(clusterName.orElse(""), cluster -> {
+            ClusterReader started = new ClusterReader(clusterName);
+            started.start();
+            return started;
+        });
+        return reader.caughtUp ? Optional.of(reader.index) : Optional.empty();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readers.values().forEach(ClusterReader::close);
+    }
+
+    private class ClusterReader extends Thread {
+        private final Optional<String> clusterName;
+        private final ConsumerGroupOffsetsIndex index;
+        private final Map<TopicPartition, Long> positions;
+        private volatile boolean caughtUp;
+        private volatile boolean closed;
+
+        private ClusterReader(Optional<String> clusterName) {
+            super("kiwi-offsets-index-" + clusterName.orElse("default"));
+            this.setDaemon(true);
+            this.clusterName = clusterName;
+            this.index = new ConsumerGroupOffsetsIndex();
+            this.positions = new ConcurrentHashMap<>();
+            this.caughtUp = false;
+            this.closed = false;
+        }
+
+        @Override
+        public void run() {
+            while (!closed) {
+                KafkaConsumerResource<byte[], byte[]> consumer = resourceProvider.kafkaRawConsumerResource(clusterName);
+                try {
+                    read(consumer);
+                } catch (Exception e) {
+                    caughtUp = false;
+                    if (!closed) {
+                        logger.warn("Reading {} for cluster {} failed, retrying in {}ms", CONSUMER_OFFSETS_TOPIC, clusterName.orElse(""), RETRY_BACKOFF_MS, e);
+                        sleepBeforeRetry();
+                    }
+                } finally {
+                    consumer.discard();
+                }
+            }
+        }
+
+        /**
+         * Reads from the offsets already applied to the index, or the beginning when starting out, so a retry picks
+         * up where the failed read stopped
+         */
+        private void read(KafkaConsumerResource<byte[], byte[]> consumer) {
+            Set<TopicPartition> partitions = consumer.partitionsFor(CONSUMER_OFFSETS_TOPIC).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .collect(toSet());
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            consumer.seek(positions);
+            Map<TopicPartition, Long> catchUpOffsets = consumer.endOffsets(partitions);
+            logger.info("Indexing {} partitions of {} for cluster {}", partitions.size(), CONSUMER_OFFSETS_TOPIC, clusterName.orElse(""));
+
+            while (!closed) {
+                for (ConsumerRecord<byte[], byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                    try {
+                        index.apply(record.key(), record.value());
+                    } catch (RuntimeException e) {
+                        logger.debug("Skipping undecodable record at {}-{}@{}", record.topic(), record.partition(), record.offset(), e);
+                    }
+                    positions.put(new TopicPartition(record.topic(), record.partition()), record.offset() + 1);
+                }
+                if (!caughtUp && consumer.currentPosition(partitions).entrySet().stream()
+                        .allMatch(position -> position.getValue() >= catchUpOffsets.getOrDefault(position.getKey(), 0L))) {
+                    logger.info("Index of {} for cluster {} has caught up", CONSUMER_OFFSETS_TOPIC, clusterName.orElse(""));
+                    caughtUp = true;
+                }
+            }
+        }
+
+        private void sleepBeforeRetry() {
+            try {
+                TimeUnit.MILLISECONDS.sleep(RETRY_BACKOFF_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closed = true;
+            }
+        }
+
+        private void close() {
+            this.closed = true;
+            this.interrupt();
+        }
+    }
+}
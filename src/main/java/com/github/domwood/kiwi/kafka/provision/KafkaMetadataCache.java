@@ -0,0 +1,138 @@
+package com.github.domwood.kiwi.kafka.provision;
+
+import com.github.domwood.kiwi.utilities.TimeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Holds the results of cluster metadata lookups, the topic list, topic details and broker list, per cluster.
+ * A result younger than the ttl is answered from memory. An older result, within the stale window, is still answered
+ * from memory whilst a single background lookup replaces it. Failed lookups are not kept.
+ * Writes to a cluster invalidate its results, and for the grace period afterwards lookups go to the cluster,
+ * so metadata still propagating between brokers isn't held for a full ttl.
+ */
+@Component
+public class KafkaMetadataCache {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final boolean enabled;
+    private final long ttlMs;
+    private final long staleMs;
+    private final long invalidationGraceMs;
+    private final TimeService timeService;
+    private final Map<String, Map<String, CachedValue<?>>> clusterCaches;
+    private final Map<String, Long> bypassUntil;
+
+    @Autowired
+    public KafkaMetadataCache(final @Value("${admin.metadata.cache.enabled:true}") Boolean enabled,
+                              final @Value("${admin.metadata.cache.ttl.ms:30000}") Long ttlMs,
+                              final @Value("${admin.metadata.cache.stale.ms:300000}") Long staleMs,
+                              final @Value("${admin.metadata.cache.invalidation.grace.ms:10000}") Long invalidationGraceMs) {
+        this(enabled, ttlMs, staleMs, invalidationGraceMs, new TimeService());
+    }
+
+    KafkaMetadataCache(final boolean enabled,
+                       final long ttlMs,
+                       final long staleMs,
+                       final long invalidationGraceMs,
+                       final TimeService timeService) {
+        this.enabled = enabled;
+        this.ttlMs = ttlMs;
+        this.staleMs = staleMs;
+        this.invalidationGraceMs = invalidationGraceMs;
+        this.timeService = timeService;
+        this.clusterCaches = new ConcurrentHashMap<>();
+        this.bypassUntil = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return the cached result for the cluster and key, or the result of the lookup if there is no usable cached one
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> get(final Optional<String> clusterName,
+                                        final String key,
+                                        final Supplier<CompletableFuture<T>> lookup) {
+        if (!enabled) {
+            return lookup.get();
+        }
+        String cluster = clusterName.orElse("");
+        Map<String, CachedValue<?>> cache = clusterCaches.computeIfAbsent(cluster, c -> new ConcurrentHashMap<>());
+        long now = timeService.now();
+
+        if (now < bypassUntil.getOrDefault(cluster, 0L)) {
+            return load(cache, key, lookup);
+        }
+
+        CachedValue<T> cached = (CachedValue<T>) cache.get(key);
+        if (cached == null || now - cached.loadedAt >= ttlMs + staleMs) {
+            return load(cache, key, lookup);
+        }
+        if (now - cached.loadedAt >= ttlMs && cached.value.isDone() && cached.refreshing.compareAndSet(false, true)) {
+            logger.debug("Refreshing stale metadata {} for cluster {}", key, cluster);
+            refresh(cache, key, cached, lookup);
+        }
+        return cached.value;
+    }
+
+    public void invalidate(final Optional<String> clusterName) {
+        String cluster = clusterName.orElse("");
+        logger.info("Invalidating cached metadata for cluster {}", cluster);
+        bypassUntil.put(cluster, timeService.now() + invalidationGraceMs);
+        Optional.ofNullable(clusterCaches.get(cluster)).ifPresent(Map::clear);
+    }
+
+    private <T> CompletableFuture<T> load(final Map<String, CachedValue<?>> cache,
+                                          final String key,
+                                          final Supplier<CompletableFuture<T>> lookup) {
+        CachedValue<T> loading = new CachedValue<>(lookup.get(), timeService.now());
+        cache.put(key, loading);
+        loading.value.whenComplete((result, e) -> {
+            if (e != null) {
+                cache.remove(key, loading);
+            }
+        });
+        return loading.value;
+    }
+
+    private <T> void refresh(final Map<String, CachedValue<?>> cache,
+                             final String key,
+                             final CachedValue<T> stale,
+                             final Supplier<CompletableFuture<T>> lookup) {
+        try {
+            lookup.get().whenComplete((result, e) -> {
+                if (e != null) {
+                    logger.warn("Failed to refresh metadata {}, continuing to serve the stale result", key, e);
+                    stale.refreshing.set(false);
+                } else {
+                    cache.replace(key, stale, new CachedValue<>(CompletableFuture.completedFuture(result), timeService.now()));
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("Failed to refresh metadata {}, continuing to serve the stale result", key, e);
+            stale.refreshing.set(false);
+        }
+    }
+
+    private static class CachedValue<T> {
+        private final CompletableFuture<T> value;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing;
+
+        private CachedValue(final CompletableFuture<T> value, final long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+            this.refreshing = new AtomicBoolean(false);
+        }
+    }
+}
@@ -2,15 +2,25 @@ package com.github.domwood.kiwi.kafka.provision;
 
 import com.github.domwood.kiwi.data.input.KafkaDataType;
 import com.github.domwood.kiwi.kafka.configs.KafkaConfigManager;
+import com.github.domwood.kiwi.kafka.resources.KafkaAdminClientRegistry;
 import com.github.domwood.kiwi.kafka.resources.KafkaAdminResource;
+import com.github.domwood.kiwi.kafka.resources.KafkaConsumerPool;
 import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
 import com.github.domwood.kiwi.kafka.resources.KafkaDataTypeHandler;
 import com.github.domwood.kiwi.kafka.resources.KafkaDataTypeHandlerProvider;
+import com.github.domwood.kiwi.kafka.resources.KafkaProducerRegistry;
 import com.github.domwood.kiwi.kafka.resources.KafkaProducerResource;
-import com.github.domwood.kiwi.kafka.resources.KafkaResourcePair;
 import com.github.domwood.kiwi.kafka.resources.KafkaTopicConfigResource;
+import com.github.domwood.kiwi.kafka.resources.PooledKafkaConsumerResource;
+import com.github.domwood.kiwi.kafka.resources.SharedKafkaAdminResource;
+import com.github.domwood.kiwi.kafka.resources.SharedKafkaProducerResource;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.IsolationLevel;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Properties;
 
@@ -18,24 +28,72 @@ import java.util.Properties;
 public class KafkaResourceProvider {
 
     private final KafkaConfigManager configManager;
+    private final Optional<KafkaConsumerPool> consumerPool;
+    private final Optional<KafkaAdminClientRegistry> adminClientRegistry;
+    private final Optional<KafkaProducerRegistry> producerRegistry;
 
-    public KafkaResourceProvider(KafkaConfigManager configManager) {
+    public KafkaResourceProvider(KafkaConfigManager configManager,
+                                 final @Value("${consumer.pool.enabled:true}") Boolean consumerPoolEnabled,
+                                 final @Value("${consumer.pool.max.size:8}") Integer consumerPoolMaxSize,
+                                 final @Value("${consumer.pool.idle.timeout.ms:300000}") Long consumerPoolIdleTimeout,
+                                 final @Value("${admin.shared.enabled:true}") Boolean sharedAdminEnabled,
+                                 final @Value("${admin.health.check.interval.ms:30000}") Long adminHealthCheckInterval,
+                                 final @Value("${producer.shared.enabled:true}") Boolean sharedProducerEnabled) {
         this.configManager = configManager;
+        this.consumerPool = consumerPoolEnabled ?
+                Optional.of(new KafkaConsumerPool(consumerPoolMaxSize, consumerPoolIdleTimeout)) :
+                Optional.empty();
+        this.adminClientRegistry = sharedAdminEnabled ?
+                Optional.of(new KafkaAdminClientRegistry(adminHealthCheckInterval)) :
+                Optional.empty();
+        this.producerRegistry = sharedProducerEnabled ?
+                Optional.of(new KafkaProducerRegistry()) :
+                Optional.empty();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.consumerPool.ifPresent(KafkaConsumerPool::shutdown);
+        this.adminClientRegistry.ifPresent(KafkaAdminClientRegistry::shutdown);
+        this.producerRegistry.ifPresent(KafkaProducerRegistry::shutdown);
     }
 
     public <K, V> KafkaConsumerResource<K, V> kafkaConsumerResource(Optional<String> clusterName,
                                                                     KafkaDataTypeHandler<K> keyHandler,
                                                                     KafkaDataTypeHandler<V> valueHandler) {
+        if (consumerPool.isPresent()) {
+            return new PooledKafkaConsumerResource<>(configManager.generateConsumerConfig(clusterName), keyHandler, valueHandler,
+                    consumerPool.get(), KafkaConsumerPool.poolKey(clusterName, keyHandler, valueHandler));
+        }
         return new KafkaConsumerResource<>(configManager.generateConsumerConfig(clusterName), keyHandler, valueHandler);
     }
 
+    /**
+     * A consumer of undecoded keys and values, never taken from the pool, for readers which hold their consumer
+     * for as long as the application runs. It reads only committed records, so aborted transactions aren't seen.
+     */
+    @SuppressWarnings("unchecked")
+    public KafkaConsumerResource<byte[], byte[]> kafkaRawConsumerResource(Optional<String> clusterName) {
+        KafkaDataTypeHandler<byte[]> rawHandler = (KafkaDataTypeHandler<byte[]>) KafkaDataTypeHandlerProvider.getConsumerTypeHandler(KafkaDataType.STRING);
+        Properties config = configManager.generateConsumerConfig(clusterName);
+        config.setProperty(ConsumerConfig.ISOLATION_LEVEL_CONFIG, IsolationLevel.READ_COMMITTED.toString().toLowerCase(Locale.ROOT));
+        return new KafkaConsumerResource<>(config, rawHandler, rawHandler);
+    }
+
     public <K, V> KafkaProducerResource<K, V> kafkaProducerResource(Optional<String> clusterName,
                                                                     KafkaDataTypeHandler<K> keyHandler,
                                                                     KafkaDataTypeHandler<V> valueHandler) {
+        if (producerRegistry.isPresent()) {
+            return new SharedKafkaProducerResource<>(configManager.generateProducerConfig(clusterName), keyHandler, valueHandler,
+                    producerRegistry.get(), KafkaProducerRegistry.producerKey(clusterName, keyHandler, valueHandler));
+        }
         return new KafkaProducerResource<>(configManager.generateProducerConfig(clusterName), keyHandler, valueHandler);
     }
 
     public KafkaAdminResource kafkaAdminResource(Optional<String> clusterName) {
+        if (adminClientRegistry.isPresent()) {
+            return new SharedKafkaAdminResource(configManager.generateAdminConfig(clusterName), adminClientRegistry.get(), clusterName.orElse(""));
+        }
         return new KafkaAdminResource(configManager.generateAdminConfig(clusterName));
     }
 
@@ -43,11 +101,4 @@ public class KafkaResourceProvider {
         return new KafkaTopicConfigResource(new Properties());
     }
 
-    public KafkaResourcePair<KafkaAdminResource, KafkaConsumerResource<String, String>> kafkaAdminAndConsumer(Optional<String> clusterName) {
-        KafkaAdminResource admin = this.kafkaAdminResource(clusterName);
-        KafkaDataTypeHandler<String> dataTypeHandler = (KafkaDataTypeHandler<String>) KafkaDataTypeHandlerProvider.getTypeHandler(KafkaDataType.STRING);
-        KafkaConsumerResource<String, String> consumer = kafkaConsumerResource(clusterName, dataTypeHandler, dataTypeHandler);
-        return new KafkaResourcePair<>(admin, consumer);
-    }
-
 }
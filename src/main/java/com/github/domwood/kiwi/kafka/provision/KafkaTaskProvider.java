@@ -1,22 +1,34 @@
 package com.github.domwood.kiwi.kafka.provision;
 
 import com.github.domwood.kiwi.data.input.AbstractConsumerRequest;
+import com.github.domwood.kiwi.data.input.BulkProducerRequest;
+import com.github.domwood.kiwi.data.input.ConsumerGroupLagRequest;
 import com.github.domwood.kiwi.data.input.ConsumerRequest;
 import com.github.domwood.kiwi.data.input.CreateTopicRequest;
+import com.github.domwood.kiwi.data.input.KafkaDataType;
+import com.github.domwood.kiwi.data.input.LoadGeneratorRequest;
 import com.github.domwood.kiwi.data.input.ProducerRequest;
 import com.github.domwood.kiwi.data.input.UpdateTopicConfig;
+import com.github.domwood.kiwi.data.output.BrokerInfoList;
+import com.github.domwood.kiwi.data.output.ConsumerGroupList;
+import com.github.domwood.kiwi.data.output.ImmutableConsumerGroupList;
+import com.github.domwood.kiwi.data.output.TopicInfo;
+import com.github.domwood.kiwi.data.output.TopicList;
 import com.github.domwood.kiwi.kafka.resources.KafkaAdminResource;
 import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
 import com.github.domwood.kiwi.kafka.resources.KafkaDataTypeHandler;
 import com.github.domwood.kiwi.kafka.resources.KafkaProducerResource;
-import com.github.domwood.kiwi.kafka.resources.KafkaResourcePair;
 import com.github.domwood.kiwi.kafka.resources.KafkaTopicConfigResource;
+import com.github.domwood.kiwi.kafka.task.KafkaTask;
+import com.github.domwood.kiwi.kafka.task.KiwiWorkload;
 import com.github.domwood.kiwi.kafka.task.admin.AllConsumerGroupDetails;
+import com.github.domwood.kiwi.kafka.task.admin.AllConsumerGroupLag;
 import com.github.domwood.kiwi.kafka.task.admin.BrokerInformation;
 import com.github.domwood.kiwi.kafka.task.admin.BrokerLogInformation;
 import com.github.domwood.kiwi.kafka.task.admin.ConsumerGroupDetailsWithOffset;
 import com.github.domwood.kiwi.kafka.task.admin.ConsumerGroupInformation;
 import com.github.domwood.kiwi.kafka.task.admin.ConsumerGroupListByTopic;
+import com.github.domwood.kiwi.kafka.task.admin.ConsumerGroupOffsets;
 import com.github.domwood.kiwi.kafka.task.admin.CreateTopic;
 import com.github.domwood.kiwi.kafka.task.admin.DeleteConsumerGroup;
 import com.github.domwood.kiwi.kafka.task.admin.DeleteTopic;
@@ -26,36 +38,63 @@ import com.github.domwood.kiwi.kafka.task.admin.UpdateTopicConfiguration;
 import com.github.domwood.kiwi.kafka.task.config.CreateTopicConfig;
 import com.github.domwood.kiwi.kafka.task.consumer.BasicConsumeMessages;
 import com.github.domwood.kiwi.kafka.task.consumer.ContinuousConsumeMessages;
+import com.github.domwood.kiwi.kafka.task.consumer.SharedConsumeMessages;
+import com.github.domwood.kiwi.kafka.task.producer.ProduceBulkMessages;
+import com.github.domwood.kiwi.kafka.task.producer.ProduceLoadGenerator;
 import com.github.domwood.kiwi.kafka.task.producer.ProduceSingleMessage;
+import com.github.domwood.kiwi.kafka.utils.ConsumerGroupOffsetsIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Iterator;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import static com.github.domwood.kiwi.kafka.resources.KafkaDataTypeHandlerProvider.getConsumerTypeHandler;
 import static com.github.domwood.kiwi.kafka.resources.KafkaDataTypeHandlerProvider.getTypeHandler;
 
 @Component
 public class KafkaTaskProvider {
 
     private final KafkaResourceProvider resourceProvider;
+    private final KafkaMetadataCache metadataCache;
+    private final ConsumerOffsetsIndexer offsetsIndexer;
+    private final Integer scanParallelism;
+    private final Integer bulkMaxInFlight;
+    private final Integer lagSnapshotConcurrency;
 
     @Autowired
-    public KafkaTaskProvider(KafkaResourceProvider resourceProvider) {
+    public KafkaTaskProvider(KafkaResourceProvider resourceProvider,
+                             KafkaMetadataCache metadataCache,
+                             ConsumerOffsetsIndexer offsetsIndexer,
+                             final @Value("${consumer.scan.parallelism:1}") Integer scanParallelism,
+                             final @Value("${producer.bulk.max.in.flight:1000}") Integer bulkMaxInFlight,
+                             final @Value("${admin.lag.snapshot.concurrency:16}") Integer lagSnapshotConcurrency) {
         this.resourceProvider = resourceProvider;
+        this.metadataCache = metadataCache;
+        this.offsetsIndexer = offsetsIndexer;
+        this.scanParallelism = scanParallelism;
+        this.bulkMaxInFlight = bulkMaxInFlight;
+        this.lagSnapshotConcurrency = lagSnapshotConcurrency;
     }
 
     @SuppressWarnings("unchecked")
     private <K, V> KafkaConsumerResource<K, V> consumer(AbstractConsumerRequest input) {
-        KafkaDataTypeHandler<K> keyHandler = (KafkaDataTypeHandler<K>) getTypeHandler(input.kafkaKeyDataType());
-        KafkaDataTypeHandler<V> valueHandler = (KafkaDataTypeHandler<V>) getTypeHandler(input.kafkaKeyDataType());
+        KafkaDataTypeHandler<K> keyHandler = (KafkaDataTypeHandler<K>) getConsumerTypeHandler(input.kafkaKeyDataType());
+        KafkaDataTypeHandler<V> valueHandler = (KafkaDataTypeHandler<V>) getConsumerTypeHandler(input.kafkaValueDataType());
         return this.resourceProvider.kafkaConsumerResource(input.clusterName(), keyHandler, valueHandler);
     }
 
-    @SuppressWarnings("unchecked")
     private <K, V> KafkaProducerResource<K, V> producer(ProducerRequest input) {
-        KafkaDataTypeHandler<K> keyHandler = (KafkaDataTypeHandler<K>) getTypeHandler(input.kafkaKeyDataType());
-        KafkaDataTypeHandler<V> valueHandler = (KafkaDataTypeHandler<V>) getTypeHandler(input.kafkaKeyDataType());
-        return this.resourceProvider.kafkaProducerResource(input.clusterName(), keyHandler, valueHandler);
+        return producer(input.clusterName(), input.kafkaKeyDataType(), input.kafkaValueDataType());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K, V> KafkaProducerResource<K, V> producer(Optional<String> clusterName, KafkaDataType keyType, KafkaDataType valueType) {
+        KafkaDataTypeHandler<K> keyHandler = (KafkaDataTypeHandler<K>) getTypeHandler(keyType);
+        KafkaDataTypeHandler<V> valueHandler = (KafkaDataTypeHandler<V>) getTypeHandler(valueType);
+        return this.resourceProvider.kafkaProducerResource(clusterName, keyHandler, valueHandler);
     }
 
     private KafkaAdminResource admin(Optional<String> clusterName) {
@@ -66,28 +105,36 @@ public class KafkaTaskProvider {
         return this.resourceProvider.kafkaTopicConfigResource();
     }
 
-    private KafkaResourcePair<KafkaAdminResource, KafkaConsumerResource<String, String>> adminAndConsumer(Optional<String> clusterName) {
-        return this.resourceProvider.kafkaAdminAndConsumer(clusterName);
-    }
-
     public <K, V> BasicConsumeMessages<K, V> basicConsumeMessages(ConsumerRequest input) {
-        return new BasicConsumeMessages<>(consumer(input), input);
+        return new BasicConsumeMessages<>(consumer(input), input, () -> consumer(input), scanParallelism);
     }
 
     public <K, V> ProduceSingleMessage<K, V> produceSingleMessage(ProducerRequest input) {
         return new ProduceSingleMessage<>(producer(input), input);
     }
 
-    public ListTopics listTopics(Optional<String> bootstrapServers) {
-        return new ListTopics(admin(bootstrapServers), null);
+    public <K, V> ProduceBulkMessages<K, V> produceBulkMessages(BulkProducerRequest input, Iterator<ProducerRequest> messages) {
+        return new ProduceBulkMessages<>(producer(input.clusterName(), input.kafkaKeyDataType(), input.kafkaValueDataType()),
+                input, messages, bulkMaxInFlight);
+    }
+
+    public ProduceLoadGenerator loadGenerator(LoadGeneratorRequest input) {
+        return new ProduceLoadGenerator(producer(input.clusterName(), KafkaDataType.STRING, KafkaDataType.STRING), input);
+    }
+
+    public KafkaTask<TopicList> listTopics(Optional<String> bootstrapServers) {
+        return () -> metadataCache.get(bootstrapServers, "listTopics",
+                () -> new ListTopics(admin(bootstrapServers), null).execute());
     }
 
-    public TopicInformation topicInfo(String topic, Optional<String> bootstrapServers) {
-        return new TopicInformation(admin(bootstrapServers), topic);
+    public KafkaTask<TopicInfo> topicInfo(String topic, Optional<String> bootstrapServers) {
+        return () -> metadataCache.get(bootstrapServers, "topicInfo:" + topic,
+                () -> new TopicInformation(admin(bootstrapServers), topic).execute());
     }
 
-    public BrokerInformation brokerInformation(Optional<String> bootstrapServers) {
-        return new BrokerInformation(admin(bootstrapServers), null);
+    public KafkaTask<BrokerInfoList> brokerInformation(Optional<String> bootstrapServers) {
+        return () -> metadataCache.get(bootstrapServers, "brokerInformation",
+                () -> new BrokerInformation(admin(bootstrapServers), null).execute());
     }
 
     public BrokerLogInformation brokerLogInformation(Integer input, Optional<String> bootstrapServers) {
@@ -98,11 +145,17 @@ public class KafkaTaskProvider {
         return new CreateTopicConfig(config(), null);
     }
 
-    public CreateTopic createTopic(CreateTopicRequest topicRequest, Optional<String> bootstrapServers) {
-        return new CreateTopic(admin(bootstrapServers), topicRequest);
+    public KafkaTask<Void> createTopic(CreateTopicRequest topicRequest, Optional<String> bootstrapServers) {
+        return invalidatingMetadata(new CreateTopic(admin(bootstrapServers), topicRequest), bootstrapServers);
     }
 
-    public ConsumerGroupInformation consumerGroups(Optional<String> bootstrapServers) {
+    public KafkaTask<ConsumerGroupList> consumerGroups(Optional<String> bootstrapServers) {
+        Optional<ConsumerGroupOffsetsIndex> index = offsetsIndexer.index(bootstrapServers);
+        if (index.isPresent()) {
+            return () -> CompletableFuture.completedFuture(ImmutableConsumerGroupList.builder()
+                    .groups(index.get().groups())
+                    .build());
+        }
         return new ConsumerGroupInformation(admin(bootstrapServers), null);
     }
 
@@ -110,28 +163,54 @@ public class KafkaTaskProvider {
         return new AllConsumerGroupDetails(admin(bootstrapServers), null);
     }
 
-    public ConsumerGroupListByTopic consumerGroupListByTopic(String topic, Optional<String> bootstrapServers) {
+    public KafkaTask<ConsumerGroupList> consumerGroupListByTopic(String topic, Optional<String> bootstrapServers) {
+        Optional<ConsumerGroupOffsetsIndex> index = offsetsIndexer.index(bootstrapServers);
+        if (index.isPresent()) {
+            return () -> CompletableFuture.completedFuture(ImmutableConsumerGroupList.builder()
+                    .groups(index.get().groupsForTopic(topic))
+                    .build());
+        }
         return new ConsumerGroupListByTopic(admin(bootstrapServers), topic);
     }
 
     public ConsumerGroupDetailsWithOffset consumerGroupOffsetInformation(String groupId, Optional<String> bootstrapServers) {
-        return new ConsumerGroupDetailsWithOffset(adminAndConsumer(bootstrapServers), groupId);
+        return new ConsumerGroupDetailsWithOffset(admin(bootstrapServers), groupId);
+    }
+
+    public ConsumerGroupOffsets consumerGroupOffsets(String groupId, Optional<String> bootstrapServers) {
+        return new ConsumerGroupOffsets(admin(bootstrapServers), groupId);
+    }
+
+    public AllConsumerGroupLag consumerGroupLag(ConsumerGroupLagRequest request, Optional<String> bootstrapServers) {
+        return new AllConsumerGroupLag(admin(bootstrapServers), request, lagSnapshotConcurrency, offsetsIndexer.index(bootstrapServers));
     }
 
     public <K, V> ContinuousConsumeMessages<K, V> continuousConsumeMessages(AbstractConsumerRequest request) {
         return new ContinuousConsumeMessages<>(consumer(request), request);
     }
 
-    public DeleteTopic deleteTopic(String topic, Optional<String> bootstrapServers) {
-        return new DeleteTopic(admin(bootstrapServers), topic);
+    public <K, V> ContinuousConsumeMessages<K, V> downloadConsumeMessages(AbstractConsumerRequest request) {
+        return new ContinuousConsumeMessages<>(consumer(request), request, KiwiWorkload.DOWNLOAD);
+    }
+
+    public <K, V> SharedConsumeMessages<K, V> sharedConsumeMessages(AbstractConsumerRequest request, int queueSize) {
+        return new SharedConsumeMessages<>(consumer(request), request, queueSize);
+    }
+
+    public KafkaTask<Void> deleteTopic(String topic, Optional<String> bootstrapServers) {
+        return invalidatingMetadata(new DeleteTopic(admin(bootstrapServers), topic), bootstrapServers);
     }
 
     public DeleteConsumerGroup deleteConsumerGroup(String groupId, Optional<String> bootStrapServers) {
         return new DeleteConsumerGroup(admin(bootStrapServers), groupId);
     }
 
-    public UpdateTopicConfiguration updateTopicConfiguration(UpdateTopicConfig topicConfig, Optional<String> bootStrapServers) {
-        return new UpdateTopicConfiguration(admin(bootStrapServers), topicConfig);
+    public KafkaTask<Void> updateTopicConfiguration(UpdateTopicConfig topicConfig, Optional<String> bootStrapServers) {
+        return invalidatingMetadata(new UpdateTopicConfiguration(admin(bootStrapServers), topicConfig), bootStrapServers);
+    }
+
+    private <O> KafkaTask<O> invalidatingMetadata(KafkaTask<O> task, Optional<String> clusterName) {
+        return () -> task.execute().whenComplete((result, e) -> metadataCache.invalidate(clusterName));
     }
 
 }
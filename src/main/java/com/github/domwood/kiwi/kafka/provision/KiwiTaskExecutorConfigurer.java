@@ -0,0 +1,33 @@
+package com.github.domwood.kiwi.kafka.provision;
+
+import com.github.domwood.kiwi.kafka.task.KiwiTaskExecutor;
+import com.github.domwood.kiwi.kafka.task.KiwiWorkload;
+import com.google.common.collect.ImmutableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the configured limits of each workload's workers to the {@link KiwiTaskExecutor} on startup
+ */
+@Component
+public class KiwiTaskExecutorConfigurer {
+
+    @Autowired
+    public KiwiTaskExecutorConfigurer(final @Value("${executor.stream.max.threads:200}") Integer streamMaxThreads,
+                                      final @Value("${executor.stream.queue.size:0}") Integer streamQueueSize,
+                                      final @Value("${executor.scan.max.threads:32}") Integer scanMaxThreads,
+                                      final @Value("${executor.scan.queue.size:64}") Integer scanQueueSize,
+                                      final @Value("${executor.download.max.threads:8}") Integer downloadMaxThreads,
+                                      final @Value("${executor.download.queue.size:8}") Integer downloadQueueSize,
+                                      final @Value("${executor.admin.max.threads:16}") Integer adminMaxThreads,
+                                      final @Value("${executor.admin.queue.size:1000}") Integer adminQueueSize,
+                                      final @Value("${executor.virtual.threads.enabled:false}") Boolean virtualThreads) {
+        KiwiTaskExecutor.getInstance().configure(ImmutableMap.of(
+                KiwiWorkload.STREAM, new KiwiTaskExecutor.Limits(streamMaxThreads, streamQueueSize),
+                KiwiWorkload.SCAN, new KiwiTaskExecutor.Limits(scanMaxThreads, scanQueueSize),
+                KiwiWorkload.DOWNLOAD, new KiwiTaskExecutor.Limits(downloadMaxThreads, downloadQueueSize),
+                KiwiWorkload.ADMIN, new KiwiTaskExecutor.Limits(adminMaxThreads, adminQueueSize)
+        ), virtualThreads);
+    }
+}
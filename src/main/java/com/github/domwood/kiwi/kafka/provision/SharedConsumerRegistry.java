@@ -0,0 +1,98 @@
+package com.github.domwood.kiwi.kafka.provision;
+
+import com.github.domwood.kiwi.data.input.AbstractConsumerRequest;
+import com.github.domwood.kiwi.data.input.ConsumerStartPosition;
+import com.github.domwood.kiwi.data.output.ConsumerResponse;
+import com.github.domwood.kiwi.kafka.task.KafkaContinuousTask;
+import com.github.domwood.kiwi.kafka.task.consumer.SharedConsumeMessages;
+import com.github.domwood.kiwi.utilities.FutureUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Tracks the shared consumers live tailing sessions attach to, so sessions tailing the same topics of the same
+ * cluster share a single underlying consumer.
+ */
+@Component
+public class SharedConsumerRegistry {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final KafkaTaskProvider taskProvider;
+    private final boolean enabled;
+    private final int queueSize;
+    private final Map<String, SharedConsumeMessages<?, ?>> sharedConsumers;
+
+    @Autowired
+    public SharedConsumerRegistry(final KafkaTaskProvider taskProvider,
+                                  final @Value("${consumer.shared.enabled:true}") Boolean enabled,
+                                  final @Value("${consumer.shared.queue.size:16}") Integer queueSize) {
+        this.taskProvider = taskProvider;
+        this.enabled = enabled;
+        this.queueSize = queueSize;
+        this.sharedConsumers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Only live tails from the end of every partition are shared, anything reading history is specific to its session
+     */
+    public boolean isShareable(final AbstractConsumerRequest request) {
+        return enabled && request.consumerStartPosition()
+                .filter(ConsumerStartPosition::tail)
+                .filter(position -> position.tailRecords() <= 0)
+                .filter(position -> position.partitions().isEmpty())
+                .filter(position -> !position.endTimestamp().isPresent())
+                .isPresent();
+    }
+
+    public synchronized KafkaContinuousTask<AbstractConsumerRequest, ConsumerResponse> subscribe(final AbstractConsumerRequest request,
+                                                                                                final Consumer<ConsumerResponse> consumer) {
+        final String key = sharingKey(request);
+        Optional<KafkaContinuousTask<AbstractConsumerRequest, ConsumerResponse>> subscription = Optional.empty();
+        while (!subscription.isPresent()) {
+            SharedConsumeMessages<?, ?> shared = sharedConsumers.get(key);
+            if (shared == null || shared.isClosed()) {
+                shared = start(key, request);
+            }
+            subscription = shared.attach(request, consumer);
+        }
+        return subscription.get();
+    }
+
+    public int sharedConsumerCount() {
+        return sharedConsumers.size();
+    }
+
+    private SharedConsumeMessages<?, ?> start(final String key, final AbstractConsumerRequest request) {
+        logger.info("Starting shared consumer for {}", key);
+        final SharedConsumeMessages<?, ?> shared = taskProvider.sharedConsumeMessages(request, queueSize);
+        sharedConsumers.put(key, shared);
+        CompletableFuture<Void> execution = shared.execute();
+        execution.whenComplete((voidValue, e) -> {
+            sharedConsumers.remove(key, shared);
+            if (e != null) logger.error("Shared consumer for " + key + " closed with error", e);
+            else logger.info("Shared consumer closed normally for {}", key);
+        });
+        FutureUtils.throwIfRejected(execution);
+        return shared;
+    }
+
+    private String sharingKey(final AbstractConsumerRequest request) {
+        return String.join("|",
+                request.clusterName().orElse(""),
+                request.topics().stream().sorted().collect(joining(",")),
+                request.kafkaKeyDataType().name(),
+                request.kafkaValueDataType().name());
+    }
+}
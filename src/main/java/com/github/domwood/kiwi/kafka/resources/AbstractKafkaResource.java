@@ -25,6 +25,12 @@ public abstract class AbstractKafkaResource<CLIENT> {
         }
     }
 
+    /**
+     * Called with the error of a task that failed whilst using this resource, before the resource is discarded
+     */
+    public void reportFailure(Throwable failure) {
+    }
+
     protected abstract CLIENT createClient(ImmutableMap<Object, Object> props);
 
 
@@ -0,0 +1,160 @@
+package com.github.domwood.kiwi.kafka.resources;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Holds one long lived admin client per cluster, shared by every admin task against that cluster rather than each
+ * task connecting its own. Clients are created on first use and counted out and back in by the tasks using them.
+ * A client found to have failed, either by a task or by the periodic health check, is retired: the next task
+ * creates a replacement, and the retired client closes once the last task using it has released it.
+ */
+public class KafkaAdminClientRegistry {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+    private static final long HEALTH_CHECK_TIMEOUT_MS = 10_000L;
+
+    private final Map<String, SharedAdminClient> current;
+    private final Map<AdminClient, SharedAdminClient> leased;
+    private final ScheduledExecutorService healthChecker;
+    private boolean shutdown;
+
+    public KafkaAdminClientRegistry(final long healthCheckIntervalMs) {
+        this.current = new HashMap<>();
+        this.leased = new IdentityHashMap<>();
+        this.shutdown = false;
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("kiwi-admin-health-%d")
+                .setDaemon(true)
+                .build());
+
+        long interval = Math.max(1L, healthCheckIntervalMs);
+        this.healthChecker.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the shared client for the cluster, creating it with the factory if there is none, counted as in use
+     * until passed back to {@link #release(AdminClient)}
+     */
+    public synchronized AdminClient acquire(final String clusterKey, final Supplier<AdminClient> factory) {
+        if (shutdown) {
+            throw new IllegalStateException("Admin client registry has been shut down");
+        }
+        SharedAdminClient sharedClient = current.get(clusterKey);
+        if (sharedClient == null) {
+            logger.info("Creating shared admin client for cluster {}", clusterKey);
+            sharedClient = new SharedAdminClient(clusterKey, factory.get());
+            current.put(clusterKey, sharedClient);
+        }
+        sharedClient.references++;
+        leased.put(sharedClient.client, sharedClient);
+        return sharedClient.client;
+    }
+
+    public synchronized void release(final AdminClient client) {
+        SharedAdminClient sharedClient = leased.get(client);
+        if (sharedClient == null) {
+            return;
+        }
+        if (--sharedClient.references == 0) {
+            leased.remove(client);
+            if (sharedClient.retired) {
+                close(sharedClient);
+            }
+        }
+    }
+
+    /**
+     * Retires the client if it is still the cluster's shared client, so later tasks are handed a new connection
+     */
+    public synchronized void invalidate(final AdminClient client) {
+        Optional<SharedAdminClient> sharedClient = current.values().stream()
+                .filter(shared -> shared.client == client)
+                .findFirst();
+        sharedClient.ifPresent(this::retire);
+    }
+
+    public synchronized int referenceCount(final String clusterKey) {
+        return Optional.ofNullable(current.get(clusterKey)).map(shared -> shared.references).orElse(0);
+    }
+
+    public synchronized boolean hasClient(final String clusterKey) {
+        return current.containsKey(clusterKey);
+    }
+
+    public synchronized void shutdown() {
+        if (!shutdown) {
+            shutdown = true;
+            logger.info("Closing shared admin clients");
+            healthChecker.shutdownNow();
+            current.values().forEach(this::close);
+            leased.values().stream()
+                    .filter(shared -> shared.retired)
+                    .distinct()
+                    .forEach(this::close);
+            current.clear();
+            leased.clear();
+        }
+    }
+
+    void checkHealth() {
+        Map<String, SharedAdminClient> toCheck;
+        synchronized (this) {
+            toCheck = new HashMap<>(current);
+        }
+        toCheck.forEach((clusterKey, sharedClient) -> {
+            try {
+                sharedClient.client.describeCluster().clusterId().get(HEALTH_CHECK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.warn("Shared admin client for cluster {} failed its health check, it will be replaced", clusterKey, e);
+                invalidate(sharedClient.client);
+            }
+        });
+    }
+
+    private void retire(final SharedAdminClient sharedClient) {
+        logger.info("Retiring shared admin client for cluster {}", sharedClient.clusterKey);
+        sharedClient.retired = true;
+        current.remove(sharedClient.clusterKey);
+        if (sharedClient.references == 0) {
+            close(sharedClient);
+        }
+    }
+
+    private void close(final SharedAdminClient sharedClient) {
+        try {
+            sharedClient.client.close(CLOSE_TIMEOUT);
+        } catch (Exception e) {
+            logger.warn("Failed to cleanly close shared admin client for cluster {}", sharedClient.clusterKey, e);
+        }
+    }
+
+    private static class SharedAdminClient {
+        private final String clusterKey;
+        private final AdminClient client;
+        private int references;
+        private boolean retired;
+
+        private SharedAdminClient(final String clusterKey, final AdminClient client) {
+            this.clusterKey = clusterKey;
+            this.client = client;
+            this.references = 0;
+            this.retired = false;
+        }
+    }
+}
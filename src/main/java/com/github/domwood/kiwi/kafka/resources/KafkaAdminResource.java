@@ -16,8 +16,11 @@ import org.apache.kafka.clients.admin.DescribeLogDirsResult;
 import org.apache.kafka.clients.admin.DescribeTopicsResult;
 import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
 import org.apache.kafka.clients.admin.ListConsumerGroupsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
 import org.apache.kafka.clients.admin.ListTopicsResult;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.ConfigResource;
 
 import java.time.Duration;
@@ -84,6 +87,10 @@ public class KafkaAdminResource extends AbstractKafkaResource<AdminClient> {
         return this.getClient().listConsumerGroupOffsets(groupId);
     }
 
+    public ListOffsetsResult listOffsets(Map<TopicPartition, OffsetSpec> partitions){
+        return this.getClient().listOffsets(partitions);
+    }
+
     public DeleteTopicsResult deleteTopics(List<String> topics) {
         return this.getClient().deleteTopics(topics);
     }
@@ -0,0 +1,136 @@
+package com.github.domwood.kiwi.kafka.resources;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the consumers of finished tasks connected, so later tasks against the same cluster lease a ready client
+ * rather than paying for connection setup and metadata bootstrap. Consumers are pooled per cluster and deserializer
+ * pair, at most maxSize per pool key, and are closed once idle for longer than the idle timeout.
+ */
+public class KafkaConsumerPool {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final long MAX_EVICTION_INTERVAL_MS = 30_000L;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final Map<String, Deque<IdleConsumer>> idleConsumers;
+    private final ScheduledExecutorService evictor;
+    private final AtomicBoolean shutdown;
+
+    public KafkaConsumerPool(final int maxSize, final long idleTimeoutMs) {
+        this.maxSize = maxSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.idleConsumers = new ConcurrentHashMap<>();
+        this.shutdown = new AtomicBoolean(false);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("kiwi-consumer-pool-%d")
+                .setDaemon(true)
+                .build());
+
+        long evictionInterval = Math.max(1L, Math.min(idleTimeoutMs, MAX_EVICTION_INTERVAL_MS));
+        this.evictor.scheduleAtFixedRate(this::evictIdle, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public static String poolKey(final Optional<String> clusterName,
+                                 final KafkaDataTypeHandler<?> keyHandler,
+                                 final KafkaDataTypeHandler<?> valueHandler) {
+        return String.join("|", clusterName.orElse(""), keyHandler.getKafkaDeserializer(), valueHandler.getKafkaDeserializer());
+    }
+
+    /**
+     * @return the most recently returned consumer for the pool key, and the properties it was created with
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Optional<Pair<KafkaConsumer<K, V>, Properties>> lease(final String poolKey) {
+        Deque<IdleConsumer> consumers = idleConsumers.get(poolKey);
+        IdleConsumer idleConsumer = consumers == null ? null : consumers.pollFirst();
+        if (idleConsumer == null) {
+            return Optional.empty();
+        }
+        logger.debug("Leased pooled consumer for {}", poolKey);
+        return Optional.of(Pair.of((KafkaConsumer<K, V>) idleConsumer.consumer, idleConsumer.properties));
+    }
+
+    /**
+     * Returns an unsubscribed consumer to the pool, closing it instead if the pool for its key is full
+     */
+    public void release(final String poolKey, final KafkaConsumer<?, ?> consumer, final Properties properties) {
+        Deque<IdleConsumer> consumers = idleConsumers.computeIfAbsent(poolKey, key -> new ConcurrentLinkedDeque<>());
+        if (shutdown.get() || consumers.size() >= maxSize) {
+            close(consumer);
+        } else {
+            consumers.offerFirst(new IdleConsumer(consumer, properties, System.currentTimeMillis()));
+            logger.debug("Returned consumer to pool for {}, {} idle", poolKey, consumers.size());
+        }
+    }
+
+    public int idleCount(final String poolKey) {
+        return Optional.ofNullable(idleConsumers.get(poolKey)).map(Deque::size).orElse(0);
+    }
+
+    public void shutdown() {
+        if (!shutdown.getAndSet(true)) {
+            logger.info("Closing pooled consumers");
+            evictor.shutdownNow();
+            idleConsumers.values().forEach(consumers -> {
+                IdleConsumer idleConsumer;
+                while ((idleConsumer = consumers.pollFirst()) != null) {
+                    close(idleConsumer.consumer);
+                }
+            });
+        }
+    }
+
+    void evictIdle() {
+        long expiredBefore = System.currentTimeMillis() - idleTimeoutMs;
+        idleConsumers.forEach((poolKey, consumers) -> {
+            IdleConsumer oldest;
+            while ((oldest = consumers.pollLast()) != null) {
+                if (oldest.idleSince > expiredBefore) {
+                    consumers.offerLast(oldest);
+                    break;
+                }
+                logger.debug("Evicting idle consumer for {}", poolKey);
+                close(oldest.consumer);
+            }
+        });
+    }
+
+    static void close(final KafkaConsumer<?, ?> consumer) {
+        try {
+            consumer.close(CLOSE_TIMEOUT);
+        } catch (Exception e) {
+            LoggerFactory.getLogger(KafkaConsumerPool.class).warn("Failed to cleanly close pooled consumer", e);
+        }
+    }
+
+    private static class IdleConsumer {
+        private final KafkaConsumer<?, ?> consumer;
+        private final Properties properties;
+        private final long idleSince;
+
+        private IdleConsumer(final KafkaConsumer<?, ?> consumer, final Properties properties, final long idleSince) {
+            this.consumer = consumer;
+            this.properties = properties;
+            this.idleSince = idleSince;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.github.domwood.kiwi.exceptions.KafkaResourceClientCloseException;
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.kafka.clients.consumer.*;
+import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,7 +17,9 @@ import static java.util.stream.Collectors.toMap;
 public class KafkaConsumerResource<K, V> extends AbstractKafkaResource<KafkaConsumer<K, V>> {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
-    private Properties properties;
+    private static final String GROUPLESS = "groupless";
+    protected Properties properties;
+    private volatile boolean wokenUp;
     private final KafkaDataTypeHandler<K> keyConverter;
     private final KafkaDataTypeHandler<V> valueConverter;
 
@@ -37,11 +40,17 @@ public class KafkaConsumerResource<K, V> extends AbstractKafkaResource<KafkaCons
         properties.putAll(props);
         properties.remove("groupIdPrefix");
         properties.remove("groupIdSuffix");
+        properties.remove(GROUPLESS);
 
         properties.setProperty(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, keyConverter.getKafkaDeserializer());
         properties.setProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, valueConverter.getKafkaDeserializer());
-        properties.setProperty(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         properties.setProperty(ConsumerConfig.CLIENT_ID_CONFIG, groupId);
+        if (isGroupless(props)) {
+            //A consumer without a group can only be assigned partitions, and has nowhere to commit offsets to
+            properties.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        } else {
+            properties.setProperty(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        }
         return new KafkaConsumer<>(properties);
     }
 
@@ -62,6 +71,17 @@ public class KafkaConsumerResource<K, V> extends AbstractKafkaResource<KafkaCons
         }
     }
 
+    /**
+     * @return true if the consumer has no group, so partitions must be assigned rather than subscribed to
+     */
+    public boolean isGroupless() {
+        return isGroupless(this.unmodifiedProperties);
+    }
+
+    private static boolean isGroupless(Map<Object, Object> props) {
+        return Boolean.parseBoolean(props.getOrDefault(GROUPLESS, "false").toString());
+    }
+
     public boolean isCommittingConsumer() {
         return Optional.ofNullable(this.properties.get(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG))
                 .orElse("true")
@@ -80,6 +100,33 @@ public class KafkaConsumerResource<K, V> extends AbstractKafkaResource<KafkaCons
         this.getClient().assign(topicPartitions);
     }
 
+    public void pause(Collection<TopicPartition> topicPartitions) {
+        this.getClient().pause(topicPartitions);
+    }
+
+    public void resume(Collection<TopicPartition> topicPartitions) {
+        this.getClient().resume(topicPartitions);
+    }
+
+    public Set<TopicPartition> paused() {
+        return this.getClient().paused();
+    }
+
+    /**
+     * Safe to call from any thread, aborts a blocking poll with a {@link org.apache.kafka.common.errors.WakeupException}
+     */
+    public void wakeup() {
+        this.wokenUp = true;
+        this.getClient().wakeup();
+    }
+
+    /**
+     * @return true if a wakeup has been requested on the client, which may still be pending on its next blocking call
+     */
+    protected boolean isWokenUp() {
+        return this.wokenUp;
+    }
+
     public ConsumerRecords<K, V> poll(Duration timeout) {
         return this.getClient().poll(timeout);
     }
@@ -96,6 +143,18 @@ public class KafkaConsumerResource<K, V> extends AbstractKafkaResource<KafkaCons
         return this.getClient().endOffsets(topicPartitions);
     }
 
+    public Map<TopicPartition, Long> beginningOffsets(Set<TopicPartition> topicPartitions) {
+        return this.getClient().beginningOffsets(topicPartitions);
+    }
+
+    public Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes(Map<TopicPartition, Long> timestampsToSearch) {
+        return this.getClient().offsetsForTimes(timestampsToSearch);
+    }
+
+    public List<PartitionInfo> partitionsFor(String topic) {
+        return this.getClient().partitionsFor(topic);
+    }
+
     public Map<TopicPartition, Long> currentPosition(Set<TopicPartition> topicPartitions) {
         return topicPartitions.stream()
                 .map(tp -> Pair.of(tp, getClient().position(tp)))
@@ -116,7 +175,7 @@ public class KafkaConsumerResource<K, V> extends AbstractKafkaResource<KafkaCons
     }
 
     public String getGroupId() {
-        return this.properties.getProperty(ConsumerConfig.GROUP_ID_CONFIG);
+        return this.properties.getProperty(ConsumerConfig.GROUP_ID_CONFIG, this.properties.getProperty(ConsumerConfig.CLIENT_ID_CONFIG));
     }
 
     public String convertKafkaKey(K key) {
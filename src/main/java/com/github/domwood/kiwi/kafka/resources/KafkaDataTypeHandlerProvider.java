@@ -2,6 +2,7 @@ package com.github.domwood.kiwi.kafka.resources;
 
 import com.github.domwood.kiwi.data.input.KafkaDataType;
 
+import java.nio.charset.StandardCharsets;
 import java.util.function.Function;
 
 public class KafkaDataTypeHandlerProvider {
@@ -16,6 +17,27 @@ public class KafkaDataTypeHandlerProvider {
         }
     }
 
+    /**
+     * Consumers read raw bytes and only decode records which are going to be returned,
+     * allowing filters to be applied to the undecoded record.
+     */
+    public static KafkaDataTypeHandler<?> getConsumerTypeHandler(KafkaDataType kafkaDataType){
+        switch (kafkaDataType){
+            case STRING:
+            default:
+                return KafkaDataTypeHandlerProvider.rawStringTypeHandler();
+        }
+    }
+
+    private static KafkaDataTypeHandler<byte[]> rawStringTypeHandler(){
+        return new KafkaDataTypeHandler<>(
+                bytes -> bytes == null ? null : new String(bytes, StandardCharsets.UTF_8),
+                string -> string == null ? null : string.getBytes(StandardCharsets.UTF_8),
+                "org.apache.kafka.common.serialization.ByteArraySerializer",
+                "org.apache.kafka.common.serialization.ByteArrayDeserializer"
+        );
+    }
+
     private static KafkaDataTypeHandler<String> stringTypeHandler(){
         return new KafkaDataTypeHandler<>(
                 Function.identity(),
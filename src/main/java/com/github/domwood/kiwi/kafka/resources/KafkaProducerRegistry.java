@@ -0,0 +1,85 @@
+package com.github.domwood.kiwi.kafka.resources;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds one long lived producer per cluster and serializer pair. A KafkaProducer is thread safe, so every produce
+ * request against the same cluster sends through the one producer, batching with concurrent requests rather than
+ * each request connecting, sending and closing a producer of its own. A producer failing with an error it can't recover
+ * from is evicted and closed, so the next request creates a replacement. Producers close when the registry shuts down.
+ */
+public class KafkaProducerRegistry {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(20);
+
+    private final Map<String, KafkaProducer<?, ?>> producers;
+    private volatile boolean shutdown;
+
+    public KafkaProducerRegistry() {
+        this.producers = new ConcurrentHashMap<>();
+        this.shutdown = false;
+    }
+
+    public static String producerKey(final Optional<String> clusterName,
+                                     final KafkaDataTypeHandler<?> keyHandler,
+                                     final KafkaDataTypeHandler<?> valueHandler) {
+        return String.join("|", clusterName.orElse(""), keyHandler.getKafkaSerializer(), valueHandler.getKafkaSerializer());
+    }
+
+    /**
+     * @return the shared producer for the key, creating it with the factory if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> KafkaProducer<K, V> producer(final String producerKey, final Supplier<KafkaProducer<K, V>> factory) {
+        if (shutdown) {
+            throw new IllegalStateException("Producer registry has been shut down");
+        }
+        return (KafkaProducer<K, V>) producers.computeIfAbsent(producerKey, key -> {
+            logger.info("Creating shared producer for {}", key);
+            return factory.get();
+        });
+    }
+
+    /**
+     * Removes and closes the producer if it is still the shared producer for the key, without waiting on its
+     * outstanding sends, which a producer in a fatal state can't complete
+     */
+    public void evict(final String producerKey, final KafkaProducer<?, ?> producer) {
+        if (producers.remove(producerKey, producer)) {
+            logger.warn("Evicting failed shared producer for {}, it will be replaced", producerKey);
+            try {
+                producer.close(Duration.ZERO);
+            } catch (Exception e) {
+                logger.warn("Failed to cleanly close shared producer for {}", producerKey, e);
+            }
+        }
+    }
+
+    public int producerCount() {
+        return producers.size();
+    }
+
+    public void shutdown() {
+        if (!shutdown) {
+            shutdown = true;
+            logger.info("Closing shared producers");
+            producers.forEach((producerKey, producer) -> {
+                try {
+                    producer.close(CLOSE_TIMEOUT);
+                } catch (Exception e) {
+                    logger.warn("Failed to cleanly close shared producer for {}", producerKey, e);
+                }
+            });
+            producers.clear();
+        }
+    }
+}
@@ -11,7 +11,7 @@ import java.time.Duration;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 
-import static com.github.domwood.kiwi.utilities.FutureUtils.toCompletable;
+import static com.github.domwood.kiwi.utilities.FutureUtils.completeOnAdminWorker;
 
 public class KafkaProducerResource<K, V> extends AbstractKafkaResource<KafkaProducer<K, V>> {
 
@@ -41,8 +41,33 @@ public class KafkaProducerResource<K, V> extends AbstractKafkaResource<KafkaProd
         }
     }
 
+    /**
+     * Sends the record, completing with its result on the admin workers rather than the producer's I/O thread, so
+     * that chained stages, such as discarding this resource, never run on the thread closing the producer would join
+     */
     public CompletableFuture<RecordMetadata> send(ProducerRecord<K, V> record) {
-        return toCompletable(this.getClient().send(record));
+        KafkaProducer<K, V> producer = this.getClient();
+        CompletableFuture<RecordMetadata> result = new CompletableFuture<>();
+        try {
+            producer.send(record, (metadata, exception) -> completeOnAdminWorker(() -> {
+                if (exception != null) {
+                    onSendFailure(producer, exception);
+                    result.completeExceptionally(exception);
+                } else {
+                    result.complete(metadata);
+                }
+            }));
+        } catch (RuntimeException e) {
+            onSendFailure(producer, e);
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Called with the error of each send that fails, whether thrown by the producer or passed to its callback
+     */
+    protected void onSendFailure(KafkaProducer<K, V> producer, Throwable failure) {
     }
 
     public K convertKafkaKey(String key) {
@@ -0,0 +1,65 @@
+package com.github.domwood.kiwi.kafka.resources;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * A consumer resource that leases its client from a {@link KafkaConsumerPool}, and on discard unsubscribes the client
+ * and returns it to the pool instead of closing it.
+ */
+public class PooledKafkaConsumerResource<K, V> extends KafkaConsumerResource<K, V> {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final KafkaConsumerPool pool;
+    private final String poolKey;
+
+    public PooledKafkaConsumerResource(Properties config,
+                                       KafkaDataTypeHandler<K> keyConverter,
+                                       KafkaDataTypeHandler<V> valueConverter,
+                                       KafkaConsumerPool pool,
+                                       String poolKey) {
+        super(config, keyConverter, valueConverter);
+        this.pool = pool;
+        this.poolKey = poolKey;
+    }
+
+    @Override
+    protected KafkaConsumer<K, V> createClient(ImmutableMap<Object, Object> props) {
+        Optional<Pair<KafkaConsumer<K, V>, Properties>> leased = pool.lease(poolKey);
+        if (leased.isPresent()) {
+            this.properties = leased.get().getRight();
+            logger.info("Leased pooled consumer for groupId: {}", this.getGroupId());
+            return leased.get().getLeft();
+        }
+        return super.createClient(props);
+    }
+
+    @Override
+    protected void closeClient() {
+        if (this.client == null) {
+            return;
+        }
+        KafkaConsumer<K, V> consumer = this.client;
+        this.client = null;
+
+        if (this.isWokenUp()) {
+            logger.info("Closing consumer with a possibly pending wakeup rather than pooling it");
+            KafkaConsumerPool.close(consumer);
+            return;
+        }
+        try {
+            consumer.unsubscribe();
+        } catch (Exception e) {
+            logger.warn("Failed to unsubscribe consumer, closing rather than pooling it", e);
+            KafkaConsumerPool.close(consumer);
+            return;
+        }
+        pool.release(poolKey, consumer, this.properties);
+    }
+}
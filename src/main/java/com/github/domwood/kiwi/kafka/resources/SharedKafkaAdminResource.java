@@ -0,0 +1,55 @@
+package com.github.domwood.kiwi.kafka.resources;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.common.errors.AuthenticationException;
+import org.apache.kafka.common.errors.DisconnectException;
+import org.apache.kafka.common.errors.TimeoutException;
+
+import java.util.Properties;
+
+/**
+ * An admin resource using its cluster's shared client from the {@link KafkaAdminClientRegistry}. Discarding it releases
+ * the client back to the registry rather than closing it, and a task failing on a lost or rejected connection retires
+ * the shared client so the next task reconnects.
+ */
+public class SharedKafkaAdminResource extends KafkaAdminResource {
+
+    private final KafkaAdminClientRegistry registry;
+    private final String clusterKey;
+
+    public SharedKafkaAdminResource(Properties props, KafkaAdminClientRegistry registry, String clusterKey) {
+        super(props);
+        this.registry = registry;
+        this.clusterKey = clusterKey;
+    }
+
+    @Override
+    protected AdminClient createClient(ImmutableMap<Object, Object> props) {
+        return registry.acquire(clusterKey, () -> super.createClient(props));
+    }
+
+    @Override
+    protected void closeClient() {
+        if (this.client != null) {
+            AdminClient sharedClient = this.client;
+            this.client = null;
+            registry.release(sharedClient);
+        }
+    }
+
+    @Override
+    public void reportFailure(Throwable failure) {
+        if (this.client != null && isConnectionFailure(failure)) {
+            registry.invalidate(this.client);
+        }
+    }
+
+    private static boolean isConnectionFailure(Throwable failure) {
+        return ExceptionUtils.getThrowableList(failure).stream()
+                .anyMatch(cause -> cause instanceof TimeoutException ||
+                        cause instanceof DisconnectException ||
+                        cause instanceof AuthenticationException);
+    }
+}
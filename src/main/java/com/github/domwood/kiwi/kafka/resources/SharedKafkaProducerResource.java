@@ -0,0 +1,71 @@
+package com.github.domwood.kiwi.kafka.resources;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.common.errors.AuthenticationException;
+import org.apache.kafka.common.errors.AuthorizationException;
+import org.apache.kafka.common.errors.OutOfOrderSequenceException;
+import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.errors.UnsupportedVersionException;
+
+import java.util.Properties;
+
+/**
+ * A producer resource sending through the shared producer for its cluster and serializers from the
+ * {@link KafkaProducerRegistry}. Discarding it leaves the shared producer open for the next request, but a send
+ * failing with an error the producer can't recover from evicts it, so later sends use a new producer.
+ */
+public class SharedKafkaProducerResource<K, V> extends KafkaProducerResource<K, V> {
+
+    private final KafkaProducerRegistry registry;
+    private final String producerKey;
+
+    public SharedKafkaProducerResource(Properties props,
+                                       KafkaDataTypeHandler<K> keyConverter,
+                                       KafkaDataTypeHandler<V> valueConverter,
+                                       KafkaProducerRegistry registry,
+                                       String producerKey) {
+        super(props, keyConverter, valueConverter);
+        this.registry = registry;
+        this.producerKey = producerKey;
+    }
+
+    @Override
+    protected KafkaProducer<K, V> createClient(ImmutableMap<Object, Object> props) {
+        return registry.producer(producerKey, () -> super.createClient(props));
+    }
+
+    /**
+     * Looked up on every send, so a producer evicted part way through a request is replaced for the rest of it
+     */
+    @Override
+    protected KafkaProducer<K, V> getClient() {
+        return createClient(this.unmodifiedProperties);
+    }
+
+    @Override
+    protected void closeClient() {
+        this.client = null;
+    }
+
+    @Override
+    protected void onSendFailure(KafkaProducer<K, V> producer, Throwable failure) {
+        if (isFatal(failure)) {
+            registry.evict(producerKey, producer);
+        }
+    }
+
+    /**
+     * The errors after which a producer must be closed, and any producer closed underneath a send
+     */
+    private static boolean isFatal(Throwable failure) {
+        return ExceptionUtils.getThrowableList(failure).stream()
+                .anyMatch(cause -> cause instanceof ProducerFencedException ||
+                        cause instanceof OutOfOrderSequenceException ||
+                        cause instanceof AuthenticationException ||
+                        cause instanceof AuthorizationException ||
+                        cause instanceof UnsupportedVersionException ||
+                        cause instanceof IllegalStateException);
+    }
+}
@@ -30,6 +30,7 @@ public abstract class AbstractKafkaTask<I, O, R extends AbstractKafkaResource> i
     private void handleCompletion(O outcome, Throwable e){
         if(e != null){
             logger.error("Task completed with failure ", e);
+            this.resource.reportFailure(e);
         }
         else{
             logger.info("Task completed without error");
@@ -22,8 +22,13 @@ public abstract class FuturisingAbstractKafkaTask<I, O, R extends AbstractKafkaR
 
     @Override
     protected CompletableFuture<O> delegateExecute() {
-        return FutureUtils.supplyAsync(this::delegateExecuteSync);
+        return FutureUtils.supplyAsync(workload(), this::delegateExecuteSync);
     }
 
     protected abstract O delegateExecuteSync();
+
+    /**
+     * @return the class of work the task is run as, determining which workers run it
+     */
+    protected abstract KiwiWorkload workload();
 }
@@ -15,4 +15,7 @@ public interface KafkaContinuousTask<I, O> extends Closeable {
 
     public boolean isClosed();
 
+    @Override
+    public void close();
+
 }
@@ -2,8 +2,10 @@ package com.github.domwood.kiwi.kafka.task;
 
 import com.github.domwood.kiwi.data.input.ConsumerStartPosition;
 import com.github.domwood.kiwi.exceptions.ConsumerAssignmentTimeoutException;
+import com.github.domwood.kiwi.exceptions.KiwiConsumerSubscriptionException;
 import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
 import com.github.domwood.kiwi.kafka.utils.KafkaConsumerTracker;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
 import org.apache.kafka.common.Node;
 import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
@@ -15,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BinaryOperator;
 import java.util.stream.Collectors;
 
 import static com.github.domwood.kiwi.kafka.utils.KafkaOffsetPositionCalculator.getStartingPositions;
@@ -36,7 +39,13 @@ public class KafkaTaskUtils {
         final Set<Integer> partitions = startPosition
                 .map(ConsumerStartPosition::partitions)
                 .orElse(Collections.emptySet());
-        if (partitions.isEmpty()) {
+        if (partitions.isEmpty() && resource.isGroupless()) {
+            final Set<TopicPartition> topicPartitions = partitionsFor(resource, topics, partitions);
+            if (topicPartitions.isEmpty()) {
+                throw new KiwiConsumerSubscriptionException("No partitions found for topics " + topics);
+            }
+            resource.assign(topicPartitions);
+        } else if (partitions.isEmpty()) {
             resource.subscribe(topics);
         } else {
             final Set<TopicPartition> topicPartitions = partitions.stream()
@@ -59,6 +68,10 @@ public class KafkaTaskUtils {
             throw new ConsumerAssignmentTimeoutException("Timed out awaiting an assignment for topics " + topics + " for " + resource.getGroupId());
         }
 
+        if (startPosition.map(ConsumerStartPosition::tail).orElse(false)) {
+            return seekToTail(resource, topicPartitionSet, startPosition.get());
+        }
+
         logger.info("Consumer attained assignment {} for {}. Seeking to beginning ...", topicPartitionSet, topics);
 
         resource.seekToBeginning(topicPartitionSet);
@@ -69,14 +82,144 @@ public class KafkaTaskUtils {
                 .map(position -> getStartingPositions(startOffset, endOffsets, position))
                 .orElse(startOffset);
 
+        KafkaConsumerTracker tracker = applyTimestampBounds(resource, startOffset, endOffsets, consumerStartingPosition, startPosition);
+
         startPosition.ifPresent(s -> {
             logger.info("Consumer start position defined, scanning to the partition start");
-            resource.seek(consumerStartingPosition);
+            resource.seek(tracker.getStartingConsumerOffsets());
         });
 
         logger.info("Consumer sought to beginning, polling for records");
 
-        return new KafkaConsumerTracker(startOffset, endOffsets, consumerStartingPosition);
+        return tracker;
+    }
+
+    /**
+     * Resolves the partitions of the topics, and the offsets a scan of them should start and end at,
+     * without assigning the partitions to the consumer.
+     */
+    public static KafkaConsumerTracker resolvePositions(final KafkaConsumerResource<?, ?> resource,
+                                                        final List<String> topics,
+                                                        final Optional<ConsumerStartPosition> startPosition) {
+        final Set<Integer> partitions = startPosition
+                .map(ConsumerStartPosition::partitions)
+                .orElse(Collections.emptySet());
+
+        final Set<TopicPartition> topicPartitions = partitionsFor(resource, topics, partitions);
+
+        Map<TopicPartition, Long> endOffsets = resource.endOffsets(topicPartitions);
+        Map<TopicPartition, Long> startOffset = resource.beginningOffsets(topicPartitions);
+
+        if (startPosition.map(ConsumerStartPosition::tail).orElse(false)) {
+            Map<TopicPartition, Long> tailOffsets = tailOffsets(startOffset, endOffsets, startPosition.get().tailRecords());
+            logger.info("Resolved {} partitions for {} tailing from {}", topicPartitions.size(), topics, tailOffsets);
+            return new KafkaConsumerTracker(startOffset, endOffsets, tailOffsets);
+        }
+
+        Map<TopicPartition, Long> consumerStartingPosition = startPosition
+                .map(position -> getStartingPositions(startOffset, endOffsets, position))
+                .orElse(startOffset);
+
+        logger.info("Resolved {} partitions for {}", topicPartitions.size(), topics);
+
+        return applyTimestampBounds(resource, startOffset, endOffsets, consumerStartingPosition, startPosition);
+    }
+
+    /**
+     * Resolves the partitions of the topics from the cluster metadata, restricted to the given partition numbers if any
+     */
+    private static Set<TopicPartition> partitionsFor(final KafkaConsumerResource<?, ?> resource,
+                                                     final List<String> topics,
+                                                     final Set<Integer> partitions) {
+        return topics.stream()
+                .flatMap(topic -> Optional.ofNullable(resource.partitionsFor(topic)).orElse(Collections.emptyList()).stream())
+                .filter(partitionInfo -> partitions.isEmpty() || partitions.contains(partitionInfo.partition()))
+                .map(partitionInfo -> new TopicPartition(partitionInfo.topic(), partitionInfo.partition()))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Seeks straight to the tail of the partitions, without reading from the beginning or resolving any other
+     * start position.
+     */
+    private static KafkaConsumerTracker seekToTail(final KafkaConsumerResource<?, ?> resource,
+                                                   final Set<TopicPartition> topicPartitions,
+                                                   final ConsumerStartPosition startPosition) {
+        final Map<TopicPartition, Long> endOffsets = resource.endOffsets(topicPartitions);
+        final Map<TopicPartition, Long> beginningOffsets = startPosition.tailRecords() > 0 ?
+                resource.beginningOffsets(topicPartitions) : endOffsets;
+        final Map<TopicPartition, Long> tailOffsets = tailOffsets(beginningOffsets, endOffsets, startPosition.tailRecords());
+
+        logger.info("Consumer attained assignment {}. Seeking to tail {}", topicPartitions, tailOffsets);
+        resource.seek(tailOffsets);
+
+        return KafkaConsumerTracker.forTail(tailOffsets, endOffsets);
+    }
+
+    private static Map<TopicPartition, Long> tailOffsets(final Map<TopicPartition, Long> beginningOffsets,
+                                                         final Map<TopicPartition, Long> endOffsets,
+                                                         final long tailRecords) {
+        return endOffsets.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, kv -> Math.max(
+                        beginningOffsets.getOrDefault(kv.getKey(), 0L),
+                        kv.getValue() - Math.max(tailRecords, 0L))));
+    }
+
+    /**
+     * Narrows the starting and end offsets to the start and end timestamps of the start position, if any are set,
+     * looking the offsets up with the consumer's offsetsForTimes so records outside the window are never fetched.
+     */
+    private static KafkaConsumerTracker applyTimestampBounds(final KafkaConsumerResource<?, ?> resource,
+                                                             final Map<TopicPartition, Long> startOffset,
+                                                             final Map<TopicPartition, Long> endOffsets,
+                                                             final Map<TopicPartition, Long> consumerStartingPosition,
+                                                             final Optional<ConsumerStartPosition> startPosition) {
+        final Optional<Long> startTimestamp = startPosition.flatMap(ConsumerStartPosition::startTimestamp);
+        final Optional<Long> endTimestamp = startPosition.flatMap(ConsumerStartPosition::endTimestamp);
+        if (!startTimestamp.isPresent() && !endTimestamp.isPresent()) {
+            return new KafkaConsumerTracker(startOffset, endOffsets, consumerStartingPosition);
+        }
+
+        final Map<TopicPartition, Long> startingPosition = startTimestamp
+                .map(timestamp -> offsetsForTime(resource, endOffsets, timestamp))
+                .map(timestampOffsets -> mergeOffsets(consumerStartingPosition, timestampOffsets, Math::max))
+                .orElse(consumerStartingPosition);
+
+        final Map<TopicPartition, Long> boundedEndOffsets = endTimestamp
+                .map(timestamp -> offsetsForTime(resource, endOffsets, timestamp + 1))
+                .map(timestampOffsets -> mergeOffsets(endOffsets, timestampOffsets, Math::min))
+                .orElse(endOffsets);
+
+        logger.info("Consumer bounded by timestamps {} to {}, starting at {} ending at {}",
+                startTimestamp.orElse(null), endTimestamp.orElse(null), startingPosition, boundedEndOffsets);
+
+        return new KafkaConsumerTracker(startOffset, boundedEndOffsets, startingPosition, endTimestamp.isPresent());
+    }
+
+    /**
+     * @return the offset of the first record at or after the timestamp for each partition, or the end offset for
+     * partitions with no such record
+     */
+    private static Map<TopicPartition, Long> offsetsForTime(final KafkaConsumerResource<?, ?> resource,
+                                                            final Map<TopicPartition, Long> endOffsets,
+                                                            final long timestamp) {
+        final Map<TopicPartition, Long> timestampsToSearch = endOffsets.keySet().stream()
+                .collect(Collectors.toMap(tp -> tp, tp -> timestamp));
+        final Map<TopicPartition, OffsetAndTimestamp> found = Optional.ofNullable(resource.offsetsForTimes(timestampsToSearch))
+                .orElse(Collections.emptyMap());
+        return endOffsets.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, kv -> Optional.ofNullable(found.get(kv.getKey()))
+                        .map(OffsetAndTimestamp::offset)
+                        .orElse(kv.getValue())));
+    }
+
+    private static Map<TopicPartition, Long> mergeOffsets(final Map<TopicPartition, Long> offsets,
+                                                          final Map<TopicPartition, Long> timestampOffsets,
+                                                          final BinaryOperator<Long> merge) {
+        return offsets.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, kv -> Optional.ofNullable(timestampOffsets.get(kv.getKey()))
+                        .map(offset -> merge.apply(kv.getValue(), offset))
+                        .orElse(kv.getValue())));
     }
 
     public static String formatCoordinator(Node coordinator) {
@@ -1,41 +1,226 @@
 package com.github.domwood.kiwi.kafka.task;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.Executor;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
-public class KiwiTaskExecutor implements Executor {
-    private static final int CORE_POOL_SIZE = 50;
-    private final ThreadPoolExecutor delegate;
+import static java.util.stream.Collectors.joining;
 
-    private KiwiTaskExecutor(final ThreadFactory kiwiFactory) {
-        delegate = new ThreadPoolExecutor(CORE_POOL_SIZE, Integer.MAX_VALUE,
-                60L, TimeUnit.SECONDS,
-                new SynchronousQueue<>(),
-                kiwiFactory);
+/**
+ * Runs kiwi's tasks on a separate bounded pool per {@link KiwiWorkload}, so a burst of one kind of work, say many
+ * downloads, can't hold up the others. Each pool runs at most its maximum number of workers and queues a bounded
+ * number of tasks behind them; a task arriving when both are full is rejected with a {@link RejectedExecutionException}.
+ * When enabled, and the JVM supports them, each task runs on its own virtual thread instead, within the same limits.
+ */
+public class KiwiTaskExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(KiwiTaskExecutor.class);
+
+    private volatile Map<KiwiWorkload, Bulkhead> bulkheads;
+
+    private KiwiTaskExecutor() {
+        this.bulkheads = createBulkheads(defaultLimits(), false);
     }
 
     private static class KiwiTaskExecutorHelper {
-        private static final KiwiTaskExecutor INSTANCE = new KiwiTaskExecutor(new ThreadFactoryBuilder()
-                .setNameFormat("kiwi-task-thread-%d")
-                .build());
+        private static final KiwiTaskExecutor INSTANCE = new KiwiTaskExecutor();
     }
 
     public static KiwiTaskExecutor getInstance() {
         return KiwiTaskExecutorHelper.INSTANCE;
     }
 
-    @Override
-    public void execute(final Runnable command) {
-        delegate.submit(command);
+    /**
+     * Replaces the pools with ones of the given limits, the previous pools finishing the tasks they have already taken
+     */
+    public synchronized void configure(Map<KiwiWorkload, Limits> limits, boolean virtualThreads) {
+        Map<KiwiWorkload, Limits> configured = defaultLimits();
+        configured.putAll(limits);
+        Map<KiwiWorkload, Bulkhead> previous = this.bulkheads;
+        this.bulkheads = createBulkheads(configured, virtualThreads);
+        previous.values().forEach(Bulkhead::shutdown);
+    }
+
+    /**
+     * @throws RejectedExecutionException if the workload's pool and queue are full
+     */
+    public void execute(KiwiWorkload workload, Runnable command) {
+        bulkheads.get(workload).execute(command);
     }
 
     public String executorInformation() {
-        return String.format("Workers %s/%s (Active/Total)",
-                delegate.getActiveCount(), delegate.getPoolSize());
+        return Arrays.stream(KiwiWorkload.values())
+                .map(workload -> workload.name().toLowerCase() + " " + bulkheads.get(workload).information())
+                .collect(joining(", "));
+    }
+
+    private static Map<KiwiWorkload, Limits> defaultLimits() {
+        Map<KiwiWorkload, Limits> limits = new EnumMap<>(KiwiWorkload.class);
+        limits.put(KiwiWorkload.STREAM, new Limits(200, 0));
+        limits.put(KiwiWorkload.SCAN, new Limits(32, 64));
+        limits.put(KiwiWorkload.DOWNLOAD, new Limits(8, 8));
+        limits.put(KiwiWorkload.ADMIN, new Limits(16, 1000));
+        return limits;
+    }
+
+    private static Map<KiwiWorkload, Bulkhead> createBulkheads(Map<KiwiWorkload, Limits> limits, boolean virtualThreads) {
+        Map<KiwiWorkload, Bulkhead> created = new EnumMap<>(KiwiWorkload.class);
+        limits.forEach((workload, limit) -> {
+            String name = "kiwi-" + workload.name().toLowerCase() + "-thread-";
+            Bulkhead bulkhead = virtualThreads ? VirtualThreadBulkhead.create(name, limit) : null;
+            created.put(workload, bulkhead != null ? bulkhead : new PlatformThreadBulkhead(name, limit));
+        });
+        return created;
+    }
+
+    public static class Limits {
+        private final int maxThreads;
+        private final int queueSize;
+
+        public Limits(int maxThreads, int queueSize) {
+            this.maxThreads = Math.max(1, maxThreads);
+            this.queueSize = Math.max(0, queueSize);
+        }
+
+        public int maxThreads() {
+            return maxThreads;
+        }
+
+        public int queueSize() {
+            return queueSize;
+        }
+    }
+
+    private interface Bulkhead {
+        void execute(Runnable command);
+
+        String information();
+
+        void shutdown();
+    }
+
+    private static class PlatformThreadBulkhead implements Bulkhead {
+        private final ThreadPoolExecutor delegate;
+
+        private PlatformThreadBulkhead(String name, Limits limits) {
+            BlockingQueue<Runnable> queue = limits.queueSize() > 0 ?
+                    new LinkedBlockingQueue<>(limits.queueSize()) : new SynchronousQueue<>();
+            this.delegate = new ThreadPoolExecutor(limits.maxThreads(), limits.maxThreads(),
+                    60L, TimeUnit.SECONDS,
+                    queue,
+                    new ThreadFactoryBuilder().setNameFormat(name + "%d").build(),
+                    new ThreadPoolExecutor.AbortPolicy());
+            this.delegate.allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(command);
+        }
+
+        @Override
+        public String information() {
+            return String.format("Workers %s/%s/%s (Active/Total/Max) Queued %s",
+                    delegate.getActiveCount(), delegate.getPoolSize(), delegate.getMaximumPoolSize(), delegate.getQueue().size());
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+    }
+
+    /**
+     * Starts a virtual thread per task, holding tasks beyond the maximum number running at a semaphore rather than in
+     * a queue, and rejecting tasks beyond the maximum plus the queue size
+     */
+    private static class VirtualThreadBulkhead implements Bulkhead {
+        private final ExecutorService delegate;
+        private final Limits limits;
+        private final Semaphore admitted;
+        private final Semaphore running;
+
+        private VirtualThreadBulkhead(ExecutorService delegate, Limits limits) {
+            this.delegate = delegate;
+            this.limits = limits;
+            this.admitted = new Semaphore(limits.maxThreads() + limits.queueSize());
+            this.running = new Semaphore(limits.maxThreads());
+        }
+
+        /**
+         * Virtual threads are looked up reflectively so kiwi still builds and runs on JVMs without them
+         *
+         * @return the bulkhead, or null if the JVM doesn't support virtual threads
+         */
+        private static Bulkhead create(String name, Limits limits) {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                builder = Class.forName("java.lang.Thread$Builder$OfVirtual")
+                        .getMethod("name", String.class, long.class)
+                        .invoke(builder, name, 0L);
+                ThreadFactory factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                        .getMethod("factory")
+                        .invoke(builder);
+                ExecutorService delegate = (ExecutorService) Executors.class
+                        .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                        .invoke(null, factory);
+                return new VirtualThreadBulkhead(delegate, limits);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                logger.warn("Virtual threads are not supported by this JVM, falling back to platform threads for {}", name);
+                return null;
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (!admitted.tryAcquire()) {
+                throw new RejectedExecutionException("Task limit of " + (limits.maxThreads() + limits.queueSize()) + " reached");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        running.acquire();
+                        try {
+                            command.run();
+                        } finally {
+                            running.release();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        admitted.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                admitted.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public String information() {
+            int running = limits.maxThreads() - this.running.availablePermits();
+            int admitted = limits.maxThreads() + limits.queueSize() - this.admitted.availablePermits();
+            return String.format("Virtual workers %s/%s (Active/Max) Queued %s",
+                    running, limits.maxThreads(), Math.max(0, admitted - running));
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
     }
 }
@@ -0,0 +1,24 @@
+package com.github.domwood.kiwi.kafka.task;
+
+/**
+ * The classes of work run by the {@link KiwiTaskExecutor}, each given its own bounded pool of workers so one class
+ * of work can't starve the others.
+ */
+public enum KiwiWorkload {
+    /**
+     * Live views of a topic, holding a worker for as long as the view is open
+     */
+    STREAM,
+    /**
+     * One off searches of a topic, and bulk or generated produces
+     */
+    SCAN,
+    /**
+     * Topic data streamed to a file download
+     */
+    DOWNLOAD,
+    /**
+     * Admin requests, and the completion of the admin client's responses
+     */
+    ADMIN
+}
@@ -0,0 +1,191 @@
+package com.github.domwood.kiwi.kafka.task.admin;
+
+import com.github.domwood.kiwi.data.input.ConsumerGroupLagRequest;
+import com.github.domwood.kiwi.data.output.ConsumerGroupLag;
+import com.github.domwood.kiwi.data.output.ConsumerGroupLagSnapshot;
+import com.github.domwood.kiwi.data.output.ImmutableConsumerGroupLag;
+import com.github.domwood.kiwi.data.output.ImmutableConsumerGroupLagSnapshot;
+import com.github.domwood.kiwi.data.output.ImmutableTopicLag;
+import com.github.domwood.kiwi.data.output.TopicLag;
+import com.github.domwood.kiwi.kafka.resources.KafkaAdminResource;
+import com.github.domwood.kiwi.kafka.task.AbstractKafkaTask;
+import com.github.domwood.kiwi.kafka.utils.ConsumerGroupOffsetsIndex;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.domwood.kiwi.utilities.FutureUtils.toCompletable;
+import static com.github.domwood.kiwi.utilities.FutureUtils.toCompletableSuccesses;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The lag of every consumer group in the cluster, from a single pass: the groups are listed, their committed offsets
+ * fetched with at most maxConcurrency requests outstanding, and the end offsets of every partition any group has
+ * committed to resolved in one batched request. Lag is summed per topic and per group, and the groups sorted and
+ * paged as requested. Groups whose offsets can't be fetched, for example as they were deleted mid pass, are left out,
+ * as are partitions whose end offset can't be fetched, for example as their leader is unavailable.
+ * Given an index of committed offsets, the groups and their offsets are taken from the index instead.
+ */
+public class AllConsumerGroupLag extends AbstractKafkaTask<ConsumerGroupLagRequest, ConsumerGroupLagSnapshot, KafkaAdminResource> {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final int maxConcurrency;
+    private final Optional<ConsumerGroupOffsetsIndex> offsetsIndex;
+
+    public AllConsumerGroupLag(KafkaAdminResource resource, ConsumerGroupLagRequest input, int maxConcurrency) {
+        this(resource, input, maxConcurrency, Optional.empty());
+    }
+
+    public AllConsumerGroupLag(KafkaAdminResource resource,
+                               ConsumerGroupLagRequest input,
+                               int maxConcurrency,
+                               Optional<ConsumerGroupOffsetsIndex> offsetsIndex) {
+        super(resource, input);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.offsetsIndex = offsetsIndex;
+    }
+
+    @Override
+    protected CompletableFuture<ConsumerGroupLagSnapshot> delegateExecute() {
+        CompletableFuture<Map<String, Map<TopicPartition, Long>>> committedOffsets = offsetsIndex
+                .map(index -> CompletableFuture.completedFuture(index.committedOffsets()))
+                .orElseGet(() -> toCompletable(resource.listConsumerGroups().all())
+                        .thenCompose(this::committedOffsets));
+        return committedOffsets
+                .thenCompose(committed -> endOffsets(committed)
+                        .thenApply(endOffsets -> snapshot(committed, endOffsets)));
+    }
+
+    private CompletableFuture<Map<String, Map<TopicPartition, Long>>> committedOffsets(Collection<ConsumerGroupListing> listings) {
+        Map<String, Map<TopicPartition, Long>> committed = new ConcurrentHashMap<>();
+        Iterator<String> remaining = listings.stream().map(ConsumerGroupListing::groupId).iterator();
+        CompletableFuture<?>[] workers = IntStream.range(0, Math.min(maxConcurrency, listings.size()))
+                .mapToObj(i -> nextCommittedOffsets(remaining, committed))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(workers).thenApply(ignored -> committed);
+    }
+
+    private CompletableFuture<Void> nextCommittedOffsets(Iterator<String> remaining,
+                                                         Map<String, Map<TopicPartition, Long>> committed) {
+        String groupId;
+        synchronized (remaining) {
+            if (!remaining.hasNext()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            groupId = remaining.next();
+        }
+        return toCompletable(resource.listConsumerGroupOffsets(groupId).partitionsToOffsetAndMetadata())
+                .handle((offsets, error) -> {
+                    if (error != null) {
+                        logger.warn("Failed to fetch committed offsets for group {}, leaving it out of the lag snapshot", groupId, error);
+                    } else {
+                        committed.put(groupId, offsets.entrySet().stream()
+                                .filter(offset -> offset.getValue() != null)
+                                .collect(Collectors.toMap(Map.Entry::getKey, offset -> offset.getValue().offset())));
+                    }
+                    return (Void) null;
+                })
+                .thenCompose(ignored -> nextCommittedOffsets(remaining, committed));
+    }
+
+    private CompletableFuture<Map<TopicPartition, Long>> endOffsets(Map<String, Map<TopicPartition, Long>> committed) {
+        Map<TopicPartition, OffsetSpec> partitions = committed.values().stream()
+                .flatMap(offsets -> offsets.keySet().stream())
+                .distinct()
+                .collect(Collectors.toMap(Function.identity(), tp -> OffsetSpec.latest()));
+
+        if (partitions.isEmpty()) return CompletableFuture.completedFuture(Collections.emptyMap());
+
+        ListOffsetsResult result = resource.listOffsets(partitions);
+        return toCompletableSuccesses(partitions.keySet().stream()
+                        .collect(Collectors.toMap(Function.identity(), result::partitionResult)),
+                (tp, error) -> logger.warn("Failed to fetch the end offset of {}, leaving it out of the lag snapshot", tp, error))
+                .thenApply(endOffsets -> endOffsets.entrySet().stream()
+                        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().offset())));
+    }
+
+    private ConsumerGroupLagSnapshot snapshot(Map<String, Map<TopicPartition, Long>> committed,
+                                              Map<TopicPartition, Long> endOffsets) {
+        List<ConsumerGroupLag> groups = committed.entrySet().stream()
+                .map(group -> groupLag(group.getKey(), group.getValue(), endOffsets))
+                .sorted(ordering())
+                .collect(toList());
+
+        int pageSize = Math.max(1, input.pageSize());
+        int page = Math.max(0, input.page());
+        return ImmutableConsumerGroupLagSnapshot.builder()
+                .timestamp(System.currentTimeMillis())
+                .totalGroups(groups.size())
+                .page(page)
+                .pageSize(pageSize)
+                .groups(groups.stream()
+                        .skip((long) page * pageSize)
+                        .limit(pageSize)
+                        .collect(toList()))
+                .build();
+    }
+
+    private ConsumerGroupLag groupLag(String groupId,
+                                      Map<TopicPartition, Long> committed,
+                                      Map<TopicPartition, Long> endOffsets) {
+        List<TopicLag> topics = committed.entrySet().stream()
+                .filter(offset -> endOffsets.containsKey(offset.getKey()))
+                .collect(Collectors.groupingBy(offset -> offset.getKey().topic()))
+                .entrySet().stream()
+                .map(topic -> topicLag(topic.getKey(), topic.getValue().stream()
+                        .map(offset -> Math.max(0L, endOffsets.get(offset.getKey()) - offset.getValue()))
+                        .collect(toList())))
+                .sorted(Comparator.comparing(TopicLag::topic))
+                .collect(toList());
+
+        return ImmutableConsumerGroupLag.builder()
+                .groupId(groupId)
+                .totalLag(topics.stream().mapToLong(TopicLag::totalLag).sum())
+                .maxPartitionLag(topics.stream().mapToLong(TopicLag::maxPartitionLag).max().orElse(0L))
+                .topics(topics)
+                .build();
+    }
+
+    private TopicLag topicLag(String topic, List<Long> partitionLags) {
+        return ImmutableTopicLag.builder()
+                .topic(topic)
+                .partitions(partitionLags.size())
+                .totalLag(partitionLags.stream().mapToLong(Long::longValue).sum())
+                .maxPartitionLag(partitionLags.stream().mapToLong(Long::longValue).max().orElse(0L))
+                .build();
+    }
+
+    private Comparator<ConsumerGroupLag> ordering() {
+        Comparator<ConsumerGroupLag> ordering;
+        switch (input.sortBy()) {
+            case MAX_PARTITION_LAG:
+                ordering = Comparator.comparingLong(ConsumerGroupLag::maxPartitionLag);
+                break;
+            case GROUP_ID:
+                ordering = Comparator.comparing(ConsumerGroupLag::groupId);
+                break;
+            case TOTAL_LAG:
+            default:
+                ordering = Comparator.comparingLong(ConsumerGroupLag::totalLag);
+        }
+        ordering = input.descending() ? ordering.reversed() : ordering;
+        return ordering.thenComparing(ConsumerGroupLag::groupId);
+    }
+}
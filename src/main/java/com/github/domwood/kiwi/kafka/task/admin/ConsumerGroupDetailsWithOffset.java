@@ -2,15 +2,12 @@ package com.github.domwood.kiwi.kafka.task.admin;
 
 import com.github.domwood.kiwi.data.output.*;
 import com.github.domwood.kiwi.kafka.resources.KafkaAdminResource;
-import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
-import com.github.domwood.kiwi.kafka.resources.KafkaResourcePair;
 import com.github.domwood.kiwi.kafka.task.AbstractKafkaTask;
-import com.github.domwood.kiwi.kafka.task.KafkaTaskUtils;
-import com.github.domwood.kiwi.utilities.FutureUtils;
 import com.github.domwood.kiwi.utilities.StreamUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.kafka.clients.admin.ConsumerGroupDescription;
 import org.apache.kafka.clients.admin.MemberDescription;
+import org.apache.kafka.clients.admin.OffsetSpec;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
@@ -18,6 +15,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.github.domwood.kiwi.kafka.task.KafkaTaskUtils.formatCoordinator;
@@ -25,26 +23,30 @@ import static com.github.domwood.kiwi.utilities.FutureUtils.toCompletable;
 import static java.util.Arrays.asList;
 
 
-public class ConsumerGroupDetailsWithOffset extends AbstractKafkaTask<String, ConsumerGroupTopicWithOffsetDetails, KafkaResourcePair<KafkaAdminResource, KafkaConsumerResource<String, String>>> {
+/**
+ * Describes a group's assigned partitions with their committed offsets and lag. The end offsets of every assigned
+ * partition are listed in one batched admin request, rather than subscribing a consumer to the group's topics.
+ */
+public class ConsumerGroupDetailsWithOffset extends AbstractKafkaTask<String, ConsumerGroupTopicWithOffsetDetails, KafkaAdminResource> {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    public ConsumerGroupDetailsWithOffset(KafkaResourcePair<KafkaAdminResource, KafkaConsumerResource<String, String>> resource, String input) {
+    public ConsumerGroupDetailsWithOffset(KafkaAdminResource resource, String input) {
         super(resource, input);
     }
 
     @Override
     protected CompletableFuture<ConsumerGroupTopicWithOffsetDetails> delegateExecute() {
         CompletableFuture<Map<TopicPartition, OffsetAndMetadata>> groupAssignment =
-                toCompletable(resource.getLeft().listConsumerGroupOffsets(input).partitionsToOffsetAndMetadata());
+                toCompletable(resource.listConsumerGroupOffsets(input).partitionsToOffsetAndMetadata());
 
-        CompletableFuture<ConsumerGroupDescription> description = toCompletable(resource.getLeft().describeConsumerGroups(asList(input))
+        CompletableFuture<ConsumerGroupDescription> description = toCompletable(resource.describeConsumerGroups(asList(input))
                 .describedGroups()
                 .get(input));
 
         return description
                 .thenCombine(groupAssignment, Pair::of)
-                .thenCompose(ab -> withOffsets(resource.getRight(), ab.getRight(), ab.getLeft()))
+                .thenCompose(ab -> withOffsets(ab.getRight(), ab.getLeft()))
                 .thenCombine(description, this::toOffsetDetails)
                 .whenComplete((group, error) -> {
                     if (error != null) {
@@ -98,23 +100,18 @@ public class ConsumerGroupDetailsWithOffset extends AbstractKafkaTask<String, Co
                 .build());
     }
 
-    //Appears to be how the ConsumerGroupCommand.scala finds the offset/lag
-    private CompletableFuture<Map<TopicPartition, Pair<Long, Long>>> withOffsets(KafkaConsumerResource<?, ?> resource,
-                                                                                 Map<TopicPartition, OffsetAndMetadata> offsetData,
+    private CompletableFuture<Map<TopicPartition, Pair<Long, Long>>> withOffsets(Map<TopicPartition, OffsetAndMetadata> offsetData,
                                                                                  ConsumerGroupDescription description) {
-        return FutureUtils.supplyAsync(() -> {
-            List<String> topics = description.members().stream()
-                    .flatMap(s -> s.assignment().topicPartitions().stream())
-                    .map(TopicPartition::topic)
-                    .distinct()
-                    .collect(Collectors.toList());
+        Map<TopicPartition, OffsetSpec> partitions = description.members().stream()
+                .flatMap(s -> s.assignment().topicPartitions().stream())
+                .distinct()
+                .collect(Collectors.toMap(Function.identity(), tp -> OffsetSpec.latest()));
 
-            if (topics.isEmpty()) return Collections.emptyMap();
+        if (partitions.isEmpty()) return CompletableFuture.completedFuture(Collections.emptyMap());
 
-            Map<TopicPartition, Long> endOffsets = KafkaTaskUtils.subscribeAndSeek(resource, topics, Optional.empty()).getEndOffsets();
-
-            return mapToOffset(offsetData, endOffsets);
-        });
+        return toCompletable(resource.listOffsets(partitions).all())
+                .thenApply(endOffsets -> mapToOffset(offsetData, endOffsets.entrySet().stream()
+                        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().offset()))));
     }
 
     private Map<TopicPartition, Pair<Long, Long>> mapToOffset(Map<TopicPartition, OffsetAndMetadata> group,
@@ -0,0 +1,55 @@
+package com.github.domwood.kiwi.kafka.task.admin;
+
+import com.github.domwood.kiwi.kafka.resources.KafkaAdminResource;
+import com.github.domwood.kiwi.kafka.task.AbstractKafkaTask;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.github.domwood.kiwi.utilities.FutureUtils.toCompletable;
+import static com.github.domwood.kiwi.utilities.FutureUtils.toCompletableSuccesses;
+
+/**
+ * The committed offset, on the left, and end offset, on the right, of each partition the group has committed to.
+ * Partitions whose end offset can't be fetched are left out.
+ */
+public class ConsumerGroupOffsets extends AbstractKafkaTask<String, Map<TopicPartition, Pair<Long, Long>>, KafkaAdminResource> {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    public ConsumerGroupOffsets(KafkaAdminResource resource, String input) {
+        super(resource, input);
+    }
+
+    @Override
+    protected CompletableFuture<Map<TopicPartition, Pair<Long, Long>>> delegateExecute() {
+        return toCompletable(resource.listConsumerGroupOffsets(input).partitionsToOffsetAndMetadata())
+                .thenCompose(this::withEndOffsets);
+    }
+
+    private CompletableFuture<Map<TopicPartition, Pair<Long, Long>>> withEndOffsets(Map<TopicPartition, OffsetAndMetadata> committed) {
+        Map<TopicPartition, OffsetSpec> partitions = committed.entrySet().stream()
+                .filter(offset -> offset.getValue() != null)
+                .collect(Collectors.toMap(Map.Entry::getKey, offset -> OffsetSpec.latest()));
+
+        if (partitions.isEmpty()) return CompletableFuture.completedFuture(Collections.emptyMap());
+
+        ListOffsetsResult result = resource.listOffsets(partitions);
+        return toCompletableSuccesses(partitions.keySet().stream()
+                        .collect(Collectors.toMap(Function.identity(), result::partitionResult)),
+                (tp, error) -> logger.warn("Failed to fetch the end offset of {} for group {}, leaving it out", tp, input, error))
+                .thenApply(endOffsets -> endOffsets.keySet().stream()
+                        .collect(Collectors.toMap(Function.identity(),
+                                tp -> Pair.of(committed.get(tp).offset(), endOffsets.get(tp).offset()))));
+    }
+}
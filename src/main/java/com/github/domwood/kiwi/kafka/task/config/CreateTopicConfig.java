@@ -4,6 +4,7 @@ import com.github.domwood.kiwi.data.output.CreateTopicConfigOptions;
 import com.github.domwood.kiwi.data.output.ImmutableCreateTopicConfigOptions;
 import com.github.domwood.kiwi.kafka.resources.KafkaTopicConfigResource;
 import com.github.domwood.kiwi.kafka.task.FuturisingAbstractKafkaTask;
+import com.github.domwood.kiwi.kafka.task.KiwiWorkload;
 import org.apache.kafka.common.config.TopicConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +23,11 @@ public class CreateTopicConfig extends FuturisingAbstractKafkaTask<Void, CreateT
         super(resource, input);
     }
 
+    @Override
+    protected KiwiWorkload workload() {
+        return KiwiWorkload.ADMIN;
+    }
+
     @Override
     protected CreateTopicConfigOptions delegateExecuteSync() {
         TopicConfig topicConfig = resource.getConfig();
@@ -1,16 +1,20 @@
 package com.github.domwood.kiwi.kafka.task.consumer;
 
 import com.github.domwood.kiwi.data.input.AbstractConsumerRequest;
+import com.github.domwood.kiwi.data.input.ConsumerScanDirection;
 import com.github.domwood.kiwi.data.output.ConsumedMessage;
 import com.github.domwood.kiwi.data.output.ConsumerResponse;
-import com.github.domwood.kiwi.data.output.ImmutableConsumedMessage;
 import com.github.domwood.kiwi.data.output.ImmutableConsumerResponse;
-import com.github.domwood.kiwi.kafka.filters.FilterBuilder;
+import com.github.domwood.kiwi.kafka.filters.FilterPlan;
+import com.github.domwood.kiwi.kafka.filters.FilterPlanner;
 import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
 import com.github.domwood.kiwi.kafka.task.FuturisingAbstractKafkaTask;
 import com.github.domwood.kiwi.kafka.task.KafkaTaskUtils;
+import com.github.domwood.kiwi.kafka.task.KiwiWorkload;
+import com.github.domwood.kiwi.kafka.utils.BoundedMessageHeap;
+import com.github.domwood.kiwi.kafka.utils.DecodedConsumerRecord;
 import com.github.domwood.kiwi.kafka.utils.KafkaConsumerTracker;
-import org.apache.commons.collections4.queue.CircularFifoQueue;
+import com.github.domwood.kiwi.utilities.FutureUtils;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
@@ -19,37 +23,76 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
-import java.util.function.Predicate;
+import java.util.function.Supplier;
 
-import static com.github.domwood.kiwi.kafka.utils.KafkaUtils.fromKafkaHeaders;
 import static java.time.temporal.ChronoUnit.MILLIS;
+import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 
 public class BasicConsumeMessages<K, V> extends FuturisingAbstractKafkaTask<AbstractConsumerRequest, ConsumerResponse, KafkaConsumerResource<K, V>> {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final long INITIAL_REVERSE_CHUNK = 50L;
+    private static final long MAX_REVERSE_CHUNK = 50_000L;
+
+    private final Supplier<KafkaConsumerResource<K, V>> scanResourceSupplier;
+    private final int scanParallelism;
 
     public BasicConsumeMessages(KafkaConsumerResource<K, V> resource, AbstractConsumerRequest input) {
+        this(resource, input, null, 1);
+    }
+
+    /**
+     * @param scanResourceSupplier supplies the additional consumers used when scanning partitions in parallel
+     * @param scanParallelism      the maximum number of consumers to split the topic partitions across
+     */
+    public BasicConsumeMessages(KafkaConsumerResource<K, V> resource,
+                                AbstractConsumerRequest input,
+                                Supplier<KafkaConsumerResource<K, V>> scanResourceSupplier,
+                                int scanParallelism) {
         super(resource, input);
+        this.scanResourceSupplier = scanResourceSupplier;
+        this.scanParallelism = scanParallelism;
+    }
+
+    @Override
+    protected KiwiWorkload workload() {
+        return KiwiWorkload.SCAN;
     }
 
     @Override
     protected ConsumerResponse delegateExecuteSync() {
 
         try {
+            if (input.scanDirection() == ConsumerScanDirection.REVERSE) {
+                return reverseScan();
+            }
+            if (scanParallelism > 1 && scanResourceSupplier != null) {
+                return parallelScan();
+            }
+
             KafkaConsumerTracker tracker = KafkaTaskUtils.subscribeAndSeek(resource, input.topics(), input.consumerStartPosition());
 
-            Queue<ConsumedMessage> queue = selectQueueType();
+            BoundedMessageHeap results = new BoundedMessageHeap(input.limit());
 
             boolean running = true;
             int pollEmptyCount = 0;
-            Predicate<ConsumerRecord<K, V>> filter = FilterBuilder.compileFilters(input.filters(), resource::convertKafkaKey, resource::convertKafkaValue);
+            FilterPlan<K, V> filter = FilterPlanner.plan(input.filters());
+            Function<K, String> keyDecoder = resource::convertKafkaKey;
+            Function<V, String> valueDecoder = resource::convertKafkaValue;
 
             while (running) {
                 ConsumerRecords<K, V> records = resource.poll(Duration.of(200, MILLIS));
@@ -63,52 +106,303 @@ public class BasicConsumeMessages<K, V> extends FuturisingAbstractKafkaTask<Abst
 
                     pollEmptyCount = 0;
                     for (ConsumerRecord<K, V> consumerRecord : records) {
-                        if (filter.test(consumerRecord)) {
-                            queue.add(asConsumedRecord(consumerRecord, resource::convertKafkaKey, resource::convertKafkaValue));
-                            toCommit.put(new TopicPartition(consumerRecord.topic(), consumerRecord.partition()), new OffsetAndMetadata(consumerRecord.offset()));
+                        TopicPartition topicPartition = new TopicPartition(consumerRecord.topic(), consumerRecord.partition());
+                        if (tracker.isPastBoundedEnd(topicPartition, consumerRecord.offset())) {
+                            continue;
+                        }
+                        DecodedConsumerRecord<K, V> decodedRecord = new DecodedConsumerRecord<>(consumerRecord, keyDecoder, valueDecoder);
+                        if (filter.test(decodedRecord)) {
+                            results.add(decodedRecord.toConsumedMessage());
+                            toCommit.put(topicPartition, new OffsetAndMetadata(consumerRecord.offset()));
                         }
                     }
-                    commitAsync(toCommit);
+                    commitAsync(resource, toCommit);
                 }
-                running = shouldContinueRunning(pollEmptyCount, tracker.getEndOffsets(), toCommit);
+                running = shouldContinueRunning(pollEmptyCount, tracker, toCommit);
             }
             this.resource.unsubscribe();
 
-            return ImmutableConsumerResponse.builder()
-                    .messages(queue.stream()
-                            .sorted(Comparator.comparingLong(ConsumedMessage::timestamp))
-                            .collect(toList()))
-                    .build();
+            return asResponse(results);
         } catch (Exception e) {
             logger.error("Failed to complete task of consuming from topics " + input.topics(), e);
             throw e;
         }
     }
 
+    /**
+     * Splits the topic partitions across up to {@link #scanParallelism} consumers, each assigned its share of the
+     * partitions and scanning them on its own worker, merging matches into a single bounded result set.
+     * The first share is scanned on this task's worker, which then scans any share no other worker has started,
+     * so the scan never waits on a queue of scan workers that this task may itself be holding up.
+     */
+    private ConsumerResponse parallelScan() {
+        KafkaConsumerTracker tracker = KafkaTaskUtils.resolvePositions(resource, input.topics(), input.consumerStartPosition());
+        Set<TopicPartition> partitionsToScan = tracker.assignedPartitions().stream()
+                .filter(tp -> startingOffset(tracker, tp) < tracker.getEndOffsets().get(tp))
+                .collect(toSet());
+        List<Set<TopicPartition>> partitionGroups = splitPartitions(partitionsToScan);
+
+        logger.info("Scanning {} partitions of {} across {} consumers", partitionsToScan.size(), input.topics(), partitionGroups.size());
+
+        BoundedMessageHeap results = new BoundedMessageHeap(input.limit());
+        FilterPlan<K, V> filter = FilterPlanner.plan(input.filters());
+
+        List<ClaimableScan> scans = partitionGroups.stream()
+                .skip(1)
+                .map(partitions -> new ClaimableScan(() -> {
+                    KafkaConsumerResource<K, V> scanResource = scanResourceSupplier.get();
+                    try {
+                        scanPartitions(scanResource, partitions, tracker, filter, results);
+                    } finally {
+                        scanResource.discard();
+                    }
+                }))
+                .collect(toList());
+        scans.forEach(scan -> scan.completion().whenComplete((ignored, e) -> {
+            if (e != null && !(e instanceof CancellationException)) {
+                scans.forEach(ClaimableScan::cancel);
+            }
+        }));
+        scans.forEach(scan -> FutureUtils.supplyAsync(KiwiWorkload.SCAN, scan::claim));
+
+        try {
+            if (!partitionGroups.isEmpty()) {
+                scanPartitions(resource, partitionGroups.get(0), tracker, filter, results);
+            }
+        } catch (RuntimeException e) {
+            scans.forEach(ClaimableScan::cancel);
+            throw e;
+        }
+        scans.forEach(ClaimableScan::claim);
+        awaitScans(scans);
+
+        return asResponse(results);
+    }
+
+    /**
+     * Waits on every share, then rethrows the failure of the first that failed, rather than the cancellation of a
+     * share it caused
+     */
+    private static void awaitScans(List<ClaimableScan> scans) {
+        CompletableFuture.allOf(scans.stream().map(ClaimableScan::completion).toArray(CompletableFuture[]::new))
+                .exceptionally(e -> null)
+                .join();
+        scans.stream()
+                .map(ClaimableScan::completion)
+                .filter(completion -> completion.isCompletedExceptionally() && !completion.isCancelled())
+                .findFirst()
+                .ifPresent(CompletableFuture::join);
+    }
+
+    private void scanPartitions(KafkaConsumerResource<K, V> scanResource,
+                                Set<TopicPartition> partitions,
+                                KafkaConsumerTracker tracker,
+                                FilterPlan<K, V> filter,
+                                BoundedMessageHeap results) {
+        Map<TopicPartition, Long> endOffsets = partitions.stream()
+                .collect(toMap(tp -> tp, tp -> tracker.getEndOffsets().get(tp)));
+        Map<TopicPartition, Long> startingOffsets = partitions.stream()
+                .collect(toMap(tp -> tp, tp -> startingOffset(tracker, tp)));
+
+        Set<TopicPartition> remaining = new HashSet<>(partitions);
+        scanResource.assign(partitions);
+        scanResource.seek(startingOffsets);
+
+        Function<K, String> keyDecoder = scanResource::convertKafkaKey;
+        Function<V, String> valueDecoder = scanResource::convertKafkaValue;
+        int pollEmptyCount = 0;
+
+        while (!remaining.isEmpty() && pollEmptyCount <= 3) {
+            ConsumerRecords<K, V> records = scanResource.poll(Duration.of(200, MILLIS));
+            if (records.isEmpty()) {
+                pollEmptyCount++;
+            } else {
+                pollEmptyCount = 0;
+                Map<TopicPartition, OffsetAndMetadata> toCommit = new HashMap<>();
+                for (ConsumerRecord<K, V> consumerRecord : records) {
+                    TopicPartition topicPartition = new TopicPartition(consumerRecord.topic(), consumerRecord.partition());
+                    if (consumerRecord.offset() >= endOffsets.get(topicPartition)) {
+                        continue;
+                    }
+                    DecodedConsumerRecord<K, V> decodedRecord = new DecodedConsumerRecord<>(consumerRecord, keyDecoder, valueDecoder);
+                    if (filter.test(decodedRecord)) {
+                        ConsumedMessage consumedMessage = decodedRecord.toConsumedMessage();
+                        synchronized (results) {
+                            results.add(consumedMessage);
+                        }
+                        toCommit.put(topicPartition, new OffsetAndMetadata(consumerRecord.offset()));
+                    }
+                }
+                commitAsync(scanResource, toCommit);
+            }
+
+            scanResource.currentPosition(remaining)
+                    .forEach((tp, position) -> {
+                        if (position >= endOffsets.get(tp)) {
+                            remaining.remove(tp);
+                        }
+                    });
+        }
+        scanResource.unsubscribe();
+    }
+
+    /**
+     * Reads each partition backwards from its end offset a chunk at a time, every chunk read forwards and filtered,
+     * until enough matches newer than anything left unread are found or the starting offsets are reached.
+     * The chunk size doubles every round, so the cost follows how recent the matches are rather than the topic size.
+     */
+    private ConsumerResponse reverseScan() {
+        KafkaConsumerTracker tracker = KafkaTaskUtils.resolvePositions(resource, input.topics(), input.consumerStartPosition());
+        Map<TopicPartition, Long> lowOffsets = new HashMap<>();
+        Map<TopicPartition, Long> highOffsets = new HashMap<>();
+        tracker.assignedPartitions().forEach(tp -> {
+            long low = startingOffset(tracker, tp);
+            long high = tracker.getEndOffsets().get(tp);
+            if (low < high) {
+                lowOffsets.put(tp, low);
+                highOffsets.put(tp, high);
+            }
+        });
+
+        logger.info("Reverse scanning {} partitions of {}", highOffsets.size(), input.topics());
+
+        BoundedMessageHeap results = new BoundedMessageHeap(input.limit());
+        FilterPlan<K, V> filter = FilterPlanner.plan(input.filters());
+        resource.assign(new HashSet<>(highOffsets.keySet()));
+
+        long chunkSize = Math.max(input.limit(), INITIAL_REVERSE_CHUNK);
+        while (!highOffsets.isEmpty()) {
+            final long size = chunkSize;
+            Map<TopicPartition, Long> chunkStart = highOffsets.entrySet().stream()
+                    .collect(toMap(Map.Entry::getKey, kv -> Math.max(lowOffsets.get(kv.getKey()), kv.getValue() - size)));
+
+            Map<TopicPartition, Long> oldestTimestamps = readChunk(chunkStart, new HashMap<>(highOffsets), filter, results);
+
+            for (TopicPartition topicPartition : chunkStart.keySet()) {
+                long start = chunkStart.get(topicPartition);
+                if (start <= lowOffsets.get(topicPartition) || isOlderThanResults(oldestTimestamps.get(topicPartition), results)) {
+                    highOffsets.remove(topicPartition);
+                } else {
+                    highOffsets.put(topicPartition, start);
+                }
+            }
+            chunkSize = Math.min(chunkSize * 2, MAX_REVERSE_CHUNK);
+        }
+        resource.unsubscribe();
+
+        return asResponse(results);
+    }
+
+    /**
+     * Reads the offsets between the chunk start and end of each partition, pausing partitions as they reach their end.
+     *
+     * @return the oldest record timestamp read from each partition
+     */
+    private Map<TopicPartition, Long> readChunk(Map<TopicPartition, Long> chunkStart,
+                                                Map<TopicPartition, Long> chunkEnd,
+                                                FilterPlan<K, V> filter,
+                                                BoundedMessageHeap results) {
+        Set<TopicPartition> reading = new HashSet<>(chunkEnd.keySet());
+        resource.resume(reading);
+        resource.seek(chunkStart);
+
+        Function<K, String> keyDecoder = resource::convertKafkaKey;
+        Function<V, String> valueDecoder = resource::convertKafkaValue;
+        Map<TopicPartition, Long> oldestTimestamps = new HashMap<>();
+        int pollEmptyCount = 0;
+
+        while (!reading.isEmpty() && pollEmptyCount <= 3) {
+            ConsumerRecords<K, V> records = resource.poll(Duration.of(200, MILLIS));
+            if (records.isEmpty()) {
+                pollEmptyCount++;
+            } else {
+                pollEmptyCount = 0;
+                for (ConsumerRecord<K, V> consumerRecord : records) {
+                    TopicPartition topicPartition = new TopicPartition(consumerRecord.topic(), consumerRecord.partition());
+                    Long end = chunkEnd.get(topicPartition);
+                    if (end == null || consumerRecord.offset() >= end) {
+                        continue;
+                    }
+                    oldestTimestamps.merge(topicPartition, consumerRecord.timestamp(), Math::min);
+                    DecodedConsumerRecord<K, V> decodedRecord = new DecodedConsumerRecord<>(consumerRecord, keyDecoder, valueDecoder);
+                    if (filter.test(decodedRecord)) {
+                        results.add(decodedRecord.toConsumedMessage());
+                    }
+                }
+            }
+
+            Set<TopicPartition> finished = resource.currentPosition(reading).entrySet().stream()
+                    .filter(kv -> kv.getValue() >= chunkEnd.get(kv.getKey()))
+                    .map(Map.Entry::getKey)
+                    .collect(toSet());
+            resource.pause(finished);
+            reading.removeAll(finished);
+        }
+        resource.pause(chunkEnd.keySet());
+
+        return oldestTimestamps;
+    }
+
+    /**
+     * Assumes timestamps increase with offsets within a partition, so once the results are full and a partition has
+     * been read back past the oldest retained message, nothing earlier in that partition can make it into the results.
+     */
+    private boolean isOlderThanResults(Long oldestTimestamp, BoundedMessageHeap results) {
+        return oldestTimestamp != null && results.isFull() && results.oldest()
+                .map(message -> oldestTimestamp <= message.timestamp())
+                .orElse(false);
+    }
+
+    private long startingOffset(KafkaConsumerTracker tracker, TopicPartition topicPartition) {
+        return tracker.getStartingConsumerOffsets()
+                .getOrDefault(topicPartition, tracker.getStartOffsets().get(topicPartition));
+    }
+
+    private List<Set<TopicPartition>> splitPartitions(Set<TopicPartition> topicPartitions) {
+        int groupCount = Math.min(scanParallelism, topicPartitions.size());
+        List<Set<TopicPartition>> groups = new ArrayList<>(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            groups.add(new HashSet<>());
+        }
+        List<TopicPartition> ordered = topicPartitions.stream()
+                .sorted(comparing(TopicPartition::topic).thenComparingInt(TopicPartition::partition))
+                .collect(toList());
+        for (int i = 0; i < ordered.size(); i++) {
+            groups.get(i % groupCount).add(ordered.get(i));
+        }
+        return groups;
+    }
+
     private boolean shouldContinueRunning(int pollEmptyCount,
-                                          Map<TopicPartition, Long> endOffsets,
+                                          KafkaConsumerTracker tracker,
                                           Map<TopicPartition, OffsetAndMetadata> toCommit) {
 
         if (pollEmptyCount > 3) {
             logger.debug("Polled empty 3 times, closing consumer");
             return false;
         }
-        if (isEndOfData(endOffsets, toCommit)) {
+        if (isEndOfData(tracker.getEndOffsets(), toCommit)) {
             logger.debug("End of data reached");
             return false;
         }
+        if (tracker.hasBoundedEnd() && isPositionAtEnd(tracker)) {
+            logger.debug("Bounded end of data reached");
+            return false;
+        }
 
         return true;
     }
 
 
-    private Queue<ConsumedMessage> selectQueueType() {
-        return new CircularFifoQueue<>(input.limit());
+    private ConsumerResponse asResponse(BoundedMessageHeap results) {
+        return ImmutableConsumerResponse.builder()
+                .messages(results.drainOrdered())
+                .build();
     }
 
-    private void commitAsync(Map<TopicPartition, OffsetAndMetadata> toCommit) {
-        if (resource.isCommittingConsumer() && !toCommit.isEmpty()) {
-            resource.commitAsync(toCommit, this::logCommit);
+    private void commitAsync(KafkaConsumerResource<K, V> commitResource, Map<TopicPartition, OffsetAndMetadata> toCommit) {
+        if (commitResource.isCommittingConsumer() && !toCommit.isEmpty()) {
+            commitResource.commitAsync(toCommit, this::logCommit);
         }
     }
 
@@ -120,6 +414,13 @@ public class BasicConsumeMessages<K, V> extends FuturisingAbstractKafkaTask<Abst
         }
     }
 
+    private boolean isPositionAtEnd(KafkaConsumerTracker tracker) {
+        Map<TopicPartition, Long> endOffsets = tracker.getEndOffsets();
+        Map<TopicPartition, Long> positions = resource.currentPosition(endOffsets.keySet());
+        return endOffsets.entrySet().stream()
+                .allMatch(kv -> positions.containsKey(kv.getKey()) && positions.get(kv.getKey()) >= kv.getValue());
+    }
+
     private boolean isEndOfData(Map<TopicPartition, Long> endOffsets, Map<TopicPartition, OffsetAndMetadata> lastCommit) {
         return endOffsets.entrySet().stream()
                 .allMatch(kv -> {
@@ -132,15 +433,42 @@ public class BasicConsumeMessages<K, V> extends FuturisingAbstractKafkaTask<Abst
                 });
     }
 
-    private ConsumedMessage asConsumedRecord(ConsumerRecord<K, V> consumerRecord, Function<K, String> keyFn, Function<V, String> valueFn) {
-        return ImmutableConsumedMessage.builder()
-                .timestamp(consumerRecord.timestamp())
-                .offset(consumerRecord.offset())
-                .partition(consumerRecord.partition())
-                .key(keyFn.apply(consumerRecord.key()))
-                .message(valueFn.apply(consumerRecord.value()))
-                .headers(fromKafkaHeaders(consumerRecord.headers()))
-                .build();
-    }
 
+    /**
+     * A share of a parallel scan, run by whichever of a scan worker or the scanning task claims it first, or cancelled
+     * before either does once another share has failed
+     */
+    private static class ClaimableScan {
+        private final Runnable scan;
+        private final AtomicBoolean claimed;
+        private final CompletableFuture<Void> completion;
+
+        private ClaimableScan(Runnable scan) {
+            this.scan = scan;
+            this.claimed = new AtomicBoolean(false);
+            this.completion = new CompletableFuture<>();
+        }
+
+        private Void claim() {
+            if (claimed.compareAndSet(false, true)) {
+                try {
+                    scan.run();
+                    completion.complete(null);
+                } catch (Throwable e) {
+                    completion.completeExceptionally(e);
+                }
+            }
+            return null;
+        }
+
+        private void cancel() {
+            if (claimed.compareAndSet(false, true)) {
+                completion.cancel(false);
+            }
+        }
+
+        private CompletableFuture<Void> completion() {
+            return completion;
+        }
+    }
 }
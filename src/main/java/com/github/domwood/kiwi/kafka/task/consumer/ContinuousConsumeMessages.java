@@ -2,23 +2,24 @@ package com.github.domwood.kiwi.kafka.task.consumer;
 
 
 import com.github.domwood.kiwi.data.input.AbstractConsumerRequest;
-import com.github.domwood.kiwi.data.input.filter.MessageFilter;
 import com.github.domwood.kiwi.data.output.ConsumedMessage;
 import com.github.domwood.kiwi.data.output.ConsumerPosition;
 import com.github.domwood.kiwi.data.output.ConsumerResponse;
-import com.github.domwood.kiwi.data.output.ImmutableConsumedMessage;
 import com.github.domwood.kiwi.data.output.ImmutableConsumerResponse;
-import com.github.domwood.kiwi.kafka.filters.FilterBuilder;
+import com.github.domwood.kiwi.kafka.filters.FilterPlan;
+import com.github.domwood.kiwi.kafka.filters.FilterPlanner;
 import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
 import com.github.domwood.kiwi.kafka.task.FuturisingAbstractKafkaTask;
 import com.github.domwood.kiwi.kafka.task.KafkaContinuousTask;
 import com.github.domwood.kiwi.kafka.task.KafkaTaskUtils;
+import com.github.domwood.kiwi.kafka.task.KiwiWorkload;
+import com.github.domwood.kiwi.kafka.utils.DecodedConsumerRecord;
 import com.github.domwood.kiwi.kafka.utils.KafkaConsumerTracker;
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,18 +29,14 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.function.Predicate;
 
-import static com.github.domwood.kiwi.kafka.utils.KafkaUtils.fromKafkaHeaders;
 import static java.time.temporal.ChronoUnit.MILLIS;
 import static java.util.Collections.emptyList;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class ContinuousConsumeMessages<K, V>
         extends FuturisingAbstractKafkaTask<AbstractConsumerRequest, Void, KafkaConsumerResource<K, V>>
@@ -49,23 +46,35 @@ public class ContinuousConsumeMessages<K, V>
     private static final Integer BATCH_SIZE = 100;
     private static final Integer MAX_MESSAGES = 500;
     private static final Integer MAX_MESSAGE_BYTES = 500 * 2000 * 16;
+    private static final long PAUSED_POLL_MS = 1000L;
 
     private final AtomicBoolean closed;
     private final AtomicBoolean paused;
+    private final AtomicBoolean pausedPoll;
+    private final KiwiWorkload workload;
 
     private Consumer<ConsumerResponse> consumer;
-    private final List<MessageFilter> filters;
-    private final Map<TopicPartition, Long> currentPosition;
+    private final AtomicReference<FilterPlan<K, V>> filterPlan;
 
     public ContinuousConsumeMessages(final KafkaConsumerResource<K, V> resource,
                                      final AbstractConsumerRequest input) {
+        this(resource, input, KiwiWorkload.STREAM);
+    }
+
+    /**
+     * @param workload whether the messages are consumed for a live view or a download
+     */
+    public ContinuousConsumeMessages(final KafkaConsumerResource<K, V> resource,
+                                     final AbstractConsumerRequest input,
+                                     final KiwiWorkload workload) {
         super(resource, input);
+        this.workload = workload;
 
         this.consumer = message -> logger.warn("No consumer attached to kafka task");
         this.paused = new AtomicBoolean(false);
         this.closed = new AtomicBoolean(false);
-        this.filters = new ArrayList<>(input.filters());
-        this.currentPosition = new HashMap<>();
+        this.pausedPoll = new AtomicBoolean(false);
+        this.filterPlan = new AtomicReference<>(planFilters(input));
     }
 
     @Override
@@ -79,9 +88,14 @@ public class ContinuousConsumeMessages<K, V>
         this.paused.set(true);
     }
 
+    /**
+     * The partitions are resumed by the polling thread, a paused poll is woken up so it happens straight away
+     */
     @Override
     public void unpause() {
-        this.paused.set(false);
+        if (this.paused.getAndSet(false) && this.pausedPoll.get()) {
+            this.resource.wakeup();
+        }
     }
 
     @Override
@@ -91,8 +105,7 @@ public class ContinuousConsumeMessages<K, V>
 
     @Override
     public void update(AbstractConsumerRequest input) {
-        this.filters.clear();
-        this.filters.addAll(input.filters());
+        this.filterPlan.set(planFilters(input));
     }
 
     @Override
@@ -100,26 +113,32 @@ public class ContinuousConsumeMessages<K, V>
         this.consumer = consumer;
     }
 
+    @Override
+    protected KiwiWorkload workload() {
+        return this.workload;
+    }
+
     @Override
     protected Void delegateExecuteSync() {
 
         try {
             KafkaConsumerTracker tracker = KafkaTaskUtils.subscribeAndSeek(resource, input.topics(), input.consumerStartPosition());
-            Pair<Map<TopicPartition, Long>, ConsumerPosition> consumerPosition = tracker.gatherUpdatedPosition(resource);
-            forward(emptyList(), consumerPosition.getRight());
-            this.currentPosition.putAll(consumerPosition.getLeft());
+            forward(emptyList(), tracker.gatherUpdatedPosition(resource).getRight());
 
-            boolean wasPaused = false;
+            boolean partitionsPaused = false;
             int idleCount = 0;
             while (!this.isClosed()) {
                 if (this.paused.get()) {
-                    MILLISECONDS.sleep(20);
-                    wasPaused = true;
+                    //Keeps polling whilst paused so the consumer stays in its group, paused partitions return no records
+                    resource.pause(resource.assignment());
+                    partitionsPaused = true;
+                    pollWhilePaused();
                 } else {
-                    ConsumerRecords<K, V> records = resource.poll(Duration.of(Integer.max(10 ^ (idleCount + 1), 5000), MILLIS));
-
-                    if (wasPaused) pauseCheck(tracker.assignedPartitions());
-                    wasPaused = false;
+                    if (partitionsPaused) {
+                        resource.resume(resource.paused());
+                        partitionsPaused = false;
+                    }
+                    ConsumerRecords<K, V> records = poll(Duration.of(Integer.max(10 ^ (idleCount + 1), 5000), MILLIS));
 
                     if (records.isEmpty()) {
                         idleCount++;
@@ -127,7 +146,9 @@ public class ContinuousConsumeMessages<K, V>
                         forward(emptyList(), tracker.gatherUpdatedPosition(resource).getRight());
                     } else {
                         idleCount = 0;
-                        Predicate<ConsumerRecord<K, V>> filter = FilterBuilder.compileFilters(this.filters, resource::convertKafkaKey, resource::convertKafkaValue);
+                        FilterPlan<K, V> filter = this.filterPlan.get();
+                        Function<K, String> keyDecoder = resource::convertKafkaKey;
+                        Function<V, String> valueDecoder = resource::convertKafkaValue;
                         ArrayList<ConsumedMessage> messages = new ArrayList<>(BATCH_SIZE);
 
                         Iterator<ConsumerRecord<K, V>> recordIterator = records.iterator();
@@ -137,10 +158,14 @@ public class ContinuousConsumeMessages<K, V>
                         while (recordIterator.hasNext() && !this.isClosed()) {
                             commitAfterEndOfPoll = true;
                             ConsumerRecord<K, V> kafkaRecord = recordIterator.next();
+                            if (tracker.isPastBoundedEnd(new TopicPartition(kafkaRecord.topic(), kafkaRecord.partition()), kafkaRecord.offset())) {
+                                continue;
+                            }
                             tracker.incrementRecordCount();
 
-                            if (filter.test(kafkaRecord)) {
-                                ConsumedMessage consumedMessage = asConsumedRecord(kafkaRecord, resource::convertKafkaKey, resource::convertKafkaValue);
+                            DecodedConsumerRecord<K, V> decodedRecord = new DecodedConsumerRecord<>(kafkaRecord, keyDecoder, valueDecoder);
+                            if (filter.test(decodedRecord)) {
+                                ConsumedMessage consumedMessage = decodedRecord.toConsumedMessage();
                                 messages.add(consumedMessage);
                                 toCommit.put(new TopicPartition(kafkaRecord.topic(), kafkaRecord.partition()), new OffsetAndMetadata(kafkaRecord.offset()));
                                 totalBatchSize += Optional.ofNullable(consumedMessage.message()).orElse("").length() * 16;
@@ -167,6 +192,42 @@ public class ContinuousConsumeMessages<K, V>
         return null;
     }
 
+    private void pollWhilePaused() {
+        this.pausedPoll.set(true);
+        ConsumerRecords<K, V> records;
+        try {
+            records = poll(Duration.of(PAUSED_POLL_MS, MILLIS));
+        } finally {
+            this.pausedPoll.set(false);
+        }
+        if (!records.isEmpty()) {
+            logger.warn("Polled {} records from newly assigned partitions whilst paused, seeking back to them", records.count());
+            resource.seek(earliestOffsets(records));
+        }
+    }
+
+    /**
+     * A wakeup from unpausing may land just after a paused poll returns, so it is absorbed by whichever poll follows
+     */
+    private ConsumerRecords<K, V> poll(Duration timeout) {
+        try {
+            return resource.poll(timeout);
+        } catch (WakeupException e) {
+            logger.debug("Poll woken up");
+            return ConsumerRecords.empty();
+        }
+    }
+
+    private Map<TopicPartition, Long> earliestOffsets(ConsumerRecords<K, V> records) {
+        Map<TopicPartition, Long> earliest = new HashMap<>();
+        records.partitions().forEach(tp -> earliest.put(tp, records.records(tp).get(0).offset()));
+        return earliest;
+    }
+
+    private FilterPlan<K, V> planFilters(AbstractConsumerRequest request) {
+        return FilterPlanner.plan(request.filters());
+    }
+
     private void logCommit(Map<TopicPartition, OffsetAndMetadata> offsetData, Exception exception) {
         if (exception != null) {
             logger.error("Failed to commit offset ", exception);
@@ -175,17 +236,6 @@ public class ContinuousConsumeMessages<K, V>
         }
     }
 
-    private ConsumedMessage asConsumedRecord(ConsumerRecord<K, V> consumerRecord, Function<K, String> keyFn, Function<V, String> valueFn) {
-        return ImmutableConsumedMessage.builder()
-                .timestamp(consumerRecord.timestamp())
-                .offset(consumerRecord.offset())
-                .partition(consumerRecord.partition())
-                .key(keyFn.apply(consumerRecord.key()))
-                .message(valueFn.apply(consumerRecord.value()))
-                .headers(fromKafkaHeaders(consumerRecord.headers()))
-                .build();
-    }
-
     private void forwardAndMaybeCommit(KafkaConsumerResource<K, V> resource,
                                        List<ConsumedMessage> messages,
                                        Map<TopicPartition, OffsetAndMetadata> toCommit,
@@ -194,9 +244,7 @@ public class ContinuousConsumeMessages<K, V>
         logger.debug("Message batch size {} forwarding to consumers", messages.size());
 
         if (!this.isClosed()) {
-            Pair<Map<TopicPartition, Long>, ConsumerPosition> consumerPosition = tracker.gatherUpdatedPosition(resource);
-            this.currentPosition.putAll(consumerPosition.getLeft());
-            forward(messages, consumerPosition.getRight());
+            forward(messages, tracker.gatherUpdatedPosition(resource).getRight());
 
             if (resource.isCommittingConsumer()) {
                 resource.commitAsync(toCommit, this::logCommit);
@@ -207,16 +255,6 @@ public class ContinuousConsumeMessages<K, V>
         }
     }
 
-    private void pauseCheck(Set<TopicPartition> topicPartitions) {
-        Map<TopicPartition, Long> latestPosition = resource.currentPosition(topicPartitions);
-        boolean positionChanged = latestPosition.keySet().stream()
-                .anyMatch(aLong -> !Objects.equals(currentPosition.get(aLong), latestPosition.get(aLong)));
-        if (positionChanged) {
-            logger.debug("Position has changed since pause, seeking back to original position");
-            resource.seek(currentPosition);
-        }
-    }
-
     private void forward(List<ConsumedMessage> messages,
                          ConsumerPosition position) {
         if (!this.isClosed()) {
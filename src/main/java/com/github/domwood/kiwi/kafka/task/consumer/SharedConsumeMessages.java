@@ -0,0 +1,143 @@
+package com.github.domwood.kiwi.kafka.task.consumer;
+
+import com.github.domwood.kiwi.data.input.AbstractConsumerRequest;
+import com.github.domwood.kiwi.data.output.ConsumedMessage;
+import com.github.domwood.kiwi.data.output.ConsumerPosition;
+import com.github.domwood.kiwi.data.output.ConsumerResponse;
+import com.github.domwood.kiwi.data.output.ImmutableConsumerResponse;
+import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
+import com.github.domwood.kiwi.kafka.task.FuturisingAbstractKafkaTask;
+import com.github.domwood.kiwi.kafka.task.KafkaContinuousTask;
+import com.github.domwood.kiwi.kafka.task.KafkaTaskUtils;
+import com.github.domwood.kiwi.kafka.task.KiwiWorkload;
+import com.github.domwood.kiwi.kafka.utils.DecodedConsumerRecord;
+import com.github.domwood.kiwi.kafka.utils.KafkaConsumerTracker;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.time.temporal.ChronoUnit.MILLIS;
+import static java.util.Collections.emptyList;
+
+/**
+ * A single consumer tailing a set of topics on behalf of any number of sessions. Each record is decoded at most once,
+ * then tested against the filters of every {@link SharedConsumerSubscription}, and each subscription is handed its
+ * own batch of matches. The consumer closes once its last subscription detaches.
+ */
+public class SharedConsumeMessages<K, V> extends FuturisingAbstractKafkaTask<AbstractConsumerRequest, Void, KafkaConsumerResource<K, V>> {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final long POLL_TIMEOUT_MS = 500L;
+
+    private final int queueSize;
+    private final List<SharedConsumerSubscription<K, V>> subscriptions;
+    private final AtomicBoolean closed;
+
+    public SharedConsumeMessages(final KafkaConsumerResource<K, V> resource,
+                                 final AbstractConsumerRequest input,
+                                 final int queueSize) {
+        super(resource, input);
+        this.queueSize = queueSize;
+        this.subscriptions = new CopyOnWriteArrayList<>();
+        this.closed = new AtomicBoolean(false);
+    }
+
+    /**
+     * @return a subscription delivering to the consumer, or empty if this shared consumer has already closed
+     */
+    public synchronized Optional<KafkaContinuousTask<AbstractConsumerRequest, ConsumerResponse>> attach(final AbstractConsumerRequest request,
+                                                                                                     final Consumer<ConsumerResponse> consumer) {
+        if (this.isClosed()) {
+            return Optional.empty();
+        }
+        SharedConsumerSubscription<K, V> subscription = new SharedConsumerSubscription<>(this, request, queueSize);
+        subscription.registerConsumer(consumer);
+        this.subscriptions.add(subscription);
+        logger.info("Subscription attached to shared consumer of {}, {} subscriptions", input.topics(), subscriptions.size());
+        return Optional.of(subscription);
+    }
+
+    synchronized void detach(final SharedConsumerSubscription<K, V> subscription) {
+        this.subscriptions.remove(subscription);
+        logger.info("Subscription detached from shared consumer of {}, {} subscriptions", input.topics(), subscriptions.size());
+        if (this.subscriptions.isEmpty()) {
+            this.close();
+        }
+    }
+
+    public void close() {
+        logger.info("Shared consumer of {} set to close, closing...", input.topics());
+        this.closed.set(true);
+    }
+
+    public boolean isClosed() {
+        return this.closed.get();
+    }
+
+    public int subscriptionCount() {
+        return this.subscriptions.size();
+    }
+
+    @Override
+    protected KiwiWorkload workload() {
+        return KiwiWorkload.STREAM;
+    }
+
+    @Override
+    protected Void delegateExecuteSync() {
+        try {
+            KafkaConsumerTracker tracker = KafkaTaskUtils.subscribeAndSeek(resource, input.topics(), input.consumerStartPosition());
+            Function<K, String> keyDecoder = resource::convertKafkaKey;
+            Function<V, String> valueDecoder = resource::convertKafkaValue;
+
+            while (!this.isClosed()) {
+                ConsumerRecords<K, V> records = resource.poll(Duration.of(POLL_TIMEOUT_MS, MILLIS));
+                List<SharedConsumerSubscription<K, V>> current = new ArrayList<>(this.subscriptions);
+                Map<SharedConsumerSubscription<K, V>, List<ConsumedMessage>> batches = new IdentityHashMap<>();
+
+                for (ConsumerRecord<K, V> kafkaRecord : records) {
+                    tracker.incrementRecordCount();
+                    DecodedConsumerRecord<K, V> decodedRecord = new DecodedConsumerRecord<>(kafkaRecord, keyDecoder, valueDecoder);
+                    ConsumedMessage consumedMessage = null;
+                    for (SharedConsumerSubscription<K, V> subscription : current) {
+                        if (subscription.filterPlan().test(decodedRecord)) {
+                            if (consumedMessage == null) {
+                                consumedMessage = decodedRecord.toConsumedMessage();
+                            }
+                            batches.computeIfAbsent(subscription, s -> new ArrayList<>()).add(consumedMessage);
+                        }
+                    }
+                }
+
+                ConsumerPosition position = tracker.gatherUpdatedPosition(resource).getRight();
+                for (SharedConsumerSubscription<K, V> subscription : current) {
+                    subscription.offer(ImmutableConsumerResponse.builder()
+                            .messages(batches.getOrDefault(subscription, emptyList()))
+                            .position(position)
+                            .build());
+                }
+            }
+
+            this.resource.unsubscribe();
+        } catch (Exception e) {
+            logger.error("Error occurred during shared kafka consuming", e);
+        } finally {
+            this.close();
+            this.subscriptions.forEach(SharedConsumerSubscription::close);
+        }
+        logger.info("Shared consumer task has completed");
+        return null;
+    }
+}
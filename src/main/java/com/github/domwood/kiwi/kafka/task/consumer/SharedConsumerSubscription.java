@@ -0,0 +1,174 @@
+package com.github.domwood.kiwi.kafka.task.consumer;
+
+import com.github.domwood.kiwi.data.input.AbstractConsumerRequest;
+import com.github.domwood.kiwi.data.output.ConsumerResponse;
+import com.github.domwood.kiwi.data.output.ImmutableConsumerResponse;
+import com.github.domwood.kiwi.kafka.filters.FilterPlan;
+import com.github.domwood.kiwi.kafka.filters.FilterPlanner;
+import com.github.domwood.kiwi.kafka.task.KafkaContinuousTask;
+import com.github.domwood.kiwi.kafka.task.KiwiWorkload;
+import com.github.domwood.kiwi.utilities.FutureUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A single session's view of a {@link SharedConsumeMessages}, with its own filters and its own bounded queue of
+ * responses. Queued responses are drained on a worker from the shared stream pool only whilst there are any to
+ * deliver, so an idle subscription holds no thread. When the session falls behind the oldest queued response is
+ * dropped, so a slow session never stalls the shared consumer or the other sessions, and the number of messages
+ * dropped is reported on each response delivered after.
+ */
+public class SharedConsumerSubscription<K, V> implements KafkaContinuousTask<AbstractConsumerRequest, ConsumerResponse> {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final SharedConsumeMessages<K, V> source;
+    private final AtomicReference<FilterPlan<K, V>> filterPlan;
+    private final int queueSize;
+    private final Deque<ConsumerResponse> queue;
+    private final AtomicBoolean closed;
+    private final AtomicBoolean paused;
+    private final AtomicBoolean draining;
+    private final AtomicLong dropped;
+
+    private volatile Consumer<ConsumerResponse> consumer;
+
+    SharedConsumerSubscription(final SharedConsumeMessages<K, V> source,
+                               final AbstractConsumerRequest input,
+                               final int queueSize) {
+        this.source = source;
+        this.filterPlan = new AtomicReference<>(FilterPlanner.plan(input.filters()));
+        this.queueSize = Math.max(1, queueSize);
+        this.queue = new ArrayDeque<>(this.queueSize);
+        this.closed = new AtomicBoolean(false);
+        this.paused = new AtomicBoolean(false);
+        this.draining = new AtomicBoolean(false);
+        this.dropped = new AtomicLong(0);
+        this.consumer = response -> logger.warn("No consumer attached to shared subscription");
+    }
+
+    @Override
+    public void close() {
+        if (!this.closed.getAndSet(true)) {
+            logger.info("Shared subscription closing, detaching from shared consumer");
+            synchronized (queue) {
+                this.queue.clear();
+            }
+            this.source.detach(this);
+        }
+    }
+
+    @Override
+    public void pause() {
+        this.paused.set(true);
+    }
+
+    @Override
+    public void unpause() {
+        this.paused.set(false);
+        this.scheduleDelivery();
+    }
+
+    @Override
+    public void update(final AbstractConsumerRequest input) {
+        this.filterPlan.set(FilterPlanner.plan(input.filters()));
+    }
+
+    @Override
+    public void registerConsumer(final Consumer<ConsumerResponse> consumer) {
+        this.consumer = consumer;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.closed.get();
+    }
+
+    FilterPlan<K, V> filterPlan() {
+        return this.filterPlan.get();
+    }
+
+    /**
+     * @return the number of messages dropped so far because the session fell behind
+     */
+    long droppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Queues a response for delivery. A response carrying only a position is folded into the newest queued
+     * response, otherwise the oldest queued response is dropped if the queue is full.
+     */
+    void offer(final ConsumerResponse response) {
+        if (this.isClosed()) return;
+        synchronized (queue) {
+            ConsumerResponse newest = this.queue.peekLast();
+            if (response.messages().isEmpty() && newest != null) {
+                this.queue.pollLast();
+                this.queue.offerLast(ImmutableConsumerResponse.copyOf(newest).withPosition(response.position()));
+            } else {
+                while (this.queue.size() >= this.queueSize) {
+                    logDropped(this.queue.pollFirst());
+                }
+                this.queue.offerLast(response);
+            }
+        }
+        this.scheduleDelivery();
+    }
+
+    private void scheduleDelivery() {
+        if (this.isClosed() || this.paused.get() || !this.draining.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture<Void> delivery = FutureUtils.supplyAsync(KiwiWorkload.STREAM, this::deliver);
+        if (delivery.isCompletedExceptionally()) {
+            //The stream workers are all busy, responses stay queued until the next offer or unpause
+            this.draining.set(false);
+            logger.debug("No stream worker free to deliver shared subscription responses, will retry");
+        }
+    }
+
+    private Void deliver() {
+        try {
+            ConsumerResponse response;
+            while ((response = next()) != null) {
+                this.consumer.accept(response);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to deliver shared subscription response, closing subscription", e);
+            this.draining.set(false);
+            this.close();
+        }
+        return null;
+    }
+
+    /**
+     * @return the next response to deliver, or null having released delivery, if closed, paused or none are queued
+     */
+    private ConsumerResponse next() {
+        synchronized (queue) {
+            ConsumerResponse response = this.isClosed() || this.paused.get() ? null : this.queue.pollFirst();
+            if (response == null) {
+                this.draining.set(false);
+                return null;
+            }
+            long droppedMessages = this.dropped.get();
+            return droppedMessages == 0 ? response : ImmutableConsumerResponse.copyOf(response).withDroppedMessages(droppedMessages);
+        }
+    }
+
+    private void logDropped(final ConsumerResponse response) {
+        long before = this.dropped.getAndAdd(response.messages().size());
+        if (before == 0 || before / 1000 < this.dropped.get() / 1000) {
+            logger.warn("Shared subscription is behind, dropped {} messages so far", this.dropped.get());
+        }
+    }
+}
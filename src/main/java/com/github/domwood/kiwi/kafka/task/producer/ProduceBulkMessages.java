@@ -0,0 +1,191 @@
+package com.github.domwood.kiwi.kafka.task.producer;
+
+import com.github.domwood.kiwi.data.input.BulkProducerRequest;
+import com.github.domwood.kiwi.data.input.ProducerRequest;
+import com.github.domwood.kiwi.data.output.BulkProducerResponse;
+import com.github.domwood.kiwi.data.output.ImmutableBulkProducerResponse;
+import com.github.domwood.kiwi.data.output.ImmutablePartitionOffsetRange;
+import com.github.domwood.kiwi.data.output.PartitionOffsetRange;
+import com.github.domwood.kiwi.kafka.resources.KafkaProducerResource;
+import com.github.domwood.kiwi.kafka.task.FuturisingAbstractKafkaTask;
+import com.github.domwood.kiwi.kafka.task.KiwiWorkload;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.github.domwood.kiwi.kafka.utils.KafkaUtils.toKafkaHeaders;
+import static java.util.Comparator.comparingInt;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Produces every message read from the iterator, sending without waiting on each result so the producer batches
+ * them, but with at most maxInFlight sends awaiting acknowledgement. Once the window is full reading stops until a
+ * send completes, so a fast reader can't queue more than the window of messages in memory. A message that can't be
+ * read or sent is counted as failed and the rest carry on.
+ */
+public class ProduceBulkMessages<K, V> extends FuturisingAbstractKafkaTask<BulkProducerRequest, BulkProducerResponse, KafkaProducerResource<K, V>> {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final long PROGRESS_LOG_INTERVAL = 10_000L;
+
+    private final Iterator<ProducerRequest> messages;
+    private final int maxInFlight;
+    private final AtomicLong produced;
+    private final AtomicLong failed;
+    private final AtomicBoolean firstFailureLogged;
+    private final AtomicReference<String> firstError;
+    private final Map<Integer, PartitionOffsets> partitionOffsets;
+
+    public ProduceBulkMessages(KafkaProducerResource<K, V> resource,
+                               BulkProducerRequest input,
+                               Iterator<ProducerRequest> messages,
+                               int maxInFlight) {
+        super(resource, input);
+        this.messages = messages;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.produced = new AtomicLong(0);
+        this.failed = new AtomicLong(0);
+        this.firstFailureLogged = new AtomicBoolean(false);
+        this.firstError = new AtomicReference<>();
+        this.partitionOffsets = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    protected KiwiWorkload workload() {
+        return KiwiWorkload.SCAN;
+    }
+
+    @Override
+    protected BulkProducerResponse delegateExecuteSync() {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long read = 0;
+
+        try {
+            while (messages.hasNext()) {
+                read++;
+                ProducerRecord<K, V> producerRecord;
+                try {
+                    producerRecord = asProducerRecord(messages.next());
+                } catch (IllegalArgumentException e) {
+                    onFailure(e);
+                    continue;
+                }
+
+                inFlight.acquire();
+                try {
+                    resource.send(producerRecord).whenComplete((metadata, e) -> {
+                        //Recorded before the permit is released, so the result is counted once all permits are back
+                        try {
+                            if (e != null) {
+                                onFailure(e);
+                            } else {
+                                onSuccess(metadata);
+                            }
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (Exception e) {
+                    inFlight.release();
+                    onFailure(e);
+                }
+
+                if (read % PROGRESS_LOG_INTERVAL == 0) {
+                    logger.info("Bulk produce to {} has read {} messages, {} produced, {} failed", input.topic(), read, produced.get(), failed.get());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            onFailure(e);
+        } finally {
+            awaitInFlight(inFlight);
+        }
+
+        logger.info("Bulk produce to {} completed, read {} messages, {} produced, {} failed", input.topic(), read, produced.get(), failed.get());
+
+        return ImmutableBulkProducerResponse.builder()
+                .topic(input.topic())
+                .messagesRead(read)
+                .messagesProduced(produced.get())
+                .messagesFailed(failed.get())
+                .partitions(partitionRanges())
+                .firstError(Optional.ofNullable(firstError.get()))
+                .build();
+    }
+
+    private ProducerRecord<K, V> asProducerRecord(ProducerRequest message) {
+        K key = resource.convertKafkaKey(message.key());
+        V recordValue = message.payload().map(resource::convertKafkaValue).orElse(null);
+        return new ProducerRecord<>(input.topic(), null, key, recordValue, toKafkaHeaders(message.headers()));
+    }
+
+    private void awaitInFlight(Semaphore inFlight) {
+        try {
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted awaiting {} in flight messages to {}", maxInFlight - inFlight.availablePermits(), input.topic());
+        }
+    }
+
+    private void onSuccess(RecordMetadata metadata) {
+        produced.incrementAndGet();
+        partitionOffsets.computeIfAbsent(metadata.partition(), PartitionOffsets::new).record(metadata.offset());
+    }
+
+    /**
+     * Only the first failure is logged, so a large upload that fails throughout doesn't flood the log
+     */
+    private void onFailure(Throwable e) {
+        failed.incrementAndGet();
+        if (firstFailureLogged.compareAndSet(false, true)) {
+            firstError.set(e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+            logger.warn("Bulk produce to {} failed to produce a message", input.topic(), e);
+        }
+    }
+
+    private List<PartitionOffsetRange> partitionRanges() {
+        return partitionOffsets.values().stream()
+                .map(PartitionOffsets::asRange)
+                .sorted(comparingInt(PartitionOffsetRange::partition))
+                .collect(toList());
+    }
+
+    private static class PartitionOffsets {
+        private final int partition;
+        private long firstOffset = Long.MAX_VALUE;
+        private long lastOffset = Long.MIN_VALUE;
+        private long count = 0;
+
+        private PartitionOffsets(int partition) {
+            this.partition = partition;
+        }
+
+        private synchronized void record(long offset) {
+            firstOffset = Math.min(firstOffset, offset);
+            lastOffset = Math.max(lastOffset, offset);
+            count++;
+        }
+
+        private synchronized PartitionOffsetRange asRange() {
+            return ImmutablePartitionOffsetRange.builder()
+                    .partition(partition)
+                    .firstOffset(firstOffset)
+                    .lastOffset(lastOffset)
+                    .messageCount(count)
+                    .build();
+        }
+    }
+}
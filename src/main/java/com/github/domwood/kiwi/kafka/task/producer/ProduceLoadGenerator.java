@@ -0,0 +1,250 @@
+package com.github.domwood.kiwi.kafka.task.producer;
+
+import com.github.domwood.kiwi.data.input.LoadGeneratorRequest;
+import com.github.domwood.kiwi.data.output.ImmutableLoadGeneratorReport;
+import com.github.domwood.kiwi.data.output.LoadGeneratorReport;
+import com.github.domwood.kiwi.kafka.resources.KafkaProducerResource;
+import com.github.domwood.kiwi.kafka.task.FuturisingAbstractKafkaTask;
+import com.github.domwood.kiwi.kafka.task.KafkaContinuousTask;
+import com.github.domwood.kiwi.kafka.task.KiwiWorkload;
+import com.github.domwood.kiwi.kafka.utils.MessageTemplate;
+import com.google.common.util.concurrent.RateLimiter;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Produces messages generated from a template at a target rate for a set duration, or until closed, reporting the
+ * achieved throughput and produce latency to its consumer each second and on completion. Sends don't wait on each
+ * other, so the producer batches them as it would any other traffic.
+ */
+public class ProduceLoadGenerator extends FuturisingAbstractKafkaTask<LoadGeneratorRequest, LoadGeneratorReport, KafkaProducerResource<String, String>>
+        implements KafkaContinuousTask<LoadGeneratorRequest, LoadGeneratorReport> {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long PERMIT_TIMEOUT_MS = 100L;
+    private static final long COMPLETION_TIMEOUT_MS = 30_000L;
+
+    private final MessageTemplate template;
+    private final RateLimiter rateLimiter;
+    private final AtomicBoolean closed;
+    private final AtomicBoolean paused;
+    private final AtomicLong produced;
+    private final AtomicLong failed;
+    private final AtomicLong bytes;
+    private final AtomicLong inFlight;
+    private final LatencyReservoir latencies;
+    private final AtomicReference<LoadGeneratorReport> latestReport;
+    private Consumer<LoadGeneratorReport> consumer;
+    private volatile long startedAt;
+
+    public ProduceLoadGenerator(KafkaProducerResource<String, String> resource, LoadGeneratorRequest input) {
+        super(resource, input);
+        this.template = MessageTemplate.compile(input.messageTemplate());
+        this.rateLimiter = RateLimiter.create(input.messagesPerSecond());
+        this.closed = new AtomicBoolean(false);
+        this.paused = new AtomicBoolean(false);
+        this.produced = new AtomicLong(0);
+        this.failed = new AtomicLong(0);
+        this.bytes = new AtomicLong(0);
+        this.inFlight = new AtomicLong(0);
+        this.latencies = new LatencyReservoir();
+        this.latestReport = new AtomicReference<>();
+        this.consumer = report -> {
+        };
+        this.startedAt = System.nanoTime();
+    }
+
+    @Override
+    public void close() {
+        logger.info("Load generator for {} set to close, closing...", input.topic());
+        this.closed.set(true);
+    }
+
+    @Override
+    public void pause() {
+        this.paused.set(true);
+    }
+
+    @Override
+    public void unpause() {
+        this.paused.set(false);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.closed.get();
+    }
+
+    /**
+     * Changes the target rate, other settings are fixed once the generator has started
+     */
+    @Override
+    public void update(LoadGeneratorRequest input) {
+        this.rateLimiter.setRate(input.messagesPerSecond());
+    }
+
+    @Override
+    public void registerConsumer(Consumer<LoadGeneratorReport> consumer) {
+        this.consumer = consumer;
+    }
+
+    public LoadGeneratorReport latestReport() {
+        LoadGeneratorReport report = latestReport.get();
+        return report != null ? report : report(false);
+    }
+
+    @Override
+    protected KiwiWorkload workload() {
+        return KiwiWorkload.SCAN;
+    }
+
+    @Override
+    protected LoadGeneratorReport delegateExecuteSync() {
+        this.startedAt = System.nanoTime();
+        long endAt = startedAt + TimeUnit.SECONDS.toNanos(input.durationSeconds());
+        long nextReportAt = startedAt + REPORT_INTERVAL_NANOS;
+        long sequence = 0;
+
+        logger.info("Generating load to {} at {} messages per second for {}s", input.topic(), input.messagesPerSecond(), input.durationSeconds());
+
+        try {
+            while (!this.isClosed() && System.nanoTime() < endAt) {
+                if (System.nanoTime() >= nextReportAt) {
+                    publish(report(false));
+                    nextReportAt += REPORT_INTERVAL_NANOS;
+                }
+                if (this.paused.get()) {
+                    TimeUnit.MILLISECONDS.sleep(PERMIT_TIMEOUT_MS);
+                } else if (rateLimiter.tryAcquire(PERMIT_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    send(sequence++);
+                }
+            }
+            awaitInFlight();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Load generator for {} was interrupted", input.topic());
+        } finally {
+            this.close();
+        }
+
+        LoadGeneratorReport report = report(true);
+        publish(report);
+        logger.info("Load generator for {} completed, {}", input.topic(), report);
+        return report;
+    }
+
+    private void send(long sequence) {
+        String key = "key-" + ThreadLocalRandom.current().nextInt(Math.max(1, input.keyCardinality()));
+        String value = template.render(sequence, key, System.currentTimeMillis());
+        long sentAt = System.nanoTime();
+        inFlight.incrementAndGet();
+        try {
+            resource.send(new ProducerRecord<>(input.topic(), key, value))
+                    .whenComplete((metadata, e) -> onComplete(metadata, e, sentAt));
+        } catch (Exception e) {
+            onComplete(null, e, sentAt);
+        }
+    }
+
+    private void onComplete(RecordMetadata metadata, Throwable e, long sentAt) {
+        if (e != null) {
+            if (failed.getAndIncrement() == 0) {
+                logger.warn("Load generator for {} failed to produce", input.topic(), e);
+            }
+        } else {
+            latencies.record(System.nanoTime() - sentAt);
+            produced.incrementAndGet();
+            bytes.addAndGet(Math.max(0, metadata.serializedKeySize()) + Math.max(0, metadata.serializedValueSize()));
+        }
+        inFlight.decrementAndGet();
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + COMPLETION_TIMEOUT_MS;
+        while (inFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    private void publish(LoadGeneratorReport report) {
+        this.latestReport.set(report);
+        try {
+            this.consumer.accept(report);
+        } catch (Exception e) {
+            logger.warn("Failed to publish load generator report", e);
+        }
+    }
+
+    private LoadGeneratorReport report(boolean finished) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startedAt);
+        double elapsedSeconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        long[] sortedLatencies = latencies.sortedSnapshot();
+        return ImmutableLoadGeneratorReport.builder()
+                .topic(input.topic())
+                .finished(finished)
+                .elapsedMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .messagesProduced(produced.get())
+                .messagesFailed(failed.get())
+                .bytesProduced(bytes.get())
+                .messagesPerSecond(produced.get() / elapsedSeconds)
+                .bytesPerSecond(bytes.get() / elapsedSeconds)
+                .latencyP50Ms(percentileMs(sortedLatencies, 0.50))
+                .latencyP95Ms(percentileMs(sortedLatencies, 0.95))
+                .latencyP99Ms(percentileMs(sortedLatencies, 0.99))
+                .latencyMaxMs(latencies.max() / (double) TimeUnit.MILLISECONDS.toNanos(1))
+                .build();
+    }
+
+    private static double percentileMs(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * A uniform sample of the recorded latencies, so percentiles of a long run are taken from a fixed amount of memory
+     */
+    private static class LatencyReservoir {
+        private static final int SIZE = 10_000;
+
+        private final long[] samples = new long[SIZE];
+        private long count = 0;
+        private long max = 0;
+
+        private synchronized void record(long latencyNanos) {
+            if (count < SIZE) {
+                samples[(int) count] = latencyNanos;
+            } else {
+                long index = ThreadLocalRandom.current().nextLong(count + 1);
+                if (index < SIZE) {
+                    samples[(int) index] = latencyNanos;
+                }
+            }
+            count++;
+            max = Math.max(max, latencyNanos);
+        }
+
+        private synchronized long max() {
+            return max;
+        }
+
+        private synchronized long[] sortedSnapshot() {
+            long[] snapshot = Arrays.copyOf(samples, (int) Math.min(count, SIZE));
+            Arrays.sort(snapshot);
+            return snapshot;
+        }
+    }
+}
@@ -36,22 +36,20 @@ public class ProduceSingleMessage<K, V> extends AbstractKafkaTask<ProducerReques
             logger.info("Attempting to {} to {} with key {}", input.payload().isPresent() ? "Produce" : "Tombstone", topic, key);
 
             return resource.send(producerRecord)
-                    .thenApply(result -> onSuccess(result, resource));
+                    .thenApply(this::onSuccess);
         } catch (Exception e) {
             logger.error("Failed to execute produce single message task", e);
             return failedFuture(e);
         }
     }
 
-    private ProducerResponse onSuccess(final RecordMetadata recordMetadata, final KafkaProducerResource<K, V> resource) {
+    private ProducerResponse onSuccess(final RecordMetadata recordMetadata) {
         String topic = recordMetadata.topic();
         int partition = recordMetadata.partition();
         long offset = recordMetadata.offset();
 
         logger.info("Produced successfully to {} on partition {} at offset {}", topic, partition, offset);
 
-        resource.discard();
-
         return ImmutableProducerResponse.builder()
                 .topic(topic)
                 .offset(offset)
@@ -0,0 +1,78 @@
+package com.github.domwood.kiwi.kafka.utils;
+
+import com.github.domwood.kiwi.data.output.ConsumedMessage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the latest {@code capacity} messages seen, ordered by timestamp with offset then partition as tie-breakers.
+ * <p>
+ * Backed by a min-heap so the oldest retained message is always at the head; a new message is admitted in O(log K)
+ * by replacing the head when it is newer. Not thread safe, callers sharing an instance must synchronise on it.
+ */
+public class BoundedMessageHeap {
+
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+
+    public static final Comparator<ConsumedMessage> MESSAGE_ORDER = Comparator
+            .comparingLong(ConsumedMessage::timestamp)
+            .thenComparingLong(ConsumedMessage::offset)
+            .thenComparingInt(ConsumedMessage::partition);
+
+    private final int capacity;
+    private final PriorityQueue<ConsumedMessage> heap;
+
+    public BoundedMessageHeap(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be greater than 0");
+        }
+        this.capacity = capacity;
+        this.heap = new PriorityQueue<>(Math.min(capacity, MAX_INITIAL_CAPACITY), MESSAGE_ORDER);
+    }
+
+    /**
+     * @return true if the message was retained
+     */
+    public boolean add(final ConsumedMessage message) {
+        if (heap.size() < capacity) {
+            heap.offer(message);
+            return true;
+        }
+        if (MESSAGE_ORDER.compare(message, heap.peek()) > 0) {
+            heap.poll();
+            heap.offer(message);
+            return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    public boolean isFull() {
+        return heap.size() >= capacity;
+    }
+
+    /**
+     * @return the oldest retained message, which is the next to be evicted when the heap is full
+     */
+    public Optional<ConsumedMessage> oldest() {
+        return Optional.ofNullable(heap.peek());
+    }
+
+    /**
+     * Drains the heap, returning the retained messages oldest first.
+     */
+    public List<ConsumedMessage> drainOrdered() {
+        List<ConsumedMessage> ordered = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ordered.add(heap.poll());
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.domwood.kiwi.kafka.utils;
+
+import com.github.domwood.kiwi.kafka.utils.ConsumerOffsetsDecoder.RecordKey;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * The committed offset of each group and partition, and the topics assigned to each group's members, as read from
+ * __consumer_offsets. Records are applied in order by a single reader, whilst queries can come from any thread.
+ */
+public class ConsumerGroupOffsetsIndex {
+
+    private final Map<String, Map<TopicPartition, Long>> committedOffsets;
+    private final Map<String, Set<String>> assignedTopics;
+    private final Map<String, Set<String>> topicGroups;
+
+    public ConsumerGroupOffsetsIndex() {
+        this.committedOffsets = new ConcurrentHashMap<>();
+        this.assignedTopics = new ConcurrentHashMap<>();
+        this.topicGroups = new ConcurrentHashMap<>();
+    }
+
+    public void apply(byte[] key, byte[] value) {
+        Optional<RecordKey> recordKey = ConsumerOffsetsDecoder.decodeKey(key);
+        if (!recordKey.isPresent()) {
+            return;
+        }
+        String group = recordKey.get().group();
+        if (recordKey.get().isOffsetCommit()) {
+            applyOffsetCommit(group, recordKey.get().topicPartition(), value);
+        } else {
+            applyGroupMetadata(group, value);
+        }
+    }
+
+    /**
+     * @return every group with committed offsets or members
+     */
+    public Set<String> groups() {
+        return ImmutableSet.<String>builder()
+                .addAll(committedOffsets.keySet())
+                .addAll(assignedTopics.keySet())
+                .build();
+    }
+
+    /**
+     * @return the groups with members assigned partitions of the topic
+     */
+    public Set<String> groupsForTopic(String topic) {
+        return ImmutableSet.copyOf(topicGroups.getOrDefault(topic, Collections.emptySet()));
+    }
+
+    public Map<TopicPartition, Long> committedOffsets(String group) {
+        return ImmutableMap.copyOf(committedOffsets.getOrDefault(group, Collections.emptyMap()));
+    }
+
+    public Map<String, Map<TopicPartition, Long>> committedOffsets() {
+        ImmutableMap.Builder<String, Map<TopicPartition, Long>> builder = ImmutableMap.builder();
+        committedOffsets.forEach((group, offsets) -> builder.put(group, ImmutableMap.copyOf(offsets)));
+        return builder.build();
+    }
+
+    private void applyOffsetCommit(String group, TopicPartition topicPartition, byte[] value) {
+        if (value == null) {
+            committedOffsets.computeIfPresent(group, (g, offsets) -> {
+                offsets.remove(topicPartition);
+                return offsets.isEmpty() ? null : offsets;
+            });
+        } else {
+            committedOffsets.computeIfAbsent(group, g -> new ConcurrentHashMap<>())
+                    .put(topicPartition, ConsumerOffsetsDecoder.decodeOffsetCommit(value));
+        }
+    }
+
+    private void applyGroupMetadata(String group, byte[] value) {
+        Set<String> topics = value == null ? Collections.emptySet() :
+                ConsumerOffsetsDecoder.decodeGroupMetadata(value).members().stream()
+                        .flatMap(member -> member.assignedTopics().stream())
+                        .collect(toSet());
+        Set<String> previous = value == null ? assignedTopics.remove(group) : assignedTopics.put(group, topics);
+
+        Optional.ofNullable(previous).orElse(Collections.emptySet()).stream()
+                .filter(topic -> !topics.contains(topic))
+                .forEach(topic -> topicGroups.computeIfPresent(topic, (t, groups) -> {
+                    groups.remove(group);
+                    return groups.isEmpty() ? null : groups;
+                }));
+        topics.forEach(topic -> topicGroups.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).add(group));
+    }
+}
@@ -0,0 +1,211 @@
+package com.github.domwood.kiwi.kafka.utils;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Decodes the records of the internal __consumer_offsets topic, as written by the group coordinator.
+ * Keys of version 0 and 1 are offset commits, keyed by group, topic and partition, and keys of version 2 are group
+ * metadata, keyed by group. A null value is a tombstone, the offset or group having been deleted.
+ * Only the fields needed to index groups are kept: the committed offset, and each member's assigned topics.
+ */
+public class ConsumerOffsetsDecoder {
+
+    public static final String CONSUMER_OFFSETS_TOPIC = "__consumer_offsets";
+    private static final String CONSUMER_PROTOCOL_TYPE = "consumer";
+
+    private ConsumerOffsetsDecoder() {
+    }
+
+    public static Optional<RecordKey> decodeKey(byte[] key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(key);
+        short version = buffer.getShort();
+        if (version == 0 || version == 1) {
+            String group = readString(buffer);
+            String topic = readString(buffer);
+            int partition = buffer.getInt();
+            return Optional.of(new RecordKey(group, new TopicPartition(topic, partition)));
+        } else if (version == 2) {
+            return Optional.of(new RecordKey(readString(buffer), null));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return the committed offset, which leads every version of the offset commit value
+     */
+    public static long decodeOffsetCommit(byte[] value) {
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        buffer.getShort();
+        return buffer.getLong();
+    }
+
+    public static GroupMetadata decodeGroupMetadata(byte[] value) {
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        short version = buffer.getShort();
+        String protocolType = readString(buffer);
+        int generation = buffer.getInt();
+        readNullableString(buffer);
+        readNullableString(buffer);
+        if (version >= 2) {
+            buffer.getLong();
+        }
+
+        int memberCount = buffer.getInt();
+        List<Member> members = new ArrayList<>(Math.max(0, memberCount));
+        for (int i = 0; i < memberCount; i++) {
+            String memberId = readString(buffer);
+            if (version >= 3) {
+                readNullableString(buffer);
+            }
+            String clientId = readString(buffer);
+            String clientHost = readString(buffer);
+            if (version >= 1) {
+                buffer.getInt();
+            }
+            buffer.getInt();
+            skipBytes(buffer);
+            ByteBuffer assignment = readBytes(buffer);
+            Set<String> topics = CONSUMER_PROTOCOL_TYPE.equals(protocolType) && assignment != null ?
+                    assignedTopics(assignment) : Collections.emptySet();
+            members.add(new Member(memberId, clientId, clientHost, topics));
+        }
+        return new GroupMetadata(protocolType, generation, members);
+    }
+
+    /**
+     * Reads the assigned partitions of a consumer protocol assignment, which lead every version of it
+     */
+    private static Set<String> assignedTopics(ByteBuffer assignment) {
+        Set<String> topics = new HashSet<>();
+        if (assignment.remaining() < 2) {
+            return topics;
+        }
+        assignment.getShort();
+        int topicCount = assignment.getInt();
+        for (int i = 0; i < topicCount; i++) {
+            topics.add(readString(assignment));
+            int partitionCount = assignment.getInt();
+            assignment.position(assignment.position() + Math.max(0, partitionCount) * Integer.BYTES);
+        }
+        return topics;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        String value = readNullableString(buffer);
+        return value == null ? "" : value;
+    }
+
+    private static String readNullableString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static ByteBuffer readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        ByteBuffer bytes = buffer.slice();
+        bytes.limit(length);
+        buffer.position(buffer.position() + length);
+        return bytes;
+    }
+
+    private static void skipBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        buffer.position(buffer.position() + Math.max(0, length));
+    }
+
+    public static class RecordKey {
+        private final String group;
+        private final TopicPartition topicPartition;
+
+        RecordKey(String group, TopicPartition topicPartition) {
+            this.group = group;
+            this.topicPartition = topicPartition;
+        }
+
+        public String group() {
+            return group;
+        }
+
+        public boolean isOffsetCommit() {
+            return topicPartition != null;
+        }
+
+        public TopicPartition topicPartition() {
+            return topicPartition;
+        }
+    }
+
+    public static class GroupMetadata {
+        private final String protocolType;
+        private final int generation;
+        private final List<Member> members;
+
+        GroupMetadata(String protocolType, int generation, List<Member> members) {
+            this.protocolType = protocolType;
+            this.generation = generation;
+            this.members = members;
+        }
+
+        public String protocolType() {
+            return protocolType;
+        }
+
+        public int generation() {
+            return generation;
+        }
+
+        public List<Member> members() {
+            return members;
+        }
+    }
+
+    public static class Member {
+        private final String memberId;
+        private final String clientId;
+        private final String clientHost;
+        private final Set<String> assignedTopics;
+
+        Member(String memberId, String clientId, String clientHost, Set<String> assignedTopics) {
+            this.memberId = memberId;
+            this.clientId = clientId;
+            this.clientHost = clientHost;
+            this.assignedTopics = assignedTopics;
+        }
+
+        public String memberId() {
+            return memberId;
+        }
+
+        public String clientId() {
+            return clientId;
+        }
+
+        public String clientHost() {
+            return clientHost;
+        }
+
+        public Set<String> assignedTopics() {
+            return assignedTopics;
+        }
+    }
+}
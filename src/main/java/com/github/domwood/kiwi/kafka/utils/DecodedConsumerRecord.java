@@ -0,0 +1,77 @@
+package com.github.domwood.kiwi.kafka.utils;
+
+import com.github.domwood.kiwi.data.output.ConsumedMessage;
+import com.github.domwood.kiwi.data.output.ImmutableConsumedMessage;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static com.github.domwood.kiwi.kafka.utils.KafkaUtils.fromKafkaHeaders;
+
+/**
+ * A view over a {@link ConsumerRecord} which decodes the key, value and headers at most once,
+ * and only when they are first asked for.
+ * <p>
+ * Filters and the {@link ConsumedMessage} built for a matching record share the same decoded values.
+ * Instances are intended to be used by a single thread, for the lifetime of a single record.
+ */
+public class DecodedConsumerRecord<K, V> {
+
+    private final ConsumerRecord<K, V> kafkaRecord;
+    private final Function<K, String> keyDecoder;
+    private final Function<V, String> valueDecoder;
+
+    private boolean keyDecoded;
+    private String key;
+    private boolean valueDecoded;
+    private String value;
+    private List<Pair<String, String>> headers;
+
+    public DecodedConsumerRecord(final ConsumerRecord<K, V> kafkaRecord,
+                                 final Function<K, String> keyDecoder,
+                                 final Function<V, String> valueDecoder) {
+        this.kafkaRecord = kafkaRecord;
+        this.keyDecoder = keyDecoder;
+        this.valueDecoder = valueDecoder;
+    }
+
+    public ConsumerRecord<K, V> record() {
+        return kafkaRecord;
+    }
+
+    public String key() {
+        if (!keyDecoded) {
+            key = keyDecoder.apply(kafkaRecord.key());
+            keyDecoded = true;
+        }
+        return key;
+    }
+
+    public String value() {
+        if (!valueDecoded) {
+            value = valueDecoder.apply(kafkaRecord.value());
+            valueDecoded = true;
+        }
+        return value;
+    }
+
+    public List<Pair<String, String>> headers() {
+        if (headers == null) {
+            headers = fromKafkaHeaders(kafkaRecord.headers());
+        }
+        return headers;
+    }
+
+    public ConsumedMessage toConsumedMessage() {
+        return ImmutableConsumedMessage.builder()
+                .timestamp(kafkaRecord.timestamp())
+                .offset(kafkaRecord.offset())
+                .partition(kafkaRecord.partition())
+                .key(key())
+                .message(value())
+                .headers(headers())
+                .build();
+    }
+}
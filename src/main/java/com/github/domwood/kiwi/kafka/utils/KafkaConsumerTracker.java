@@ -3,29 +3,81 @@ package com.github.domwood.kiwi.kafka.utils;
 import com.github.domwood.kiwi.data.output.ConsumerPosition;
 import com.github.domwood.kiwi.data.output.ImmutableConsumerPosition;
 import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
+import com.github.domwood.kiwi.utilities.TimeService;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 public class KafkaConsumerTracker {
+    private static final Logger logger = LoggerFactory.getLogger(KafkaConsumerTracker.class);
+    private static final long END_OFFSETS_REFRESH_MS = 5000L;
+
     private final Map<TopicPartition, Long> endOffsets;
     private final Map<TopicPartition, Long> startOffsets;
     private final Map<TopicPartition, Long> startingConsumerOffsets;
+    private final boolean boundedEnd;
+    private final boolean tailing;
+    private final TimeService timeService;
+    private long endOffsetsRefreshedAt;
 
     private final MutableInt totalRecords;
 
     public KafkaConsumerTracker(Map<TopicPartition, Long> startOffsets,
                                 Map<TopicPartition, Long> endOffsets,
                                 Map<TopicPartition, Long> startingConsumerOffsets) {
+        this(startOffsets, endOffsets, startingConsumerOffsets, false);
+    }
+
+    /**
+     * @param boundedEnd true when the end offsets are a hard limit, such as an end timestamp, that records at or past
+     *                   must not be consumed
+     */
+    public KafkaConsumerTracker(Map<TopicPartition, Long> startOffsets,
+                                Map<TopicPartition, Long> endOffsets,
+                                Map<TopicPartition, Long> startingConsumerOffsets,
+                                boolean boundedEnd) {
+        this(startOffsets, endOffsets, startingConsumerOffsets, boundedEnd, false, new TimeService());
+    }
+
+    private KafkaConsumerTracker(Map<TopicPartition, Long> startOffsets,
+                                 Map<TopicPartition, Long> endOffsets,
+                                 Map<TopicPartition, Long> startingConsumerOffsets,
+                                 boolean boundedEnd,
+                                 boolean tailing,
+                                 TimeService timeService) {
         this.endOffsets = endOffsets;
         this.startOffsets = startOffsets;
         this.startingConsumerOffsets = startingConsumerOffsets;
+        this.boundedEnd = boundedEnd;
+        this.tailing = tailing;
+        this.timeService = timeService;
+        this.endOffsetsRefreshedAt = timeService.now();
         this.totalRecords = new MutableInt(0);
     }
 
+    /**
+     * A tracker for a consumer tailing the partitions from the tail offsets, the end offsets are refreshed from the
+     * broker every few seconds, and follow the consumer position in between, so the position is reported relative
+     * to the live head rather than the end at the time of seeking.
+     */
+    public static KafkaConsumerTracker forTail(Map<TopicPartition, Long> tailOffsets,
+                                               Map<TopicPartition, Long> endOffsets) {
+        return forTail(tailOffsets, endOffsets, new TimeService());
+    }
+
+    static KafkaConsumerTracker forTail(Map<TopicPartition, Long> tailOffsets,
+                                        Map<TopicPartition, Long> endOffsets,
+                                        TimeService timeService) {
+        return new KafkaConsumerTracker(tailOffsets, new HashMap<>(endOffsets), tailOffsets, false, true, timeService);
+    }
+
     public void incrementRecordCount() {
         this.totalRecords.increment();
     }
@@ -34,11 +86,36 @@ public class KafkaConsumerTracker {
         return endOffsets.keySet();
     }
 
+    public boolean isPastBoundedEnd(TopicPartition topicPartition, long offset) {
+        return boundedEnd && offset >= endOffsets.getOrDefault(topicPartition, Long.MAX_VALUE);
+    }
+
+    public boolean hasBoundedEnd() {
+        return boundedEnd;
+    }
+
     public <K, V> Pair<Map<TopicPartition, Long>, ConsumerPosition> gatherUpdatedPosition(KafkaConsumerResource<K, V> resource) {
         Map<TopicPartition, Long> currentPosition = resource.currentPosition(endOffsets.keySet());
+        if (tailing) {
+            refreshEndOffsets(resource);
+            currentPosition.forEach((tp, position) -> endOffsets.merge(tp, position, Math::max));
+        }
         return Pair.of(currentPosition, track(currentPosition, totalRecords.getValue()));
     }
 
+    private <K, V> void refreshEndOffsets(KafkaConsumerResource<K, V> resource) {
+        long now = timeService.now();
+        if (now - endOffsetsRefreshedAt < END_OFFSETS_REFRESH_MS) {
+            return;
+        }
+        endOffsetsRefreshedAt = now;
+        try {
+            resource.endOffsets(endOffsets.keySet()).forEach((tp, end) -> endOffsets.merge(tp, end, Math::max));
+        } catch (KafkaException e) {
+            logger.warn("Failed to refresh end offsets of {}, keeping the last known end", endOffsets.keySet(), e);
+        }
+    }
+
     private ConsumerPosition track(Map<TopicPartition, Long> currentOffsets,
                                    int totalRecords) {
         long start = asTotalOffset(startOffsets);
@@ -0,0 +1,186 @@
+package com.github.domwood.kiwi.kafka.utils;
+
+import com.github.domwood.kiwi.data.output.ImmutableLagSample;
+import com.github.domwood.kiwi.data.output.ImmutableLagTrend;
+import com.github.domwood.kiwi.data.output.LagSample;
+import com.github.domwood.kiwi.data.output.LagTrend;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Committed and end offsets over time, held in a fixed number of samples at a fine and a coarse resolution.
+ * Each resolution is a ring buffer of time buckets, a sample landing in the same bucket as the last replaces it, so
+ * each bucket holds the latest offsets seen within it. As offsets only grow, keeping the latest rather than an
+ * average loses nothing when downsampling.
+ */
+public class LagTimeSeries {
+
+    private final Tier fine;
+    private final Tier coarse;
+
+    public LagTimeSeries(long fineResolutionMs, int fineCapacity, long coarseResolutionMs, int coarseCapacity) {
+        this.fine = new Tier(fineResolutionMs, fineCapacity);
+        this.coarse = new Tier(coarseResolutionMs, coarseCapacity);
+    }
+
+    public synchronized void record(long timestamp, long committedOffset, long endOffset) {
+        fine.record(timestamp, committedOffset, endOffset);
+        coarse.record(timestamp, committedOffset, endOffset);
+    }
+
+    /**
+     * @return the samples, oldest first, at the finest resolution no finer than the one asked for
+     */
+    public synchronized List<LagSample> samples(long resolutionMs) {
+        return tierFor(resolutionMs).samples();
+    }
+
+    public synchronized long resolutionMs(long resolutionMs) {
+        return tierFor(resolutionMs).resolutionMs;
+    }
+
+    /**
+     * @return the time of the latest sample recorded, if any has been
+     */
+    public synchronized Optional<Long> latestTimestamp() {
+        return fine.size > 0 ? Optional.of(fine.timestamp(fine.size - 1)) : Optional.empty();
+    }
+
+    /**
+     * @return the current lag, and the rates of consumption and production over the window up to the latest sample,
+     * taken from the fine samples if they span the window and the coarse samples if not
+     */
+    public synchronized LagTrend trend(long windowMs) {
+        Tier tier = fine.span() >= windowMs || coarse.size < 2 ? fine : coarse;
+        return trend(tier, windowMs);
+    }
+
+    /**
+     * @return the trend of the parts as a whole, their lags and rates summed. Unlike the trend of their summed
+     * offsets, a part missing from some of the samples adds no more than its own rate.
+     */
+    public static LagTrend combine(Collection<LagTrend> trends) {
+        long lag = trends.stream().mapToLong(LagTrend::lag).sum();
+        double consumptionRate = trends.stream().mapToDouble(LagTrend::consumptionRate).sum();
+        double productionRate = trends.stream().mapToDouble(LagTrend::productionRate).sum();
+
+        return ImmutableLagTrend.builder()
+                .lag(lag)
+                .consumptionRate(consumptionRate)
+                .productionRate(productionRate)
+                .catchUpSeconds(catchUpSeconds(lag, consumptionRate - productionRate))
+                .build();
+    }
+
+    private Tier tierFor(long resolutionMs) {
+        return resolutionMs > fine.resolutionMs ? coarse : fine;
+    }
+
+    private static LagTrend trend(Tier tier, long windowMs) {
+        if (tier.size == 0) {
+            return ImmutableLagTrend.builder()
+                    .lag(0L)
+                    .consumptionRate(0.0)
+                    .productionRate(0.0)
+                    .build();
+        }
+
+        int latest = tier.size - 1;
+        int earliest = latest;
+        while (earliest > 0 && tier.timestamp(latest) - tier.timestamp(earliest - 1) <= windowMs) {
+            earliest--;
+        }
+
+        long lag = Math.max(0L, tier.end(latest) - tier.committed(latest));
+        double elapsedSeconds = (tier.timestamp(latest) - tier.timestamp(earliest)) / (double) TimeUnit.SECONDS.toMillis(1);
+        double consumptionRate = elapsedSeconds > 0 ? (tier.committed(latest) - tier.committed(earliest)) / elapsedSeconds : 0.0;
+        double productionRate = elapsedSeconds > 0 ? (tier.end(latest) - tier.end(earliest)) / elapsedSeconds : 0.0;
+
+        return ImmutableLagTrend.builder()
+                .lag(lag)
+                .consumptionRate(consumptionRate)
+                .productionRate(productionRate)
+                .catchUpSeconds(catchUpSeconds(lag, consumptionRate - productionRate))
+                .build();
+    }
+
+    private static Optional<Long> catchUpSeconds(long lag, double netConsumptionRate) {
+        if (lag == 0) {
+            return Optional.of(0L);
+        }
+        if (netConsumptionRate <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of((long) Math.ceil(lag / netConsumptionRate));
+    }
+
+    private static class Tier {
+        private final long resolutionMs;
+        private final long[] timestamps;
+        private final long[] committedOffsets;
+        private final long[] endOffsets;
+        private int next = 0;
+        private int size = 0;
+        private long lastBucket = Long.MIN_VALUE;
+
+        private Tier(long resolutionMs, int capacity) {
+            this.resolutionMs = Math.max(1L, resolutionMs);
+            this.timestamps = new long[Math.max(1, capacity)];
+            this.committedOffsets = new long[timestamps.length];
+            this.endOffsets = new long[timestamps.length];
+        }
+
+        private void record(long timestamp, long committedOffset, long endOffset) {
+            long bucket = timestamp / resolutionMs;
+            int slot;
+            if (size > 0 && bucket == lastBucket) {
+                slot = (next - 1 + timestamps.length) % timestamps.length;
+            } else {
+                slot = next;
+                next = (next + 1) % timestamps.length;
+                size = Math.min(size + 1, timestamps.length);
+                lastBucket = bucket;
+            }
+            timestamps[slot] = timestamp;
+            committedOffsets[slot] = committedOffset;
+            endOffsets[slot] = endOffset;
+        }
+
+        private int slot(int index) {
+            return (next - size + index + timestamps.length) % timestamps.length;
+        }
+
+        private long timestamp(int index) {
+            return timestamps[slot(index)];
+        }
+
+        private long committed(int index) {
+            return committedOffsets[slot(index)];
+        }
+
+        private long end(int index) {
+            return endOffsets[slot(index)];
+        }
+
+        private long span() {
+            return size < 2 ? 0L : timestamp(size - 1) - timestamp(0);
+        }
+
+        private List<LagSample> samples() {
+            List<LagSample> samples = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                samples.add(ImmutableLagSample.builder()
+                        .timestamp(timestamp(i))
+                        .committedOffset(committed(i))
+                        .endOffset(end(i))
+                        .lag(Math.max(0L, end(i) - committed(i)))
+                        .build());
+            }
+            return samples;
+        }
+    }
+}
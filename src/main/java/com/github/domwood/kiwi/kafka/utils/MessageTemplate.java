@@ -0,0 +1,75 @@
+package com.github.domwood.kiwi.kafka.utils;
+
+import com.google.common.base.Strings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A message body with placeholders filled in for each generated message:
+ * {{sequence}} the message's sequence number, {{key}} the message's key, {{timestamp}} the epoch millis at which
+ * the message was generated, and {{padding:N}} N characters of padding. Any other text is copied as is.
+ * The template is parsed once, rendering only appends its parts.
+ */
+public class MessageTemplate {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{(sequence|key|timestamp|padding:(\\d+))}}");
+    private static final char PADDING = 'x';
+
+    private final List<TemplatePart> parts;
+    private final int fixedLength;
+
+    private MessageTemplate(List<TemplatePart> parts, int fixedLength) {
+        this.parts = parts;
+        this.fixedLength = fixedLength;
+    }
+
+    public static MessageTemplate compile(String template) {
+        List<TemplatePart> parts = new ArrayList<>();
+        int fixedLength = 0;
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        int textStart = 0;
+        while (matcher.find()) {
+            if (matcher.start() > textStart) {
+                parts.add(text(template.substring(textStart, matcher.start())));
+                fixedLength += matcher.start() - textStart;
+            }
+            if (matcher.group(2) != null) {
+                int paddingLength = Integer.parseInt(matcher.group(2));
+                parts.add(text(Strings.repeat(String.valueOf(PADDING), paddingLength)));
+                fixedLength += paddingLength;
+            } else if ("sequence".equals(matcher.group(1))) {
+                parts.add((builder, sequence, key, timestamp) -> builder.append(sequence));
+            } else if ("key".equals(matcher.group(1))) {
+                parts.add((builder, sequence, key, timestamp) -> builder.append(key));
+            } else {
+                parts.add((builder, sequence, key, timestamp) -> builder.append(timestamp));
+            }
+            textStart = matcher.end();
+        }
+        if (textStart < template.length()) {
+            parts.add(text(template.substring(textStart)));
+            fixedLength += template.length() - textStart;
+        }
+        return new MessageTemplate(parts, fixedLength);
+    }
+
+    public String render(long sequence, String key, long timestamp) {
+        StringBuilder builder = new StringBuilder(fixedLength + 32);
+        for (TemplatePart part : parts) {
+            part.append(builder, sequence, key, timestamp);
+        }
+        return builder.toString();
+    }
+
+    private static TemplatePart text(String text) {
+        return (builder, sequence, key, timestamp) -> builder.append(text);
+    }
+
+    @FunctionalInterface
+    private interface TemplatePart {
+        void append(StringBuilder builder, long sequence, String key, long timestamp);
+    }
+}
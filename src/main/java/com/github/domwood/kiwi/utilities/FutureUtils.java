@@ -1,37 +1,133 @@
 package com.github.domwood.kiwi.utilities;
 
 import com.github.domwood.kiwi.exceptions.KiwiFutureException;
+import com.github.domwood.kiwi.exceptions.KiwiTaskRejectedException;
 import com.github.domwood.kiwi.kafka.task.KiwiTaskExecutor;
+import com.github.domwood.kiwi.kafka.task.KiwiWorkload;
 
-import java.sql.Time;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.kafka.common.KafkaFuture;
+
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
 public class FutureUtils {
     private FutureUtils(){}
 
-    public static <T> CompletableFuture<T> toCompletable(Future<T> future, long timeout, TimeUnit unit){
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return future.get(timeout, unit);
-            } catch (InterruptedException | ExecutionException | TimeoutException e) {
-                throw new KiwiFutureException(e);
-            }
-        }, KiwiTaskExecutor.getInstance());
+    private static final ScheduledExecutorService TIMEOUTS = timeoutScheduler();
+
+    /**
+     * Bridges the kafka future without holding a thread while it is outstanding: the result is passed on by the
+     * future's callback, and a shared scheduler fails it once the timeout passes. The result is handed to the admin
+     * workers to complete, so that stages chained on it never run on the kafka client's network thread; a timeout
+     * is completed on the scheduler itself, having no network thread to move off.
+     */
+    public static <T> CompletableFuture<T> toCompletable(KafkaFuture<T> future, long timeout, TimeUnit unit){
+        return toCompletable(future, timeout, unit, TIMEOUTS);
     }
 
-    public static <T> CompletableFuture<T> toCompletable(Future<T> future){
+    static <T> CompletableFuture<T> toCompletable(KafkaFuture<T> future, long timeout, TimeUnit unit,
+                                                  ScheduledExecutorService timeouts){
+        CompletableFuture<T> completable = new CompletableFuture<>();
+        //Failed before the kafka future is cancelled, so the timeout rather than the cancellation is reported
+        ScheduledFuture<?> timer = timeouts.schedule(() -> {
+            completable.completeExceptionally(new KiwiFutureException(
+                    new TimeoutException(String.format("Kafka request did not complete within %s %s", timeout, unit))));
+            future.cancel(true);
+        }, timeout, unit);
+
+        future.whenComplete((result, error) -> {
+            timer.cancel(false);
+            completeOnAdminWorker(() -> {
+                if (error != null) {
+                    completable.completeExceptionally(new KiwiFutureException(error));
+                } else {
+                    completable.complete(result);
+                }
+            });
+        });
+        return completable;
+    }
+
+    public static <T> CompletableFuture<T> toCompletable(KafkaFuture<T> future){
         return toCompletable(future, 10, TimeUnit.MINUTES);
     }
 
+    /**
+     * Bridges each of the kafka futures, completing once all have with the results of those that succeeded. Each
+     * failure is passed to onFailure with its key and left out of the results, rather than failing them all.
+     */
+    public static <K, T> CompletableFuture<Map<K, T>> toCompletableSuccesses(Map<K, KafkaFuture<T>> futures,
+                                                                          BiConsumer<K, Throwable> onFailure){
+        Map<K, T> results = new ConcurrentHashMap<>();
+        CompletableFuture<?>[] each = futures.entrySet().stream()
+                .map(future -> toCompletable(future.getValue()).handle((result, error) -> {
+                    if (error != null) {
+                        onFailure.accept(future.getKey(), error);
+                    } else if (result != null) {
+                        results.put(future.getKey(), result);
+                    }
+                    return (Void) null;
+                }))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(each).thenApply(ignored -> results);
+    }
+
     public static <T> CompletableFuture<T> failedFuture(Throwable ex){
         CompletableFuture<T> future = new CompletableFuture<>();
         future.completeExceptionally(ex);
         return future;
     }
 
-    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier){
-        return CompletableFuture.supplyAsync(supplier, KiwiTaskExecutor.getInstance());
+    /**
+     * @return the supplier's result, run by the workload's workers, or failed with a {@link KiwiTaskRejectedException}
+     * if the workload has no room for it
+     */
+    public static <T> CompletableFuture<T> supplyAsync(KiwiWorkload workload, Supplier<T> supplier){
+        try {
+            return CompletableFuture.supplyAsync(supplier, command -> KiwiTaskExecutor.getInstance().execute(workload, command));
+        } catch (RejectedExecutionException e) {
+            return failedFuture(new KiwiTaskRejectedException(
+                    String.format("Too many %s tasks are running, try again later", workload.name().toLowerCase()), e));
+        }
+    }
+
+    /**
+     * Rethrows the failure of a task rejected for lack of room, so it can be reported to the caller straight away
+     */
+    public static void throwIfRejected(CompletableFuture<?> future){
+        if (future.isCompletedExceptionally()) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof KiwiTaskRejectedException) {
+                    throw (KiwiTaskRejectedException) e.getCause();
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the completion of a kafka client callback on the admin workers, so stages chained on it never run on the
+     * client's network thread. Completions are small enough to run on the calling thread should the workers be full.
+     */
+    public static void completeOnAdminWorker(Runnable completion){
+        try {
+            KiwiTaskExecutor.getInstance().execute(KiwiWorkload.ADMIN, completion);
+        } catch (RejectedExecutionException e) {
+            completion.run();
+        }
+    }
+
+    private static ScheduledExecutorService timeoutScheduler(){
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setNameFormat("kiwi-future-timeout-%d")
+                .setDaemon(true)
+                .build());
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
     }
 
 }
@@ -25,6 +25,7 @@ class MessageReader extends Component {
             consumerPosition: 0,
             startingPosition: 0.0,
             skippedPosition: 0,
+            droppedMessages: 0,
             showingConsumedDetails: false
         }
     }
@@ -56,6 +57,7 @@ class MessageReader extends Component {
                 endValue: 0,
                 consumerPosition: 0,
                 skippedPosition: 0,
+                droppedMessages: 0,
                 showingConsumedDetails: false
             }, cb)
         }
@@ -85,6 +87,7 @@ class MessageReader extends Component {
                 endValue: position.endValue || 0,
                 consumerPosition: position.consumerPosition || 0,
                 skippedPosition: Math.floor(position.skippedPercentage || 0),
+                droppedMessages: response.droppedMessages || this.state.droppedMessages,
                 showingConsumedDetails: true
             });
         }
@@ -226,7 +229,8 @@ class MessageReader extends Component {
                             ', Matched: ' + this.state.consumeCount +
                             ', Records Processed: ' + this.state.totalRecords +
                             ', Offset: ' + (this.state.consumerPosition) + ' of ' + (this.state.endValue) +
-                            (this.state.skippedPosition < 0.1 ? '' : ' (' + this.state.skippedPosition + '% Skipped)')
+                            (this.state.skippedPosition < 0.1 ? '' : ' (' + this.state.skippedPosition + '% Skipped)') +
+                            (this.state.droppedMessages === 0 ? '' : ', Dropped: ' + this.state.droppedMessages)
                         }</div>
                         <Progress multi max={100}>
                             <Progress animated={this.context.consumingState !== CLOSED_STATE} bar color="danger"
@@ -5,11 +5,14 @@ import com.github.domwood.kiwi.data.error.ApiError;
 import com.github.domwood.kiwi.data.input.ConsumerRequest;
 import com.github.domwood.kiwi.data.input.CreateTopicRequest;
 import com.github.domwood.kiwi.data.input.ImmutableCloseTaskRequest;
+import com.github.domwood.kiwi.data.input.ImmutableLoadGeneratorRequest;
+import com.github.domwood.kiwi.data.input.LoadGeneratorRequest;
 import com.github.domwood.kiwi.data.input.ProducerRequest;
 import com.github.domwood.kiwi.data.output.BrokerInfoList;
 import com.github.domwood.kiwi.data.output.ConsumedMessage;
 import com.github.domwood.kiwi.data.output.ConsumerResponse;
 import com.github.domwood.kiwi.data.output.ImmutableConsumerResponse;
+import com.github.domwood.kiwi.data.output.LoadGeneratorReport;
 import com.github.domwood.kiwi.data.output.ProducerResponse;
 import com.github.domwood.kiwi.data.output.TopicInfo;
 import com.github.domwood.kiwi.data.output.TopicList;
@@ -77,6 +80,7 @@ public class KiwiIntegrationTest {
     private String topicCreateUrl;
     private String produceMessageUrl;
     private String consumeMessageUrl;
+    private String loadGeneratorUrl;
 
     @BeforeEach
     private void setupUrls() {
@@ -86,6 +90,7 @@ public class KiwiIntegrationTest {
         this.topicCreateUrl = "http://localhost:" + serverPort + "/api/createTopic";
         this.produceMessageUrl = "http://localhost:" + serverPort + "/api/produce";
         this.consumeMessageUrl = "http://localhost:" + serverPort + "/api/consume";
+        this.loadGeneratorUrl = "http://localhost:" + serverPort + "/api/loadGenerator";
     }
 
     @DisplayName("Test querying a topic that doesn't exist returns 404")
@@ -197,6 +202,39 @@ public class KiwiIntegrationTest {
         assertEquals(testHeaders, message.headers());
     }
 
+    @DisplayName("Test load generator produces templated messages and reports its throughput")
+    @Test
+    public void loadGeneratorTest() {
+        String loadTestTopic = "loadGeneratorTest";
+
+        createTopicAndAwait(loadTestTopic);
+
+        LoadGeneratorRequest request = ImmutableLoadGeneratorRequest.builder()
+                .topic(loadTestTopic)
+                .messageTemplate("{\"sequence\":{{sequence}},\"key\":\"{{key}}\",\"padding\":\"{{padding:16}}\"}")
+                .messagesPerSecond(50)
+                .durationSeconds(1)
+                .keyCardinality(5)
+                .build();
+
+        ResponseEntity<String> started = testRestTemplate.postForEntity(loadGeneratorUrl, asJsonPayload(request), String.class);
+        assertTrue(started.getStatusCode().is2xxSuccessful());
+
+        LoadGeneratorReport report = awaitAndReturn(
+                () -> testRestTemplate.getForEntity(loadGeneratorUrl + "/" + started.getBody(), LoadGeneratorReport.class),
+                (response) -> response.getStatusCode().is2xxSuccessful() && response.getBody().finished()).getBody();
+
+        assertTrue(report.messagesProduced() > 0);
+        assertEquals(0, report.messagesFailed());
+        assertTrue(report.bytesProduced() > 0);
+
+        ConsumedMessage message = consumeMessages(buildConsumerRequest(loadTestTopic).build(), 1).getBody().messages().get(0);
+        assertTrue(message.key().startsWith("key-"));
+        assertTrue(message.message().contains("\"padding\":\"xxxxxxxxxxxxxxxx\""));
+
+        testRestTemplate.delete(loadGeneratorUrl + "/" + started.getBody());
+    }
+
     @DisplayName("Test Broker Information Returned")
     @Test
     public void brokerInfoTest() {
@@ -0,0 +1,83 @@
+package com.github.domwood.kiwi.api.rest;
+
+import com.github.domwood.kiwi.data.input.LoadGeneratorRequest;
+import com.github.domwood.kiwi.exceptions.KiwiTaskRejectedException;
+import com.github.domwood.kiwi.kafka.provision.KafkaTaskProvider;
+import com.github.domwood.kiwi.kafka.task.producer.ProduceLoadGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static com.github.domwood.kiwi.testutils.HttpTestUtils.asJsonPayload;
+import static com.github.domwood.kiwi.utilities.FutureUtils.failedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class LoadGeneratorControllerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @MockBean
+    private KafkaTaskProvider kafkaTaskProvider;
+
+    private String url;
+
+    @BeforeEach
+    public void beforeEach() {
+        this.url = "http://localhost:" + port + "/api/loadGenerator";
+    }
+
+    @Test
+    public void testZeroRateRejected() {
+        assertBadRequest("{\"requestType\":\".LoadGeneratorRequest\",\"topic\":\"test\",\"messageTemplate\":\"{{sequence}}\",\"messagesPerSecond\":0}");
+    }
+
+    @Test
+    public void testNegativeDurationRejected() {
+        assertBadRequest("{\"requestType\":\".LoadGeneratorRequest\",\"topic\":\"test\",\"messageTemplate\":\"{{sequence}}\",\"durationSeconds\":-1}");
+    }
+
+    @Test
+    public void testZeroKeyCardinalityRejected() {
+        assertBadRequest("{\"requestType\":\".LoadGeneratorRequest\",\"topic\":\"test\",\"messageTemplate\":\"{{sequence}}\",\"keyCardinality\":0}");
+    }
+
+    @Test
+    public void testRejectedWhenNoRoom() {
+        ProduceLoadGenerator generator = mock(ProduceLoadGenerator.class);
+        when(generator.execute()).thenReturn(failedFuture(new KiwiTaskRejectedException("Too many scan tasks", null)));
+        when(kafkaTaskProvider.loadGenerator(any(LoadGeneratorRequest.class))).thenReturn(generator);
+
+        HttpEntity<String> payload = asJsonPayload("{\"requestType\":\".LoadGeneratorRequest\",\"topic\":\"test\",\"messageTemplate\":\"{{sequence}}\"}");
+        ResponseEntity<String> response = restTemplate.postForEntity(url, payload, String.class);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+    }
+
+    private void assertBadRequest(String request) {
+        HttpEntity<String> payload = asJsonPayload(request);
+        ResponseEntity<String> response = restTemplate.postForEntity(url, payload, String.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(kafkaTaskProvider, never()).loadGenerator(any(LoadGeneratorRequest.class));
+    }
+}
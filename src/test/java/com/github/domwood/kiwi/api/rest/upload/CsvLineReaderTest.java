@@ -0,0 +1,84 @@
+package com.github.domwood.kiwi.api.rest.upload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.domwood.kiwi.api.rest.download.CsvLineWriter;
+import com.github.domwood.kiwi.data.input.ConsumerRequestColumns;
+import com.github.domwood.kiwi.data.input.ConsumerRequestFileType;
+import com.github.domwood.kiwi.data.input.ImmutableBulkProducerRequest;
+import com.github.domwood.kiwi.data.input.ProducerRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.github.domwood.kiwi.data.input.ConsumerRequestColumns.HEADERS;
+import static com.github.domwood.kiwi.data.input.ConsumerRequestColumns.KEY;
+import static com.github.domwood.kiwi.data.input.ConsumerRequestColumns.OFFSET;
+import static com.github.domwood.kiwi.data.input.ConsumerRequestColumns.PARTITION;
+import static com.github.domwood.kiwi.data.input.ConsumerRequestColumns.TIMESTAMP;
+import static com.github.domwood.kiwi.data.input.ConsumerRequestColumns.VALUE;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.buildConsumedMessage;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.buildConsumerToFileRequest;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.testHeaders;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.testKey;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.testPayload;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.testTopic;
+import static com.github.domwood.kiwi.testutils.TestUtils.testMapper;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvLineReaderTest {
+
+    private final ObjectMapper mapper = testMapper();
+
+    @Test
+    public void testCsvReadDefaultColumns() throws IOException {
+        CsvLineReader lineReader = new CsvLineReader(mapper, buildBulkProducerRequest("\t").build());
+
+        ProducerRequest observed = lineReader.readLine(testKey + "\t" + testPayload);
+
+        assertEquals(testTopic, observed.topic());
+        assertEquals(testKey, observed.key());
+        assertEquals(Optional.of(testPayload), observed.payload());
+        assertEquals(emptyList(), observed.headers());
+    }
+
+    @Test
+    public void testCsvReadValueContainingDelimiter() throws IOException {
+        CsvLineReader lineReader = new CsvLineReader(mapper, buildBulkProducerRequest(",").build());
+
+        ProducerRequest observed = lineReader.readLine(testKey + ",a,b\\nc");
+
+        assertEquals(testKey, observed.key());
+        assertEquals(Optional.of("a,b\nc"), observed.payload());
+    }
+
+    @Test
+    public void testCsvReadDownloadedLine() throws IOException {
+        ConsumerRequestColumns[] columns = {KEY, TIMESTAMP, PARTITION, OFFSET, HEADERS, VALUE};
+        String line = new CsvLineWriter(mapper, buildConsumerToFileRequest(ConsumerRequestFileType.CSV, " ", columns).build())
+                .writeLine(buildConsumedMessage().build());
+        CsvLineReader lineReader = new CsvLineReader(mapper, buildBulkProducerRequest(" ").addColumns(columns).build());
+
+        ProducerRequest observed = lineReader.readLine(line);
+
+        assertEquals(testKey, observed.key());
+        assertEquals(testHeaders, observed.headers());
+        assertEquals(Optional.of(testPayload), observed.payload());
+    }
+
+    @Test
+    public void testCsvReadMissingColumns() {
+        CsvLineReader lineReader = new CsvLineReader(mapper, buildBulkProducerRequest("\t").build());
+
+        assertThrows(IllegalArgumentException.class, () -> lineReader.readLine(testKey));
+    }
+
+    private ImmutableBulkProducerRequest.Builder buildBulkProducerRequest(String delimiter) {
+        return ImmutableBulkProducerRequest.builder()
+                .topic(testTopic)
+                .fileType(ConsumerRequestFileType.CSV)
+                .columnDelimiter(delimiter);
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.domwood.kiwi.api.rest.upload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.domwood.kiwi.api.rest.download.JsonLineWriter;
+import com.github.domwood.kiwi.data.input.BulkProducerRequest;
+import com.github.domwood.kiwi.data.input.ConsumerRequestFileType;
+import com.github.domwood.kiwi.data.input.ImmutableBulkProducerRequest;
+import com.github.domwood.kiwi.data.input.ProducerRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.github.domwood.kiwi.data.input.ConsumerRequestColumns.HEADERS;
+import static com.github.domwood.kiwi.data.input.ConsumerRequestColumns.KEY;
+import static com.github.domwood.kiwi.data.input.ConsumerRequestColumns.OFFSET;
+import static com.github.domwood.kiwi.data.input.ConsumerRequestColumns.PARTITION;
+import static com.github.domwood.kiwi.data.input.ConsumerRequestColumns.TIMESTAMP;
+import static com.github.domwood.kiwi.data.input.ConsumerRequestColumns.VALUE;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.buildConsumedMessage;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.buildConsumerToFileRequest;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.testHeaders;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.testKey;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.testPayload;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.testTopic;
+import static com.github.domwood.kiwi.testutils.TestUtils.testMapper;
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JsonLineReaderTest {
+
+    private final ObjectMapper mapper = testMapper();
+    private final BulkProducerRequest request = ImmutableBulkProducerRequest.builder()
+            .topic(testTopic)
+            .fileType(ConsumerRequestFileType.JSON)
+            .build();
+
+    @Test
+    public void testJsonReadDownloadedLine() throws IOException {
+        String line = new JsonLineWriter(mapper, buildConsumerToFileRequest(ConsumerRequestFileType.JSON, null, KEY, TIMESTAMP, PARTITION, OFFSET, HEADERS, VALUE).build())
+                .writeLine(buildConsumedMessage().build());
+        JsonLineReader lineReader = new JsonLineReader(mapper, request);
+
+        ProducerRequest observed = lineReader.readLine(line);
+
+        assertEquals(testTopic, observed.topic());
+        assertEquals(testKey, observed.key());
+        assertEquals(testHeaders, observed.headers());
+        assertEquals(Optional.of(testPayload), observed.payload());
+    }
+
+    @Test
+    public void testJsonReadTombstone() throws IOException {
+        JsonLineReader lineReader = new JsonLineReader(mapper, request);
+
+        ProducerRequest observed = lineReader.readLine("{\"Key\":\"" + testKey + "\"}");
+
+        assertEquals(testKey, observed.key());
+        assertEquals(Optional.empty(), observed.payload());
+    }
+
+    @Test
+    public void testJsonReadMissingKey() throws IOException {
+        JsonLineReader lineReader = new JsonLineReader(mapper, request);
+        String line = mapper.writeValueAsString(singletonMap("Value", testPayload));
+
+        ProducerRequest observed = lineReader.readLine(line);
+
+        assertEquals("", observed.key());
+        assertEquals(Optional.of(testPayload), observed.payload());
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.domwood.kiwi.api.ws;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.domwood.kiwi.data.output.ConsumerResponse;
+import com.github.domwood.kiwi.data.output.ImmutableConsumerResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+
+import static com.github.domwood.kiwi.KiwiConfig.customModules;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.buildConsumedMessage;
+import static com.github.domwood.kiwi.testutils.TestUtils.testMapper;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConsumerResponseEncoderTest {
+
+    private final ConsumerResponseEncoder encoder = new ConsumerResponseEncoder(testMapper());
+
+    private final ConsumerResponse response = ImmutableConsumerResponse.builder()
+            .messages(IntStream.range(0, 50)
+                    .mapToObj(i -> buildConsumedMessage().offset(i).build())
+                    .collect(toList()))
+            .build();
+
+    @DisplayName("Encodes as JSON text when binary isn't negotiated")
+    @Test
+    public void testTextEncoding() throws Exception {
+        WebSocketMessage<?> message = encoder.encode(response, false);
+
+        assertTrue(message instanceof TextMessage);
+        assertEquals(response, testMapper().readValue(((TextMessage) message).getPayload(), ConsumerResponse.class));
+    }
+
+    @DisplayName("Encodes as Smile, smaller than JSON when strings repeat across the batch")
+    @Test
+    public void testBinaryEncoding() throws Exception {
+        WebSocketMessage<?> message = encoder.encode(response, true);
+
+        assertTrue(message instanceof BinaryMessage);
+        ByteBuffer payload = ((BinaryMessage) message).getPayload();
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory()).registerModules(customModules());
+        assertEquals(response, smileMapper.readValue(bytes, ConsumerResponse.class));
+        assertTrue(bytes.length < encoder.encode(response, false).getPayloadLength());
+    }
+}
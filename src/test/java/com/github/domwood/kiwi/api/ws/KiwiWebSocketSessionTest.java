@@ -0,0 +1,91 @@
+package com.github.domwood.kiwi.api.ws;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class KiwiWebSocketSessionTest {
+
+    @Mock
+    WebSocketSession webSocketSession;
+
+    @BeforeEach
+    public void beforeEach() {
+        lenient().when(webSocketSession.isOpen()).thenReturn(true);
+    }
+
+    @DisplayName("Sends batches until the initial credit is used up")
+    @Test
+    public void testInitialCredit() throws Exception {
+        KiwiWebSocketSession session = new KiwiWebSocketSession(webSocketSession, 1024L, 2);
+
+        session.sendMessage(new TextMessage("one"));
+        assertTrue(session.hasCredit());
+        session.sendMessage(new TextMessage("two"));
+        assertFalse(session.hasCredit());
+
+        assertFalse(session.awaitCredit(10, TimeUnit.MILLISECONDS));
+        verify(webSocketSession, times(2)).sendMessage(any(TextMessage.class));
+    }
+
+    @DisplayName("A sender awaiting credit is woken as soon as credit is granted")
+    @Test
+    public void testAwaitCreditWakesOnGrant() throws Exception {
+        KiwiWebSocketSession session = new KiwiWebSocketSession(webSocketSession, 1024L, 1);
+        session.sendMessage(new TextMessage("one"));
+
+        CompletableFuture<Boolean> awaiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return session.awaitCredit(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        session.grant(1, null);
+
+        assertTrue(awaiting.get(1, TimeUnit.SECONDS));
+    }
+
+    @DisplayName("Once bytes are granted, batches are only sent whilst byte credit remains")
+    @Test
+    public void testByteCredit() throws Exception {
+        KiwiWebSocketSession session = new KiwiWebSocketSession(webSocketSession, 1024L, 1);
+        session.grant(10, 5L);
+
+        session.sendMessage(new TextMessage("123456"));
+
+        assertFalse(session.hasCredit());
+        session.grant(0, 10L);
+        assertTrue(session.hasCredit());
+    }
+
+    @DisplayName("A message held for lack of credit is sent when credit is granted")
+    @Test
+    public void testPendingSentOnGrant() throws Exception {
+        KiwiWebSocketSession session = new KiwiWebSocketSession(webSocketSession, 1024L, 1);
+        session.sendMessage(new TextMessage("one"));
+        session.setPending(new TextMessage("position"));
+
+        verify(webSocketSession, times(1)).sendMessage(any(TextMessage.class));
+        session.grant(1, null);
+
+        verify(webSocketSession).sendMessage(new TextMessage("position"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.domwood.kiwi.kafka.filters;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BytePatternMatcherTest {
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "hello world,world",
+            "hello world,hello",
+            "hello world,o w",
+            "hello world,d",
+            "hello world,$EMPTY",
+            "aaaaaaab,aab",
+            "abcabcabd,abcabd",
+            "{\"name\":\"caf\u00e9\"},caf\u00e9",
+            "hello,hello world",
+            "hello world,worlds",
+            "ababab,abb",
+            "$EMPTY,a",
+            "caf\u00e9,cafe"
+    })
+    public void testContainsMatchesStringContains(final String text, final String filter) {
+        String actualText = text.equals("$EMPTY") ? "" : text;
+        String actualFilter = filter.equals("$EMPTY") ? "" : filter;
+        BytePatternMatcher matcher = BytePatternMatcher.of(actualFilter).orElseThrow(IllegalStateException::new);
+
+        byte[] bytes = actualText.getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(actualText.contains(actualFilter), matcher.contains(bytes));
+        assertEquals(actualText.startsWith(actualFilter), matcher.startsWith(bytes));
+        assertEquals(actualText.endsWith(actualFilter), matcher.endsWith(bytes));
+        assertEquals(actualText.equals(actualFilter), matcher.matches(bytes));
+    }
+
+    @DisplayName("Returns the index of the first match")
+    @Test
+    public void testIndexOf() {
+        BytePatternMatcher matcher = BytePatternMatcher.of("needle").orElseThrow(IllegalStateException::new);
+
+        assertEquals(10, matcher.indexOf("haystack, needle, needle".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(-1, matcher.indexOf("haystack".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @DisplayName("Filters which cannot be encoded losslessly fall back to String matching")
+    @Test
+    public void testUnencodableFilter() {
+        assertFalse(BytePatternMatcher.of("\uD800").isPresent());
+        assertFalse(BytePatternMatcher.of(null).isPresent());
+        assertTrue(BytePatternMatcher.of("\u00e9").isPresent());
+    }
+}
@@ -15,6 +15,7 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.charset.StandardCharsets;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -267,6 +268,41 @@ public class FilterBuilderTest {
         assertFalse(test.test(mockRecord));
     }
 
+    @ParameterizedTest
+    @CsvSource(value = {
+            "KEY, CONTAINS, true",
+            "KEY, NOT_CONTAINS, false",
+            "VALUE, STARTS_WITH, false",
+            "VALUE, ENDS_WITH, true",
+            "VALUE, MATCHES, false",
+            "HEADER_VALUE, MATCHES, true",
+            "HEADER_VALUE, NOT_MATCHES, false",
+            "HEADER_VALUE, NOT_CONTAINS, false"
+    })
+    public void testRawBytesFilteredWithoutDecoding(final FilterApplication filterApplication,
+                                                    final FilterType filterType,
+                                                    final boolean matches) {
+        MessageFilter filter = baseFilter()
+                .filterApplication(filterApplication)
+                .filterType(filterType)
+                .isCaseSensitive(true)
+                .build();
+
+        Function<byte[], String> failingDecoder = bytes -> {
+            throw new AssertionError("Raw bytes should not have been decoded");
+        };
+
+        Predicate<ConsumerRecord<byte[], byte[]>> test = FilterBuilder
+                .compileFilters(singletonList(filter), failingDecoder, failingDecoder);
+
+        ConsumerRecord<byte[], byte[]> rawRecord = new ConsumerRecord<>("topic", 0, 0L,
+                "SAY HELLO WORLD".getBytes(StandardCharsets.UTF_8),
+                "WORLD HELLO".getBytes(StandardCharsets.UTF_8));
+        rawRecord.headers().add(createHeader("header", "HELLO"));
+
+        assertEquals(matches, test.test(rawRecord));
+    }
+
     @ParameterizedTest
     @CsvSource(value = {
             "0, GREATER_THAN, 10, false",
@@ -0,0 +1,101 @@
+package com.github.domwood.kiwi.kafka.filters;
+
+import com.github.domwood.kiwi.data.input.filter.FilterApplication;
+import com.github.domwood.kiwi.data.input.filter.FilterType;
+import com.github.domwood.kiwi.data.input.filter.ImmutableMessageFilter;
+import com.github.domwood.kiwi.data.input.filter.MessageFilter;
+import com.github.domwood.kiwi.kafka.utils.DecodedConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FilterPlannerTest {
+
+    @DisplayName("Filters are ordered numeric, header, key, value with regex last")
+    @Test
+    public void testPlanOrdering() {
+        MessageFilter regex = filter(FilterApplication.KEY, FilterType.REGEX, "^abc.*");
+        MessageFilter valueContains = filter(FilterApplication.VALUE, FilterType.CONTAINS, "abc");
+        MessageFilter keyMatches = filter(FilterApplication.KEY, FilterType.MATCHES, "abc");
+        MessageFilter headerKey = filter(FilterApplication.HEADER_KEY, FilterType.STARTS_WITH, "abc");
+        MessageFilter offset = filter(FilterApplication.OFFSET, FilterType.GREATER_THAN, "10");
+
+        FilterPlan<String, String> plan = FilterPlanner.plan(
+                Arrays.asList(regex, valueContains, keyMatches, headerKey, offset));
+
+        assertEquals(Arrays.asList(offset, headerKey, keyMatches, valueContains, regex), plan.filters());
+    }
+
+    @DisplayName("Invalid filters are dropped from the plan")
+    @Test
+    public void testInvalidFiltersDropped() {
+        MessageFilter invalidNumeric = filter(FilterApplication.OFFSET, FilterType.CONTAINS, "10");
+        MessageFilter invalidString = filter(FilterApplication.VALUE, FilterType.LESS_THAN, "10");
+
+        FilterPlan<String, String> plan = FilterPlanner.plan(
+                Arrays.asList(invalidNumeric, invalidString));
+
+        assertTrue(plan.isEmpty());
+        assertTrue(plan.test(decoded(record("key", "value", 1L), Function.identity())));
+    }
+
+    @DisplayName("Cheaper stages reject records before values are decoded")
+    @Test
+    public void testShortCircuitEvaluation() {
+        AtomicInteger decodeCount = new AtomicInteger();
+        Function<String, String> countingDecoder = value -> {
+            decodeCount.incrementAndGet();
+            return value;
+        };
+
+        FilterPlan<String, String> plan = FilterPlanner.plan(
+                Arrays.asList(
+                        filter(FilterApplication.VALUE, FilterType.CONTAINS, "value"),
+                        filter(FilterApplication.OFFSET, FilterType.LESS_THAN, "5")));
+
+        assertFalse(plan.test(decoded(record("key", "value", 10L), countingDecoder)));
+        assertEquals(0, decodeCount.get());
+
+        DecodedConsumerRecord<String, String> matching = decoded(record("key", "value", 1L), countingDecoder);
+        assertTrue(plan.test(matching));
+        assertEquals("value", matching.toConsumedMessage().message());
+        assertEquals(1, decodeCount.get());
+    }
+
+    @DisplayName("An empty filter list matches every record")
+    @Test
+    public void testEmptyPlan() {
+        FilterPlan<String, String> plan = FilterPlanner.plan(emptyList());
+
+        assertTrue(plan.isEmpty());
+        assertEquals(emptyList(), plan.filters().stream().map(MessageFilter::filter).collect(toList()));
+        assertTrue(plan.test(decoded(record(null, null, 0L), Function.identity())));
+    }
+
+    private DecodedConsumerRecord<String, String> decoded(ConsumerRecord<String, String> kafkaRecord,
+                                                         Function<String, String> valueDecoder) {
+        return new DecodedConsumerRecord<>(kafkaRecord, Function.identity(), valueDecoder);
+    }
+
+    private ConsumerRecord<String, String> record(String key, String value, long offset) {
+        return new ConsumerRecord<>("topic", 0, offset, key, value);
+    }
+
+    private MessageFilter filter(FilterApplication application, FilterType type, String filter) {
+        return ImmutableMessageFilter.builder()
+                .filterApplication(application)
+                .filterType(type)
+                .filter(filter)
+                .build();
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.domwood.kiwi.kafka.provision;
+
+import com.github.domwood.kiwi.data.output.ConsumerGroupLagHistory;
+import com.github.domwood.kiwi.exceptions.KiwiTaskRejectedException;
+import com.github.domwood.kiwi.kafka.task.admin.ConsumerGroupOffsets;
+import com.github.domwood.kiwi.utilities.TimeService;
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ConsumerLagSamplerTest {
+
+    private static final long INTERVAL_MS = 10_000L;
+    private static final TopicPartition ORDERS_0 = new TopicPartition("orders", 0);
+    private static final TopicPartition ORDERS_1 = new TopicPartition("orders", 1);
+
+    @Mock
+    KafkaTaskProvider taskProvider;
+
+    @Mock
+    ConsumerGroupOffsets healthyOffsets;
+
+    private TimeService timeService;
+    private ConsumerLagSampler sampler;
+
+    @BeforeEach
+    public void beforeEach() {
+        timeService = new TimeService();
+        sampler = new ConsumerLagSampler(taskProvider, INTERVAL_MS, 10, timeService);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        sampler.shutdown();
+    }
+
+    @DisplayName("A group whose offsets can't be requested doesn't stop the other groups being sampled")
+    @Test
+    public void testFailedGroupDoesNotStopSampling() {
+        when(taskProvider.consumerGroupOffsets("broken", Optional.empty()))
+                .thenThrow(new KiwiTaskRejectedException("Too many admin tasks are running", null));
+        when(taskProvider.consumerGroupOffsets("healthy", Optional.empty())).thenReturn(healthyOffsets);
+        when(healthyOffsets.execute()).thenReturn(offsets(ImmutableMap.of(ORDERS_0, Pair.of(10L, 20L))));
+
+        sampler.track(Optional.empty(), "broken");
+        sampler.track(Optional.empty(), "healthy");
+        at(0L);
+        sampler.sample();
+
+        ConsumerGroupLagHistory healthy = sampler.history(Optional.empty(), "healthy", 10, 60).get();
+        assertEquals(1, healthy.samples().size());
+        assertEquals(10L, healthy.trend().lag());
+        assertTrue(sampler.history(Optional.empty(), "broken", 10, 60).get().samples().isEmpty());
+    }
+
+    @DisplayName("The group's rates come from its partitions' own changes, so a partition missing from a sample isn't a jump")
+    @Test
+    public void testRatesIgnorePartitionsMissingFromASample() {
+        when(taskProvider.consumerGroupOffsets("healthy", Optional.empty())).thenReturn(healthyOffsets);
+        when(healthyOffsets.execute())
+                .thenReturn(offsets(ImmutableMap.of(ORDERS_0, Pair.of(0L, 1_000L))))
+                .thenReturn(offsets(ImmutableMap.of(ORDERS_0, Pair.of(100L, 1_100L), ORDERS_1, Pair.of(50_000L, 60_000L))))
+                .thenReturn(offsets(ImmutableMap.of(ORDERS_0, Pair.of(200L, 1_200L), ORDERS_1, Pair.of(51_000L, 60_500L))));
+
+        sampler.track(Optional.empty(), "healthy");
+        for (int i = 0; i < 3; i++) {
+            at(i * INTERVAL_MS);
+            sampler.sample();
+        }
+
+        ConsumerGroupLagHistory history = sampler.history(Optional.empty(), "healthy", 10, 60).get();
+        assertEquals(110.0, history.trend().consumptionRate(), 0.001);
+        assertEquals(60.0, history.trend().productionRate(), 0.001);
+        assertEquals(10_500L, history.trend().lag());
+    }
+
+    @DisplayName("A partition the group no longer commits to is dropped once it has gone a day without a sample")
+    @Test
+    public void testStalePartitionsDropped() {
+        when(taskProvider.consumerGroupOffsets("healthy", Optional.empty())).thenReturn(healthyOffsets);
+        when(healthyOffsets.execute())
+                .thenReturn(offsets(ImmutableMap.of(ORDERS_0, Pair.of(0L, 10L), ORDERS_1, Pair.of(0L, 10L))))
+                .thenReturn(offsets(ImmutableMap.of(ORDERS_0, Pair.of(10L, 20L))));
+
+        sampler.track(Optional.empty(), "healthy");
+        at(0L);
+        sampler.sample();
+        at(TimeUnit.HOURS.toMillis(1));
+        sampler.sample();
+        assertEquals(2, sampler.history(Optional.empty(), "healthy", 10, 60).get().partitions().size());
+
+        at(TimeUnit.DAYS.toMillis(1) + INTERVAL_MS);
+        sampler.sample();
+
+        ConsumerGroupLagHistory history = sampler.history(Optional.empty(), "healthy", 10, 60).get();
+        assertEquals(1, history.partitions().size());
+        assertEquals(ORDERS_0.partition(), history.partitions().get(0).partition());
+    }
+
+    private void at(long epochMillis) {
+        timeService.setClock(Clock.fixed(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC));
+    }
+
+    private static CompletableFuture<Map<TopicPartition, Pair<Long, Long>>> offsets(Map<TopicPartition, Pair<Long, Long>> offsets) {
+        return CompletableFuture.completedFuture(offsets);
+    }
+}
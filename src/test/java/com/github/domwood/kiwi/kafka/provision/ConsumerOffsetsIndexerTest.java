@@ -0,0 +1,37 @@
+package com.github.domwood.kiwi.kafka.provision;
+
+import com.github.domwood.kiwi.kafka.configs.KafkaConfigManager;
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ConsumerOffsetsIndexerTest {
+
+    @Mock
+    KafkaResourceProvider resourceProvider;
+
+    @Mock
+    KafkaConfigManager configManager;
+
+    @DisplayName("No reader is started for a cluster that isn't configured")
+    @Test
+    public void testUnknownClusterNotIndexed() {
+        when(configManager.getClusterList()).thenReturn(ImmutableList.of("local"));
+        ConsumerOffsetsIndexer indexer = new ConsumerOffsetsIndexer(resourceProvider, configManager, true);
+
+        assertEquals(Optional.empty(), indexer.index(Optional.of("unknown")));
+
+        indexer.shutdown();
+        verifyNoInteractions(resourceProvider);
+    }
+}
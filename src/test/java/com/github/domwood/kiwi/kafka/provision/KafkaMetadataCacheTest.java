@@ -0,0 +1,118 @@
+package com.github.domwood.kiwi.kafka.provision;
+
+import com.github.domwood.kiwi.utilities.TimeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class KafkaMetadataCacheTest {
+
+    private static final Optional<String> CLUSTER = Optional.of("cluster");
+    private static final Optional<String> OTHER_CLUSTER = Optional.of("otherCluster");
+    private static final long TTL_MS = 1000L;
+    private static final long STALE_MS = 5000L;
+    private static final long GRACE_MS = 500L;
+
+    private TimeService timeService;
+    private KafkaMetadataCache cache;
+    private AtomicInteger lookups;
+    private Supplier<CompletableFuture<Integer>> lookup;
+
+    @BeforeEach
+    public void setUp() {
+        timeService = new TimeService();
+        at(0L);
+        cache = new KafkaMetadataCache(true, TTL_MS, STALE_MS, GRACE_MS, timeService);
+        lookups = new AtomicInteger(0);
+        lookup = () -> CompletableFuture.completedFuture(lookups.incrementAndGet());
+    }
+
+    @DisplayName("Results are served from the cache within the ttl, and looked up again once they are too stale to serve")
+    @Test
+    public void testCachedWithinTtl() throws Exception {
+        assertEquals(1, get());
+        at(TTL_MS - 1);
+        assertEquals(1, get());
+        assertEquals(1, lookups.get());
+
+        at(TTL_MS + STALE_MS);
+        assertEquals(2, get());
+        assertEquals(2, lookups.get());
+    }
+
+    @DisplayName("A stale result is served whilst it is refreshed, and the refreshed result is served after")
+    @Test
+    public void testStaleWhileRefreshing() throws Exception {
+        CompletableFuture<Integer> refresh = new CompletableFuture<>();
+        assertEquals(1, get());
+
+        at(TTL_MS + 1);
+        assertEquals(1, cache.get(CLUSTER, "key", () -> refresh).get());
+        assertEquals(1, cache.get(CLUSTER, "key", () -> {
+            throw new AssertionError("Only one refresh should be in flight");
+        }).get());
+
+        refresh.complete(2);
+        assertEquals(2, get());
+        assertEquals(1, lookups.get());
+    }
+
+    @DisplayName("Failed lookups are not cached")
+    @Test
+    public void testFailuresNotCached() throws Exception {
+        CompletableFuture<Integer> failure = new CompletableFuture<>();
+        failure.completeExceptionally(new IllegalStateException("Broker unavailable"));
+
+        assertThrows(ExecutionException.class, () -> cache.get(CLUSTER, "key", () -> failure).get());
+        assertEquals(1, get());
+    }
+
+    @DisplayName("Invalidating a cluster clears its results, and bypasses the cache for the grace period")
+    @Test
+    public void testInvalidate() throws Exception {
+        AtomicInteger otherLookups = new AtomicInteger(0);
+        Supplier<CompletableFuture<Integer>> otherLookup = () -> CompletableFuture.completedFuture(otherLookups.incrementAndGet());
+
+        assertEquals(1, get());
+        assertEquals(1, cache.get(OTHER_CLUSTER, "key", otherLookup).get());
+
+        cache.invalidate(CLUSTER);
+        assertEquals(2, get());
+        at(GRACE_MS - 1);
+        assertEquals(3, get());
+        assertEquals(1, cache.get(OTHER_CLUSTER, "key", otherLookup).get());
+        assertEquals(1, otherLookups.get());
+
+        at(GRACE_MS);
+        assertEquals(3, get());
+        assertEquals(3, lookups.get());
+    }
+
+    @DisplayName("A disabled cache always looks up")
+    @Test
+    public void testDisabled() throws Exception {
+        cache = new KafkaMetadataCache(false, TTL_MS, STALE_MS, GRACE_MS, timeService);
+        assertEquals(1, get());
+        assertEquals(2, get());
+    }
+
+    private Integer get() throws Exception {
+        return cache.get(CLUSTER, "key", lookup).get();
+    }
+
+    private void at(long epochMillis) {
+        timeService.setClock(Clock.fixed(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC));
+    }
+}
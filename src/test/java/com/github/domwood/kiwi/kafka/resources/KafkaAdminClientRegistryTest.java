@@ -0,0 +1,112 @@
+package com.github.domwood.kiwi.kafka.resources;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.DescribeClusterResult;
+import org.apache.kafka.common.errors.DisconnectException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class KafkaAdminClientRegistryTest {
+
+    private static final String CLUSTER = "cluster";
+
+    @Mock
+    AdminClient adminClient;
+
+    @Mock
+    AdminClient replacementClient;
+
+    @Mock
+    DescribeClusterResult describeClusterResult;
+
+    private KafkaAdminClientRegistry registry;
+
+    @BeforeEach
+    public void beforeEach() {
+        registry = new KafkaAdminClientRegistry(TimeUnit.MINUTES.toMillis(5));
+    }
+
+    @AfterEach
+    public void afterEach() {
+        registry.shutdown();
+    }
+
+    @DisplayName("Tasks against the same cluster share one client, which stays open once they have all released it")
+    @Test
+    public void testSharedClient() {
+        AtomicInteger created = new AtomicInteger();
+
+        AdminClient first = registry.acquire(CLUSTER, () -> {
+            created.incrementAndGet();
+            return adminClient;
+        });
+        AdminClient second = registry.acquire(CLUSTER, () -> {
+            created.incrementAndGet();
+            return replacementClient;
+        });
+
+        assertSame(adminClient, first);
+        assertSame(adminClient, second);
+        assertEquals(1, created.get());
+        assertEquals(2, registry.referenceCount(CLUSTER));
+
+        registry.release(first);
+        registry.release(second);
+
+        assertEquals(0, registry.referenceCount(CLUSTER));
+        assertTrue(registry.hasClient(CLUSTER));
+        verify(adminClient, never()).close(any(Duration.class));
+    }
+
+    @DisplayName("An invalidated client is replaced for new tasks, and closed once its last task releases it")
+    @Test
+    public void testInvalidatedClientReplaced() {
+        AdminClient inUse = registry.acquire(CLUSTER, () -> adminClient);
+
+        registry.invalidate(inUse);
+        assertFalse(registry.hasClient(CLUSTER));
+        verify(adminClient, never()).close(any(Duration.class));
+
+        assertSame(replacementClient, registry.acquire(CLUSTER, () -> replacementClient));
+
+        registry.release(inUse);
+        verify(adminClient).close(any(Duration.class));
+        verify(replacementClient, never()).close(any(Duration.class));
+    }
+
+    @DisplayName("An idle client failing its health check is closed, and the next task creates a new one")
+    @Test
+    public void testHealthCheckFailure() {
+        KafkaFutureImpl<String> clusterId = new KafkaFutureImpl<>();
+        clusterId.completeExceptionally(new DisconnectException("Connection lost"));
+        when(adminClient.describeCluster()).thenReturn(describeClusterResult);
+        when(describeClusterResult.clusterId()).thenReturn(clusterId);
+
+        registry.release(registry.acquire(CLUSTER, () -> adminClient));
+        registry.checkHealth();
+
+        assertFalse(registry.hasClient(CLUSTER));
+        verify(adminClient).close(any(Duration.class));
+        assertSame(replacementClient, registry.acquire(CLUSTER, () -> replacementClient));
+    }
+}
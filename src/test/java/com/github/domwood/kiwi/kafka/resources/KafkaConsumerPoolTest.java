@@ -0,0 +1,98 @@
+package com.github.domwood.kiwi.kafka.resources;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class KafkaConsumerPoolTest {
+
+    private static final String POOL_KEY = "cluster|keyDeserializer|valueDeserializer";
+
+    @Mock
+    KafkaConsumer<String, String> consumer;
+
+    @Mock
+    KafkaConsumer<String, String> otherConsumer;
+
+    private KafkaConsumerPool pool;
+
+    @AfterEach
+    public void afterEach() {
+        pool.shutdown();
+    }
+
+    @DisplayName("A released consumer is leased again with the properties it was created with")
+    @Test
+    public void testLeaseReleasedConsumer() {
+        pool = new KafkaConsumerPool(2, TimeUnit.MINUTES.toMillis(5));
+        Properties properties = new Properties();
+
+        assertFalse(pool.lease(POOL_KEY).isPresent());
+
+        pool.release(POOL_KEY, consumer, properties);
+        assertEquals(1, pool.idleCount(POOL_KEY));
+
+        Pair<KafkaConsumer<String, String>, Properties> leased = pool.<String, String>lease(POOL_KEY).get();
+        assertSame(consumer, leased.getLeft());
+        assertSame(properties, leased.getRight());
+        assertEquals(0, pool.idleCount(POOL_KEY));
+        assertFalse(pool.lease("anotherCluster|keyDeserializer|valueDeserializer").isPresent());
+        verify(consumer, never()).close(any(Duration.class));
+    }
+
+    @DisplayName("Consumers released to a full pool are closed")
+    @Test
+    public void testMaxSize() {
+        pool = new KafkaConsumerPool(1, TimeUnit.MINUTES.toMillis(5));
+
+        pool.release(POOL_KEY, consumer, new Properties());
+        pool.release(POOL_KEY, otherConsumer, new Properties());
+
+        assertEquals(1, pool.idleCount(POOL_KEY));
+        verify(otherConsumer).close(any(Duration.class));
+        verify(consumer, never()).close(any(Duration.class));
+    }
+
+    @DisplayName("Consumers idle for longer than the idle timeout are evicted and closed")
+    @Test
+    public void testIdleEviction() {
+        pool = new KafkaConsumerPool(2, 50L);
+
+        pool.release(POOL_KEY, consumer, new Properties());
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> pool.idleCount(POOL_KEY) == 0);
+        verify(consumer).close(any(Duration.class));
+    }
+
+    @DisplayName("Shutting down the pool closes its idle consumers and any consumers released afterwards")
+    @Test
+    public void testShutdown() {
+        pool = new KafkaConsumerPool(2, TimeUnit.MINUTES.toMillis(5));
+
+        pool.release(POOL_KEY, consumer, new Properties());
+        pool.shutdown();
+        pool.release(POOL_KEY, otherConsumer, new Properties());
+
+        assertEquals(0, pool.idleCount(POOL_KEY));
+        verify(consumer).close(any(Duration.class));
+        verify(otherConsumer).close(any(Duration.class));
+    }
+}
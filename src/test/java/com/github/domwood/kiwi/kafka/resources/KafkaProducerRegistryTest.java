@@ -0,0 +1,87 @@
+package com.github.domwood.kiwi.kafka.resources;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Properties;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class KafkaProducerRegistryTest {
+
+    private static final String PRODUCER_KEY = "cluster|keySerializer|valueSerializer";
+
+    @Mock
+    KafkaProducer<String, String> producer;
+
+    @Mock
+    KafkaProducer<String, String> otherProducer;
+
+    @DisplayName("Requests against the same cluster and serializers share one producer, closed when the registry shuts down")
+    @Test
+    public void testSharedProducer() {
+        KafkaProducerRegistry registry = new KafkaProducerRegistry();
+
+        assertSame(producer, registry.producer(PRODUCER_KEY, () -> producer));
+        assertSame(producer, registry.producer(PRODUCER_KEY, () -> otherProducer));
+        assertSame(otherProducer, registry.producer("anotherCluster|keySerializer|valueSerializer", () -> otherProducer));
+        assertEquals(2, registry.producerCount());
+
+        registry.shutdown();
+
+        verify(producer).close(any(Duration.class));
+        verify(otherProducer).close(any(Duration.class));
+        assertEquals(0, registry.producerCount());
+        assertThrows(IllegalStateException.class, () -> registry.producer(PRODUCER_KEY, () -> producer));
+    }
+
+    @DisplayName("A producer failing with a fatal error is evicted and closed, and replaced by the next request")
+    @Test
+    public void testFatalErrorEvicts() {
+        KafkaProducerRegistry registry = new KafkaProducerRegistry();
+        registry.producer(PRODUCER_KEY, () -> producer);
+        when(producer.send(any(), any())).thenThrow(new ProducerFencedException("Fenced"));
+
+        SharedKafkaProducerResource<String, String> resource = new SharedKafkaProducerResource<>(new Properties(),
+                stringHandler(), stringHandler(), registry, PRODUCER_KEY);
+        assertThrows(ProducerFencedException.class, () -> resource.send(new ProducerRecord<>("topic", "key", "value")));
+
+        verify(producer).close(Duration.ZERO);
+        assertEquals(0, registry.producerCount());
+        assertSame(otherProducer, registry.producer(PRODUCER_KEY, () -> otherProducer));
+    }
+
+    @DisplayName("Evicting a producer already replaced leaves its replacement shared")
+    @Test
+    public void testStaleEviction() {
+        KafkaProducerRegistry registry = new KafkaProducerRegistry();
+        registry.producer(PRODUCER_KEY, () -> otherProducer);
+
+        registry.evict(PRODUCER_KEY, producer);
+
+        verify(producer, never()).close(any(Duration.class));
+        assertSame(otherProducer, registry.producer(PRODUCER_KEY, () -> producer));
+    }
+
+    private static KafkaDataTypeHandler<String> stringHandler() {
+        return new KafkaDataTypeHandler<>(Function.identity(), Function.identity(),
+                StringSerializer.class.getName(), StringDeserializer.class.getName());
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.domwood.kiwi.kafka.task;
+
+import com.github.domwood.kiwi.data.input.ImmutableConsumerStartPosition;
+import com.github.domwood.kiwi.data.output.ConsumerPosition;
+import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
+import com.github.domwood.kiwi.kafka.utils.KafkaConsumerTracker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.github.domwood.kiwi.testutils.TestDataFactory.testTopic;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class KafkaTaskUtilsTest {
+
+    private static final TopicPartition PARTITION_0 = new TopicPartition(testTopic, 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition(testTopic, 1);
+    private static final Set<TopicPartition> PARTITIONS = ImmutableSet.of(PARTITION_0, PARTITION_1);
+    private static final Map<TopicPartition, Long> START_OFFSETS = ImmutableMap.of(PARTITION_0, 0L, PARTITION_1, 0L);
+    private static final Map<TopicPartition, Long> END_OFFSETS = ImmutableMap.of(PARTITION_0, 100L, PARTITION_1, 50L);
+
+    @Mock
+    KafkaConsumerResource<String, String> consumerResource;
+
+    @BeforeEach
+    public void beforeEach() {
+        when(consumerResource.assignment()).thenReturn(PARTITIONS);
+        when(consumerResource.endOffsets(PARTITIONS)).thenReturn(END_OFFSETS);
+        lenient().when(consumerResource.currentPosition(PARTITIONS)).thenReturn(START_OFFSETS);
+    }
+
+    @DisplayName("Start and end timestamps are resolved to offsets, partitions without a later record are bounded at their end")
+    @Test
+    public void testTimestampBounds() {
+        when(consumerResource.offsetsForTimes(ImmutableMap.of(PARTITION_0, 1000L, PARTITION_1, 1000L)))
+                .thenReturn(ImmutableMap.of(PARTITION_0, new OffsetAndTimestamp(40L, 1000L)));
+        when(consumerResource.offsetsForTimes(ImmutableMap.of(PARTITION_0, 2001L, PARTITION_1, 2001L)))
+                .thenReturn(ImmutableMap.of(PARTITION_0, new OffsetAndTimestamp(60L, 2005L)));
+
+        KafkaConsumerTracker tracker = KafkaTaskUtils.subscribeAndSeek(consumerResource, singletonList(testTopic),
+                Optional.of(ImmutableConsumerStartPosition.builder()
+                        .startTimestamp(1000L)
+                        .endTimestamp(2000L)
+                        .build()));
+
+        Map<TopicPartition, Long> expectedStart = ImmutableMap.of(PARTITION_0, 40L, PARTITION_1, 50L);
+        verify(consumerResource).seek(expectedStart);
+        assertEquals(expectedStart, tracker.getStartingConsumerOffsets());
+        assertEquals(ImmutableMap.of(PARTITION_0, 60L, PARTITION_1, 50L), tracker.getEndOffsets());
+        assertTrue(tracker.hasBoundedEnd());
+        assertFalse(tracker.isPastBoundedEnd(PARTITION_0, 59L));
+        assertTrue(tracker.isPastBoundedEnd(PARTITION_0, 60L));
+    }
+
+    @DisplayName("A start timestamp never moves the consumer before the requested start offsets")
+    @Test
+    public void testStartTimestampCombinedWithOffsets() {
+        when(consumerResource.offsetsForTimes(ImmutableMap.of(PARTITION_0, 1000L, PARTITION_1, 1000L)))
+                .thenReturn(ImmutableMap.of(
+                        PARTITION_0, new OffsetAndTimestamp(40L, 1000L),
+                        PARTITION_1, new OffsetAndTimestamp(10L, 1000L)));
+
+        KafkaConsumerTracker tracker = KafkaTaskUtils.subscribeAndSeek(consumerResource, singletonList(testTopic),
+                Optional.of(ImmutableConsumerStartPosition.builder()
+                        .offsets(ImmutableMap.of(0, 20L, 1, 20L))
+                        .startTimestamp(1000L)
+                        .build()));
+
+        assertEquals(ImmutableMap.of(PARTITION_0, 40L, PARTITION_1, 20L), tracker.getStartingConsumerOffsets());
+        assertEquals(END_OFFSETS, tracker.getEndOffsets());
+        assertFalse(tracker.hasBoundedEnd());
+        assertFalse(tracker.isPastBoundedEnd(PARTITION_0, 100L));
+    }
+
+    @DisplayName("Without timestamps no offsets are looked up by time")
+    @Test
+    public void testWithoutTimestamps() {
+        KafkaConsumerTracker tracker = KafkaTaskUtils.subscribeAndSeek(consumerResource, singletonList(testTopic), Optional.empty());
+
+        verify(consumerResource, never()).offsetsForTimes(any());
+        assertEquals(START_OFFSETS, tracker.getStartingConsumerOffsets());
+        assertEquals(END_OFFSETS, tracker.getEndOffsets());
+        assertFalse(tracker.hasBoundedEnd());
+    }
+
+    @DisplayName("A group-less consumer is assigned every partition of the topics rather than subscribing to them")
+    @Test
+    public void testGrouplessAssignment() {
+        when(consumerResource.isGroupless()).thenReturn(true);
+        when(consumerResource.partitionsFor(testTopic)).thenReturn(asList(
+                new PartitionInfo(testTopic, 0, null, null, null),
+                new PartitionInfo(testTopic, 1, null, null, null)));
+
+        KafkaConsumerTracker tracker = KafkaTaskUtils.subscribeAndSeek(consumerResource, singletonList(testTopic), Optional.empty());
+
+        verify(consumerResource).assign(PARTITIONS);
+        verify(consumerResource, never()).subscribe(any());
+        assertEquals(START_OFFSETS, tracker.getStartingConsumerOffsets());
+    }
+
+    @DisplayName("A tailing consumer seeks to the end less the tail records, bounded by the beginning of the partition")
+    @Test
+    public void testTail() {
+        when(consumerResource.beginningOffsets(PARTITIONS)).thenReturn(ImmutableMap.of(PARTITION_0, 0L, PARTITION_1, 45L));
+
+        KafkaConsumerTracker tracker = KafkaTaskUtils.subscribeAndSeek(consumerResource, singletonList(testTopic),
+                Optional.of(ImmutableConsumerStartPosition.builder()
+                        .tail(true)
+                        .tailRecords(10L)
+                        .build()));
+
+        Map<TopicPartition, Long> expectedTail = ImmutableMap.of(PARTITION_0, 90L, PARTITION_1, 45L);
+        verify(consumerResource).seek(expectedTail);
+        verify(consumerResource, never()).seekToBeginning(any());
+        assertEquals(expectedTail, tracker.getStartingConsumerOffsets());
+
+        when(consumerResource.currentPosition(PARTITIONS)).thenReturn(ImmutableMap.of(PARTITION_0, 120L, PARTITION_1, 50L));
+
+        ConsumerPosition position = tracker.gatherUpdatedPosition(consumerResource).getRight();
+        assertEquals(135L, position.startValue());
+        assertEquals(170L, position.endValue());
+        assertEquals(170L, position.consumerPosition());
+        assertEquals(100.0, position.percentage());
+    }
+
+    @DisplayName("A tailing consumer with no tail records starts at the end offsets")
+    @Test
+    public void testTailFromEnd() {
+        KafkaConsumerTracker tracker = KafkaTaskUtils.subscribeAndSeek(consumerResource, singletonList(testTopic),
+                Optional.of(ImmutableConsumerStartPosition.builder()
+                        .tail(true)
+                        .build()));
+
+        verify(consumerResource).seek(END_OFFSETS);
+        verify(consumerResource, never()).beginningOffsets(any());
+        assertEquals(END_OFFSETS, tracker.getStartingConsumerOffsets());
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.domwood.kiwi.kafka.task;
+
+import com.github.domwood.kiwi.exceptions.KiwiTaskRejectedException;
+import com.github.domwood.kiwi.utilities.FutureUtils;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KiwiTaskExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    public void beforeEach() {
+        KiwiTaskExecutor.getInstance().configure(ImmutableMap.of(
+                KiwiWorkload.DOWNLOAD, new KiwiTaskExecutor.Limits(1, 1)
+        ), false);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        release.countDown();
+        KiwiTaskExecutor.getInstance().configure(Collections.emptyMap(), false);
+    }
+
+    @DisplayName("Tasks beyond a workload's workers and queue are rejected")
+    @Test
+    public void testRejectsWhenFull() {
+        CompletableFuture<Void> running = FutureUtils.supplyAsync(KiwiWorkload.DOWNLOAD, this::awaitRelease);
+        CompletableFuture<Void> queued = FutureUtils.supplyAsync(KiwiWorkload.DOWNLOAD, this::awaitRelease);
+        CompletableFuture<Void> rejected = FutureUtils.supplyAsync(KiwiWorkload.DOWNLOAD, this::awaitRelease);
+
+        assertTrue(rejected.isCompletedExceptionally());
+        ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(error.getCause() instanceof KiwiTaskRejectedException);
+        assertThrows(KiwiTaskRejectedException.class, () -> FutureUtils.throwIfRejected(rejected));
+
+        release.countDown();
+        CompletableFuture.allOf(running, queued).join();
+    }
+
+    @DisplayName("A full workload doesn't hold up the others")
+    @Test
+    public void testWorkloadsAreIsolated() throws Exception {
+        FutureUtils.supplyAsync(KiwiWorkload.DOWNLOAD, this::awaitRelease);
+        FutureUtils.supplyAsync(KiwiWorkload.DOWNLOAD, this::awaitRelease);
+
+        String observed = FutureUtils.supplyAsync(KiwiWorkload.ADMIN, () -> "topics").get(1, TimeUnit.SECONDS);
+
+        assertEquals("topics", observed);
+    }
+
+    private Void awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
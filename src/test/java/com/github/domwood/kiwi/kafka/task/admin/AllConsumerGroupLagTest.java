@@ -0,0 +1,174 @@
+package com.github.domwood.kiwi.kafka.task.admin;
+
+import com.github.domwood.kiwi.data.input.ConsumerGroupLagSort;
+import com.github.domwood.kiwi.data.input.ImmutableConsumerGroupLagRequest;
+import com.github.domwood.kiwi.data.output.ConsumerGroupLag;
+import com.github.domwood.kiwi.data.output.ConsumerGroupLagSnapshot;
+import com.github.domwood.kiwi.data.output.ImmutableTopicLag;
+import com.github.domwood.kiwi.data.output.TopicLag;
+import com.github.domwood.kiwi.kafka.resources.KafkaAdminResource;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListConsumerGroupsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.LeaderNotAvailableException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AllConsumerGroupLagTest {
+
+    private static final TopicPartition ORDERS_0 = new TopicPartition("orders", 0);
+    private static final TopicPartition ORDERS_1 = new TopicPartition("orders", 1);
+    private static final TopicPartition PAYMENTS_0 = new TopicPartition("payments", 0);
+
+    @Mock
+    KafkaAdminResource resource;
+
+    @Mock
+    ListConsumerGroupsResult listGroupsResult;
+
+    @BeforeEach
+    public void beforeEach() {
+        Collection<ConsumerGroupListing> listings = ImmutableList.of(
+                new ConsumerGroupListing("billing", false),
+                new ConsumerGroupListing("shipping", false),
+                new ConsumerGroupListing("deleted", false));
+        when(resource.listConsumerGroups()).thenReturn(listGroupsResult);
+        when(listGroupsResult.all()).thenReturn(completed(listings));
+
+        committedOffsets("billing", ImmutableMap.of(
+                ORDERS_0, new OffsetAndMetadata(90L),
+                PAYMENTS_0, new OffsetAndMetadata(10L)));
+        committedOffsets("shipping", ImmutableMap.of(
+                ORDERS_0, new OffsetAndMetadata(40L),
+                ORDERS_1, new OffsetAndMetadata(20L)));
+        KafkaFutureImpl<Map<TopicPartition, OffsetAndMetadata>> failed = new KafkaFutureImpl<>();
+        failed.completeExceptionally(new KafkaException("Group deleted"));
+        ListConsumerGroupOffsetsResult deleted = mock(ListConsumerGroupOffsetsResult.class);
+        when(resource.listConsumerGroupOffsets("deleted")).thenReturn(deleted);
+        when(deleted.partitionsToOffsetAndMetadata()).thenReturn(failed);
+
+        when(resource.listOffsets(any())).thenReturn(new ListOffsetsResult(ImmutableMap.of(
+                ORDERS_0, endOffset(100L),
+                ORDERS_1, endOffset(30L),
+                PAYMENTS_0, endOffset(15L))));
+    }
+
+    @DisplayName("Sums lag per topic and group, fetching end offsets for every committed partition in one request")
+    @Test
+    public void testLagSnapshot() throws Exception {
+        ConsumerGroupLagSnapshot snapshot = execute(ImmutableConsumerGroupLagRequest.builder().build());
+
+        assertEquals(2, snapshot.totalGroups());
+        assertEquals(ImmutableList.of("shipping", "billing"), groupIds(snapshot));
+
+        ConsumerGroupLag shipping = snapshot.groups().get(0);
+        assertEquals(70L, shipping.totalLag());
+        assertEquals(60L, shipping.maxPartitionLag());
+        assertEquals(ImmutableList.of(ImmutableTopicLag.builder()
+                .topic("orders")
+                .partitions(2)
+                .totalLag(70L)
+                .maxPartitionLag(60L)
+                .build()), shipping.topics());
+
+        ConsumerGroupLag billing = snapshot.groups().get(1);
+        assertEquals(15L, billing.totalLag());
+        assertEquals(10L, billing.maxPartitionLag());
+        assertEquals(ImmutableList.of("orders", "payments"), billing.topics().stream().map(TopicLag::topic).collect(toList()));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<TopicPartition, OffsetSpec>> requested = ArgumentCaptor.forClass(Map.class);
+        verify(resource).listOffsets(requested.capture());
+        assertEquals(ImmutableSet.of(ORDERS_0, ORDERS_1, PAYMENTS_0), requested.getValue().keySet());
+    }
+
+    @DisplayName("A partition whose end offset can't be fetched is left out, rather than failing the snapshot")
+    @Test
+    public void testPartitionEndOffsetFailure() throws Exception {
+        KafkaFutureImpl<ListOffsetsResult.ListOffsetsResultInfo> leaderUnavailable = new KafkaFutureImpl<>();
+        leaderUnavailable.completeExceptionally(new LeaderNotAvailableException("No leader for orders-1"));
+        when(resource.listOffsets(any())).thenReturn(new ListOffsetsResult(ImmutableMap.of(
+                ORDERS_0, endOffset(100L),
+                ORDERS_1, leaderUnavailable,
+                PAYMENTS_0, endOffset(15L))));
+
+        ConsumerGroupLagSnapshot snapshot = execute(ImmutableConsumerGroupLagRequest.builder().build());
+
+        assertEquals(ImmutableList.of("shipping", "billing"), groupIds(snapshot));
+        ConsumerGroupLag shipping = snapshot.groups().get(0);
+        assertEquals(60L, shipping.totalLag());
+        assertEquals(1, shipping.topics().get(0).partitions());
+        assertEquals(15L, snapshot.groups().get(1).totalLag());
+    }
+
+    @DisplayName("Groups are sorted as requested and paged")
+    @Test
+    public void testSortAndPage() throws Exception {
+        ConsumerGroupLagSnapshot byName = execute(ImmutableConsumerGroupLagRequest.builder()
+                .sortBy(ConsumerGroupLagSort.GROUP_ID)
+                .descending(false)
+                .build());
+        assertEquals(ImmutableList.of("billing", "shipping"), groupIds(byName));
+
+        ConsumerGroupLagSnapshot secondPage = execute(ImmutableConsumerGroupLagRequest.builder()
+                .sortBy(ConsumerGroupLagSort.MAX_PARTITION_LAG)
+                .page(1)
+                .pageSize(1)
+                .build());
+        assertEquals(2, secondPage.totalGroups());
+        assertEquals(ImmutableList.of("billing"), groupIds(secondPage));
+    }
+
+    private ConsumerGroupLagSnapshot execute(ImmutableConsumerGroupLagRequest request) throws Exception {
+        return new AllConsumerGroupLag(resource, request, 2).execute().get(10, TimeUnit.SECONDS);
+    }
+
+    private void committedOffsets(String groupId, Map<TopicPartition, OffsetAndMetadata> offsets) {
+        ListConsumerGroupOffsetsResult result = mock(ListConsumerGroupOffsetsResult.class);
+        when(resource.listConsumerGroupOffsets(groupId)).thenReturn(result);
+        when(result.partitionsToOffsetAndMetadata()).thenReturn(completed(offsets));
+    }
+
+    private static List<String> groupIds(ConsumerGroupLagSnapshot snapshot) {
+        return snapshot.groups().stream().map(ConsumerGroupLag::groupId).collect(toList());
+    }
+
+    private static KafkaFuture<ListOffsetsResult.ListOffsetsResultInfo> endOffset(long offset) {
+        return completed(new ListOffsetsResult.ListOffsetsResultInfo(offset, -1L, Optional.empty()));
+    }
+
+    private static <T> KafkaFuture<T> completed(T value) {
+        KafkaFutureImpl<T> future = new KafkaFutureImpl<>();
+        future.complete(value);
+        return future;
+    }
+}
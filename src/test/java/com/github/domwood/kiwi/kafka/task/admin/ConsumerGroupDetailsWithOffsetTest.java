@@ -0,0 +1,108 @@
+package com.github.domwood.kiwi.kafka.task.admin;
+
+import com.github.domwood.kiwi.data.output.ConsumerGroupTopicWithOffsetDetails;
+import com.github.domwood.kiwi.data.output.ImmutablePartitionOffset;
+import com.github.domwood.kiwi.data.output.PartitionOffset;
+import com.github.domwood.kiwi.data.output.TopicGroupAssignmentWithOffset;
+import com.github.domwood.kiwi.kafka.resources.KafkaAdminResource;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.DescribeConsumerGroupsResult;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.MemberAssignment;
+import org.apache.kafka.clients.admin.MemberDescription;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.ConsumerGroupState;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ConsumerGroupDetailsWithOffsetTest {
+
+    private static final String GROUP_ID = "group";
+    private static final TopicPartition PARTITION_0 = new TopicPartition("topic", 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition("topic", 1);
+
+    @Mock
+    KafkaAdminResource resource;
+
+    @Mock
+    ListConsumerGroupOffsetsResult groupOffsetsResult;
+
+    @DisplayName("Lag is computed from the group's committed offsets and one batched end offset request for its assigned partitions")
+    @Test
+    public void testLagFromListOffsets() throws Exception {
+        MemberDescription member = new MemberDescription("consumer-1", "client-1", "host",
+                new MemberAssignment(ImmutableSet.of(PARTITION_0, PARTITION_1)));
+        ConsumerGroupDescription description = new ConsumerGroupDescription(GROUP_ID, false, singletonList(member),
+                "range", ConsumerGroupState.STABLE, new Node(1, "localhost", 9092));
+
+        when(resource.describeConsumerGroups(singletonList(GROUP_ID)))
+                .thenReturn(new DescribeConsumerGroupsResult(ImmutableMap.of(GROUP_ID, completed(description))));
+        when(resource.listConsumerGroupOffsets(GROUP_ID)).thenReturn(groupOffsetsResult);
+        when(groupOffsetsResult.partitionsToOffsetAndMetadata())
+                .thenReturn(completed(Collections.singletonMap(PARTITION_0, new OffsetAndMetadata(5L))));
+        when(resource.listOffsets(any())).thenReturn(new ListOffsetsResult(ImmutableMap.of(
+                PARTITION_0, completed(new ListOffsetsResult.ListOffsetsResultInfo(10L, -1L, Optional.empty())),
+                PARTITION_1, completed(new ListOffsetsResult.ListOffsetsResultInfo(3L, -1L, Optional.empty())))));
+
+        ConsumerGroupTopicWithOffsetDetails observed = new ConsumerGroupDetailsWithOffset(resource, GROUP_ID)
+                .execute()
+                .get(10, TimeUnit.SECONDS);
+
+        List<TopicGroupAssignmentWithOffset> assignments = observed.offsets().get("topic");
+        assertEquals(2, assignments.size());
+        assertEquals(offset(5L, 10L, 5L), offsetFor(assignments, 0));
+        assertEquals(offset(-1L, 3L, -1L), offsetFor(assignments, 1));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<TopicPartition, OffsetSpec>> requested = ArgumentCaptor.forClass(Map.class);
+        verify(resource).listOffsets(requested.capture());
+        assertEquals(ImmutableSet.of(PARTITION_0, PARTITION_1), requested.getValue().keySet());
+    }
+
+    private static PartitionOffset offsetFor(List<TopicGroupAssignmentWithOffset> assignments, int partition) {
+        return assignments.stream()
+                .filter(assignment -> assignment.partition() == partition)
+                .findFirst()
+                .map(TopicGroupAssignmentWithOffset::offset)
+                .orElseThrow(() -> new AssertionError("No assignment for partition " + partition));
+    }
+
+    private static PartitionOffset offset(long groupOffset, long partitionOffset, long lag) {
+        return ImmutablePartitionOffset.builder()
+                .groupOffset(groupOffset)
+                .partitionOffset(partitionOffset)
+                .lag(lag)
+                .build();
+    }
+
+    private static <T> KafkaFuture<T> completed(T value) {
+        KafkaFutureImpl<T> future = new KafkaFutureImpl<>();
+        future.complete(value);
+        return future;
+    }
+}
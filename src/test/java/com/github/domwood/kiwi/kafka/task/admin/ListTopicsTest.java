@@ -6,7 +6,7 @@ import com.github.domwood.kiwi.kafka.resources.KafkaAdminResource;
 import org.apache.kafka.clients.admin.ListTopicsResult;
 import org.apache.kafka.clients.admin.TopicListing;
 import org.apache.kafka.common.KafkaException;
-import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -25,8 +25,6 @@ import java.util.concurrent.TimeoutException;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,8 +33,7 @@ public class ListTopicsTest {
     @Mock
     KafkaAdminResource resource;
 
-    @Mock
-    KafkaFuture<Collection<TopicListing>> future;
+    KafkaFutureImpl<Collection<TopicListing>> future;
 
     @Mock
     ListTopicsResult result;
@@ -46,6 +43,7 @@ public class ListTopicsTest {
     @BeforeEach
     public void beforeEach() {
         topicListings.clear();
+        future = new KafkaFutureImpl<>();
 
         when(resource.listTopics()).thenReturn(result);
         when(result.listings()).thenReturn(future);
@@ -67,9 +65,8 @@ public class ListTopicsTest {
     @DisplayName("Returns a list of topics")
     @Test
     public void testListTopics() throws InterruptedException, ExecutionException, TimeoutException {
-        when(future.get(anyLong(), any(TimeUnit.class))).thenReturn(topicListings);
-
         addTopic("test1", "test2");
+        future.complete(topicListings);
 
         ListTopics listTopics = new ListTopics(resource, null);
 
@@ -84,7 +81,7 @@ public class ListTopicsTest {
     @Test
     public void testListTopicsFailure() throws InterruptedException, ExecutionException, TimeoutException {
 
-        when(future.get(anyLong(), any(TimeUnit.class))).thenThrow(new KafkaException("Failed to get topic list"));
+        future.completeExceptionally(new KafkaException("Failed to get topic list"));
 
         ListTopics listTopics = new ListTopics(resource, null);
 
@@ -99,8 +96,6 @@ public class ListTopicsTest {
     @DisplayName("Returned list is ordered alphabetically")
     @Test
     public void ordersAlphabetically() throws InterruptedException, ExecutionException, TimeoutException {
-        when(future.get(anyLong(), any(TimeUnit.class))).thenReturn(topicListings);
-
         addTopic(
                 "canada",
                 "banana",
@@ -109,6 +104,7 @@ public class ListTopicsTest {
                 "000000",
                 "Cucumber"
         );
+        future.complete(topicListings);
 
         ListTopics listTopics = new ListTopics(resource, null);
 
@@ -6,11 +6,11 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.apache.kafka.clients.admin.*;
-import org.apache.kafka.common.KafkaFuture;
 import org.apache.kafka.common.Node;
 import org.apache.kafka.common.TopicPartitionInfo;
 import org.apache.kafka.common.acl.AclOperation;
 import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
@@ -46,11 +46,9 @@ public class TopicInformationTest {
     @Mock
     DescribeTopicsResult topicsResult;
 
-    @Mock
-    KafkaFuture<Config> configFuture;
+    KafkaFutureImpl<Config> configFuture = new KafkaFutureImpl<>();
 
-    @Mock
-    KafkaFuture<TopicDescription> topicFuture;
+    KafkaFutureImpl<TopicDescription> topicFuture = new KafkaFutureImpl<>();
 
     private final String topicName = "testtopic";
 
@@ -83,8 +81,8 @@ public class TopicInformationTest {
     @DisplayName("Returns a list of topic information")
     @Test
     public void testTopicInformation() throws InterruptedException, ExecutionException, TimeoutException {
-        when(configFuture.get(anyLong(), any(TimeUnit.class))).thenReturn(config);
-        when(topicFuture.get(anyLong(), any(TimeUnit.class))).thenReturn(topicDescription);
+        configFuture.complete(config);
+        topicFuture.complete(topicDescription);
 
         TopicInformation task = new TopicInformation(resource, topicName);
 
@@ -1,6 +1,7 @@
 package com.github.domwood.kiwi.kafka.task.consumer;
 
 import com.github.domwood.kiwi.data.input.ConsumerRequest;
+import com.github.domwood.kiwi.data.input.ConsumerScanDirection;
 import com.github.domwood.kiwi.data.input.ImmutableConsumerRequest;
 import com.github.domwood.kiwi.data.input.filter.FilterApplication;
 import com.github.domwood.kiwi.data.input.filter.FilterType;
@@ -9,13 +10,16 @@ import com.github.domwood.kiwi.data.output.ConsumedMessage;
 import com.github.domwood.kiwi.data.output.ConsumerResponse;
 import com.github.domwood.kiwi.data.output.ImmutableConsumedMessage;
 import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
+import com.google.common.base.Throwables;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.stubbing.OngoingStubbing;
@@ -28,6 +32,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.IntStream;
 
 import static com.github.domwood.kiwi.testutils.TestDataFactory.buildConsumerRequest;
@@ -36,15 +41,24 @@ import static com.github.domwood.kiwi.testutils.TestDataFactory.testTopic;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -57,6 +71,9 @@ public class BasicConsumeMessagesTest {
     @Mock
     KafkaConsumerResource<String, String> consumerResource;
 
+    @Mock
+    KafkaConsumerResource<String, String> scanConsumerResource;
+
     private void setupMock(int partitionCount, int perPartitionSize, int recordsPerPoll) {
 
         setupAssignment(partitionCount, perPartitionSize);
@@ -125,6 +142,157 @@ public class BasicConsumeMessagesTest {
         assertEquals(expected, consumerResponse.messages());
     }
 
+    @DisplayName("Test that partitions are split across consumers when scanning in parallel")
+    @Test
+    public void testParallelScan() throws InterruptedException, ExecutionException, TimeoutException {
+        setupParallelScanMock(consumerResource, 0);
+        setupParallelScanMock(scanConsumerResource, 1);
+
+        when(consumerResource.partitionsFor(testTopic)).thenReturn(asList(
+                new PartitionInfo(testTopic, 0, null, null, null),
+                new PartitionInfo(testTopic, 1, null, null, null)));
+        when(consumerResource.beginningOffsets(any(Set.class))).thenReturn(beginningOffsets(2));
+        when(consumerResource.endOffsets(any(Set.class))).thenReturn(endOffsets(2, 3));
+
+        BasicConsumeMessages<String, String> basicConsumeMessages = new BasicConsumeMessages<>(consumerResource,
+                buildConsumerRequest(testTopic, 100).build(), () -> scanConsumerResource, 4);
+
+        ConsumerResponse consumerResponse =
+                basicConsumeMessages.execute().get(20, TimeUnit.SECONDS);
+
+        assertEquals(6, consumerResponse.messages().size());
+        assertEquals(buildConsumedMessages(2, 3), consumerResponse.messages());
+
+        verify(consumerResource).assign(singleton(new TopicPartition(testTopic, 0)));
+        verify(scanConsumerResource).assign(singleton(new TopicPartition(testTopic, 1)));
+        verify(scanConsumerResource).discard();
+    }
+
+    @DisplayName("Test that a parallel scan fails with the error of a failed share, not the cancellation of the others")
+    @Test
+    public void testParallelScanFailure() {
+        when(consumerResource.poll(any(Duration.class))).thenThrow(new KafkaException("Failed"));
+        lenient().when(scanConsumerResource.poll(any(Duration.class))).thenReturn(ConsumerRecords.empty());
+        lenient().when(scanConsumerResource.currentPosition(any(Set.class)))
+                .thenReturn(singletonMap(new TopicPartition(testTopic, 1), 4L));
+
+        when(consumerResource.partitionsFor(testTopic)).thenReturn(asList(
+                new PartitionInfo(testTopic, 0, null, null, null),
+                new PartitionInfo(testTopic, 1, null, null, null)));
+        when(consumerResource.beginningOffsets(any(Set.class))).thenReturn(beginningOffsets(2));
+        when(consumerResource.endOffsets(any(Set.class))).thenReturn(endOffsets(2, 3));
+
+        BasicConsumeMessages<String, String> basicConsumeMessages = new BasicConsumeMessages<>(consumerResource,
+                buildConsumerRequest(testTopic, 100).build(), () -> scanConsumerResource, 4);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> basicConsumeMessages.execute().get(20, TimeUnit.SECONDS));
+        assertTrue(Throwables.getCausalChain(error).stream().anyMatch(e -> e instanceof KafkaException));
+    }
+
+    @DisplayName("Test that a parallel scan completes when a share fails with an error rather than an exception")
+    @Test
+    public void testParallelScanError() {
+        setupParallelScanMock(consumerResource, 0);
+        when(scanConsumerResource.poll(any(Duration.class))).thenThrow(new AssertionError("Failed"));
+
+        when(consumerResource.partitionsFor(testTopic)).thenReturn(asList(
+                new PartitionInfo(testTopic, 0, null, null, null),
+                new PartitionInfo(testTopic, 1, null, null, null)));
+        when(consumerResource.beginningOffsets(any(Set.class))).thenReturn(beginningOffsets(2));
+        when(consumerResource.endOffsets(any(Set.class))).thenReturn(endOffsets(2, 3));
+
+        BasicConsumeMessages<String, String> basicConsumeMessages = new BasicConsumeMessages<>(consumerResource,
+                buildConsumerRequest(testTopic, 100).build(), () -> scanConsumerResource, 4);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> basicConsumeMessages.execute().get(20, TimeUnit.SECONDS));
+        assertTrue(Throwables.getCausalChain(error).stream().anyMatch(e -> e instanceof AssertionError));
+        verify(scanConsumerResource).discard();
+    }
+
+    private void setupParallelScanMock(KafkaConsumerResource<String, String> resource, int partition) {
+        TopicPartition topicPartition = new TopicPartition(testTopic, partition);
+        when(resource.poll(any(Duration.class)))
+                .thenReturn(new ConsumerRecords<>(singletonMap(topicPartition, consumerRecordList(3, partition, 1))));
+        when(resource.currentPosition(any(Set.class))).thenReturn(singletonMap(topicPartition, 4L));
+        when(resource.convertKafkaKey(anyString())).thenAnswer((answer) -> answer.getArgument(0));
+        when(resource.convertKafkaValue(anyString())).thenAnswer((answer) -> answer.getArgument(0));
+    }
+
+    @DisplayName("Test that a reverse scan stops after the first chunk when it holds enough matches")
+    @Test
+    public void testReverseScanReadsLatestChunkOnly() throws InterruptedException, ExecutionException, TimeoutException {
+        setupReverseScanMock(200L);
+
+        ConsumerRequest request = ImmutableConsumerRequest.builder()
+                .from(buildConsumerRequest(testTopic, 2).build())
+                .scanDirection(ConsumerScanDirection.REVERSE)
+                .build();
+
+        ConsumerResponse consumerResponse = new BasicConsumeMessages<>(consumerResource, request)
+                .execute().get(20, TimeUnit.SECONDS);
+
+        assertEquals(asList(198L, 199L), consumerResponse.messages().stream().map(ConsumedMessage::offset).collect(toList()));
+        verify(consumerResource).seek(singletonMap(new TopicPartition(testTopic, 0), 150L));
+        verify(consumerResource, times(1)).seek(any());
+    }
+
+    @DisplayName("Test that a reverse scan steps back in growing chunks until a match is found")
+    @Test
+    public void testReverseScanStepsBackInGrowingChunks() throws InterruptedException, ExecutionException, TimeoutException {
+        setupReverseScanMock(200L);
+
+        ConsumerRequest request = ImmutableConsumerRequest.builder()
+                .from(buildConsumerRequest(testTopic, 1).build())
+                .scanDirection(ConsumerScanDirection.REVERSE)
+                .filters(asList(ImmutableMessageFilter
+                        .builder()
+                        .filter(String.format(KEY_VALUE, 20))
+                        .filterType(FilterType.MATCHES)
+                        .isCaseSensitive(true)
+                        .filterApplication(FilterApplication.KEY)
+                        .build()))
+                .build();
+
+        ConsumerResponse consumerResponse = new BasicConsumeMessages<>(consumerResource, request)
+                .execute().get(20, TimeUnit.SECONDS);
+
+        assertEquals(singletonList(20L), consumerResponse.messages().stream().map(ConsumedMessage::offset).collect(toList()));
+        TopicPartition topicPartition = new TopicPartition(testTopic, 0);
+        InOrder inOrder = inOrder(consumerResource);
+        inOrder.verify(consumerResource).seek(singletonMap(topicPartition, 150L));
+        inOrder.verify(consumerResource).seek(singletonMap(topicPartition, 50L));
+        inOrder.verify(consumerResource).seek(singletonMap(topicPartition, 0L));
+    }
+
+    /**
+     * Simulates a single partition consumer returning up to 30 records from its sought position on each poll
+     */
+    private void setupReverseScanMock(long endOffset) {
+        TopicPartition topicPartition = new TopicPartition(testTopic, 0);
+        AtomicLong position = new AtomicLong();
+
+        when(consumerResource.partitionsFor(testTopic)).thenReturn(singletonList(
+                new PartitionInfo(testTopic, 0, null, null, null)));
+        when(consumerResource.beginningOffsets(any(Set.class))).thenReturn(singletonMap(topicPartition, 0L));
+        when(consumerResource.endOffsets(any(Set.class))).thenReturn(singletonMap(topicPartition, endOffset));
+        doAnswer(answer -> {
+            Map<TopicPartition, Long> seekTo = answer.getArgument(0);
+            position.set(seekTo.get(topicPartition));
+            return null;
+        }).when(consumerResource).seek(any());
+        when(consumerResource.poll(any(Duration.class))).thenAnswer(answer -> {
+            long from = position.get();
+            long to = Math.min(from + 30, endOffset);
+            position.set(to);
+            return new ConsumerRecords<>(singletonMap(topicPartition, consumerRecordList((int) (to - from), 0, (int) from)));
+        });
+        when(consumerResource.currentPosition(any(Set.class))).thenAnswer(answer -> singletonMap(topicPartition, position.get()));
+        lenient().when(consumerResource.convertKafkaKey(anyString())).thenAnswer((answer) -> answer.getArgument(0));
+        lenient().when(consumerResource.convertKafkaValue(anyString())).thenAnswer((answer) -> answer.getArgument(0));
+    }
+
     @DisplayName("Test that failure is handled")
     @Test
     public void failureTest() {
@@ -192,6 +360,13 @@ public class BasicConsumeMessagesTest {
                 .collect(toSet());
     }
 
+    private Map<TopicPartition, Long> beginningOffsets(int partitions) {
+        return IntStream.range(0, partitions)
+                .boxed()
+                .map(i -> new TopicPartition(testTopic, i))
+                .collect(toMap(tp -> tp, tp -> 1L));
+    }
+
     private Map<TopicPartition, Long> endOffsets(int partitions, long size) {
         return IntStream.range(0, partitions)
                 .boxed()
@@ -0,0 +1,75 @@
+package com.github.domwood.kiwi.kafka.task.consumer;
+
+import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.github.domwood.kiwi.testutils.TestDataFactory.buildConsumerRequest;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.testTopic;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ContinuousConsumeMessagesTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition(testTopic, 0);
+
+    @Mock
+    KafkaConsumerResource<String, String> consumerResource;
+
+    @DisplayName("Pausing pauses the assigned partitions whilst polling continues, unpausing wakes the poll and resumes them")
+    @Test
+    public void testPauseAndResumePartitions() throws Exception {
+        AtomicBoolean wokenUp = new AtomicBoolean(false);
+        when(consumerResource.assignment()).thenReturn(singleton(PARTITION));
+        when(consumerResource.endOffsets(anySet())).thenReturn(singletonMap(PARTITION, 0L));
+        when(consumerResource.currentPosition(anySet())).thenReturn(singletonMap(PARTITION, 0L));
+        when(consumerResource.paused()).thenReturn(singleton(PARTITION));
+        when(consumerResource.poll(any(Duration.class))).thenAnswer(answer -> {
+            MILLISECONDS.sleep(10);
+            if (wokenUp.getAndSet(false)) {
+                throw new WakeupException();
+            }
+            return ConsumerRecords.empty();
+        });
+        lenient().doAnswer(answer -> {
+            wokenUp.set(true);
+            return null;
+        }).when(consumerResource).wakeup();
+
+        ContinuousConsumeMessages<String, String> task = new ContinuousConsumeMessages<>(consumerResource, buildConsumerRequest().build());
+        task.pause();
+        CompletableFuture<Void> future = task.execute();
+
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> verify(consumerResource, atLeastOnce()).pause(singleton(PARTITION)));
+        verify(consumerResource, never()).resume(any());
+
+        task.unpause();
+
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> verify(consumerResource).resume(singleton(PARTITION)));
+        verify(consumerResource, never()).seek(any());
+
+        task.close();
+        future.get(5, TimeUnit.SECONDS);
+    }
+}
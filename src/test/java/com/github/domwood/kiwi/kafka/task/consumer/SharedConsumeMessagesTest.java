@@ -0,0 +1,172 @@
+package com.github.domwood.kiwi.kafka.task.consumer;
+
+import com.github.domwood.kiwi.data.input.ImmutableConsumerRequest;
+import com.github.domwood.kiwi.data.input.ImmutableConsumerStartPosition;
+import com.github.domwood.kiwi.data.input.filter.FilterApplication;
+import com.github.domwood.kiwi.data.input.filter.FilterType;
+import com.github.domwood.kiwi.data.input.filter.ImmutableMessageFilter;
+import com.github.domwood.kiwi.data.output.ConsumedMessage;
+import com.github.domwood.kiwi.data.output.ConsumerResponse;
+import com.github.domwood.kiwi.data.output.ImmutableConsumerPosition;
+import com.github.domwood.kiwi.data.output.ImmutableConsumerResponse;
+import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
+import com.github.domwood.kiwi.kafka.task.KafkaContinuousTask;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static com.github.domwood.kiwi.testutils.TestDataFactory.buildConsumedMessage;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.buildConsumerRequest;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.testTopic;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SharedConsumeMessagesTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition(testTopic, 0);
+
+    @Mock
+    KafkaConsumerResource<String, String> consumerResource;
+
+    @DisplayName("Each subscription receives the records matching its own filters from the one shared consumer")
+    @Test
+    public void testFanOutAppliesSubscriptionFilters() throws Exception {
+        when(consumerResource.assignment()).thenReturn(singleton(PARTITION));
+        when(consumerResource.endOffsets(anySet())).thenReturn(singletonMap(PARTITION, 0L));
+        when(consumerResource.currentPosition(anySet())).thenReturn(singletonMap(PARTITION, 3L));
+        when(consumerResource.poll(any(Duration.class)))
+                .thenReturn(new ConsumerRecords<>(singletonMap(PARTITION, asList(record(0), record(1), record(2)))))
+                .thenAnswer(answer -> {
+                    MILLISECONDS.sleep(20);
+                    return new ConsumerRecords<>(emptyMap());
+                });
+        when(consumerResource.convertKafkaKey(anyString())).thenAnswer((answer) -> answer.getArgument(0));
+        when(consumerResource.convertKafkaValue(anyString())).thenAnswer((answer) -> answer.getArgument(0));
+
+        SharedConsumeMessages<String, String> shared = new SharedConsumeMessages<>(consumerResource, tailRequest().build(), 16);
+
+        List<ConsumedMessage> filteredMessages = new CopyOnWriteArrayList<>();
+        List<ConsumedMessage> allMessages = new CopyOnWriteArrayList<>();
+        KafkaContinuousTask<?, ?> filtered = shared.attach(tailRequest()
+                .filters(asList(ImmutableMessageFilter.builder()
+                        .filter("KEY_1")
+                        .filterType(FilterType.MATCHES)
+                        .filterApplication(FilterApplication.KEY)
+                        .build()))
+                .build(), response -> filteredMessages.addAll(response.messages())).get();
+        KafkaContinuousTask<?, ?> all = shared.attach(tailRequest().build(), response -> allMessages.addAll(response.messages())).get();
+
+        CompletableFuture<Void> future = shared.execute();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> allMessages.size() == 3 && filteredMessages.size() == 1);
+        assertEquals("KEY_1", filteredMessages.get(0).key());
+        assertEquals(asList(0L, 1L, 2L), allMessages.stream().map(ConsumedMessage::offset).collect(toList()));
+
+        filtered.close();
+        assertFalse(shared.isClosed());
+        all.close();
+        assertTrue(shared.isClosed());
+
+        future.get(5, TimeUnit.SECONDS);
+        assertFalse(shared.attach(tailRequest().build(), response -> {
+        }).isPresent());
+    }
+
+    @DisplayName("A subscription that falls behind drops its oldest responses rather than blocking the shared consumer")
+    @Test
+    public void testSlowSubscriptionDropsOldest() {
+        SharedConsumeMessages<String, String> shared = new SharedConsumeMessages<>(consumerResource, tailRequest().build(), 4);
+        SharedConsumerSubscription<String, String> subscription = new SharedConsumerSubscription<>(shared, tailRequest().build(), 4);
+
+        List<ConsumerResponse> delivered = new CopyOnWriteArrayList<>();
+        subscription.pause();
+        subscription.registerConsumer(delivered::add);
+
+        IntStream.range(0, 10).forEach(i -> subscription.offer(response(i, buildConsumedMessage().offset(i).build())));
+        assertEquals(6, subscription.droppedCount());
+        assertTrue(delivered.isEmpty());
+
+        subscription.unpause();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> delivered.size() == 4);
+        assertEquals(asList(6L, 7L, 8L, 9L), delivered.stream()
+                .map(response -> response.messages().get(0).offset())
+                .collect(toList()));
+        assertEquals(Optional.of(6L), delivered.get(0).droppedMessages());
+
+        subscription.close();
+        assertTrue(subscription.isClosed());
+    }
+
+    @DisplayName("Responses carrying only a position are folded into the newest queued response")
+    @Test
+    public void testPositionOnlyResponsesCoalesce() {
+        SharedConsumeMessages<String, String> shared = new SharedConsumeMessages<>(consumerResource, tailRequest().build(), 4);
+        SharedConsumerSubscription<String, String> subscription = new SharedConsumerSubscription<>(shared, tailRequest().build(), 4);
+
+        List<ConsumerResponse> delivered = new CopyOnWriteArrayList<>();
+        subscription.pause();
+        subscription.registerConsumer(delivered::add);
+
+        subscription.offer(response(1, buildConsumedMessage().offset(1).build()));
+        IntStream.range(2, 10).forEach(i -> subscription.offer(response(i)));
+
+        subscription.unpause();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> delivered.size() == 1);
+        assertEquals(1L, delivered.get(0).messages().get(0).offset());
+        assertEquals(9L, delivered.get(0).position().get().consumerPosition());
+        assertEquals(0, subscription.droppedCount());
+
+        subscription.close();
+    }
+
+    private ConsumerResponse response(long position, ConsumedMessage... messages) {
+        return ImmutableConsumerResponse.builder()
+                .messages(asList(messages))
+                .position(ImmutableConsumerPosition.builder()
+                        .startValue(0L)
+                        .endValue(position)
+                        .consumerPosition(position)
+                        .percentage(100.0)
+                        .totalRecords(0)
+                        .build())
+                .build();
+    }
+
+    private ImmutableConsumerRequest.Builder tailRequest() {
+        return ImmutableConsumerRequest.builder()
+                .from(buildConsumerRequest(testTopic, 100).build())
+                .consumerStartPosition(ImmutableConsumerStartPosition.builder()
+                        .tail(true)
+                        .build());
+    }
+
+    private ConsumerRecord<String, String> record(int offset) {
+        return new ConsumerRecord<>(testTopic, 0, offset, "KEY_" + offset, "VALUE_" + offset);
+    }
+}
@@ -0,0 +1,184 @@
+package com.github.domwood.kiwi.kafka.task.producer;
+
+import com.github.domwood.kiwi.data.input.BulkProducerRequest;
+import com.github.domwood.kiwi.data.input.ConsumerRequestFileType;
+import com.github.domwood.kiwi.data.input.ImmutableBulkProducerRequest;
+import com.github.domwood.kiwi.data.input.ProducerRequest;
+import com.github.domwood.kiwi.data.output.BulkProducerResponse;
+import com.github.domwood.kiwi.data.output.ImmutablePartitionOffsetRange;
+import com.github.domwood.kiwi.kafka.resources.KafkaProducerResource;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static com.github.domwood.kiwi.testutils.TestDataFactory.buildProducerRequest;
+import static com.github.domwood.kiwi.testutils.TestDataFactory.testTopic;
+import static com.github.domwood.kiwi.utilities.FutureUtils.failedFuture;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ProduceBulkMessagesTest {
+
+    private static final BulkProducerRequest REQUEST = ImmutableBulkProducerRequest.builder()
+            .topic(testTopic)
+            .fileType(ConsumerRequestFileType.JSON)
+            .build();
+
+    @Mock
+    KafkaProducerResource<String, String> producerResource;
+
+    @DisplayName("Every message is produced, with the offset range written to each partition reported")
+    @Test
+    public void testProduceAllMessages() throws Exception {
+        AtomicLong offset = new AtomicLong(0);
+        when(producerResource.convertKafkaKey(anyString())).thenAnswer(answer -> answer.getArgument(0));
+        when(producerResource.convertKafkaValue(anyString())).thenAnswer(answer -> answer.getArgument(0));
+        when(producerResource.send(any(ProducerRecord.class))).thenAnswer(answer -> {
+            long nextOffset = offset.getAndIncrement();
+            return CompletableFuture.completedFuture(recordMetadata((int) (nextOffset % 2), nextOffset));
+        });
+
+        BulkProducerResponse response = new ProduceBulkMessages<>(producerResource, REQUEST, messages(5).iterator(), 2)
+                .execute()
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(5, response.messagesRead());
+        assertEquals(5, response.messagesProduced());
+        assertEquals(0, response.messagesFailed());
+        assertFalse(response.firstError().isPresent());
+        assertEquals(asList(
+                ImmutablePartitionOffsetRange.builder().partition(0).firstOffset(0).lastOffset(4).messageCount(3).build(),
+                ImmutablePartitionOffsetRange.builder().partition(1).firstOffset(1).lastOffset(3).messageCount(2).build()),
+                response.partitions());
+    }
+
+    @DisplayName("No more than the in flight window of messages await acknowledgement, and failures don't stop the rest")
+    @Test
+    public void testBoundedInFlight() throws Exception {
+        List<CompletableFuture<RecordMetadata>> pending = new ArrayList<>();
+        AtomicInteger sent = new AtomicInteger(0);
+        when(producerResource.convertKafkaKey(anyString())).thenAnswer(answer -> answer.getArgument(0));
+        when(producerResource.convertKafkaValue(anyString())).thenAnswer(answer -> answer.getArgument(0));
+        when(producerResource.send(any(ProducerRecord.class))).thenAnswer(answer -> {
+            sent.incrementAndGet();
+            CompletableFuture<RecordMetadata> result = new CompletableFuture<>();
+            synchronized (pending) {
+                pending.add(result);
+            }
+            return result;
+        });
+
+        CompletableFuture<BulkProducerResponse> future = new ProduceBulkMessages<>(producerResource, REQUEST, messages(4).iterator(), 2)
+                .execute();
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(2, sent.get());
+
+        synchronized (pending) {
+            pending.get(0).completeExceptionally(new KafkaException("Broker unavailable"));
+            pending.get(1).complete(recordMetadata(0, 0L));
+        }
+        await().atMost(5, TimeUnit.SECONDS).until(() -> {
+            synchronized (pending) {
+                return pending.size() == 4;
+            }
+        });
+        synchronized (pending) {
+            pending.get(2).complete(recordMetadata(0, 1L));
+            pending.get(3).complete(recordMetadata(0, 2L));
+        }
+
+        BulkProducerResponse response = future.get(5, TimeUnit.SECONDS);
+        assertEquals(4, response.messagesRead());
+        assertEquals(3, response.messagesProduced());
+        assertEquals(1, response.messagesFailed());
+        assertEquals(Optional.of("Broker unavailable"), response.firstError());
+    }
+
+    @DisplayName("A message that can't be read is counted as failed and the rest are produced")
+    @Test
+    public void testUnreadableMessage() throws Exception {
+        when(producerResource.convertKafkaKey(anyString())).thenAnswer(answer -> answer.getArgument(0));
+        when(producerResource.convertKafkaValue(anyString())).thenAnswer(answer -> answer.getArgument(0));
+        when(producerResource.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(recordMetadata(0, 0L)));
+
+        Iterator<ProducerRequest> valid = messages(1).iterator();
+        Iterator<ProducerRequest> withUnreadable = new Iterator<ProducerRequest>() {
+            private boolean unreadableReturned = false;
+
+            @Override
+            public boolean hasNext() {
+                return !unreadableReturned || valid.hasNext();
+            }
+
+            @Override
+            public ProducerRequest next() {
+                if (!unreadableReturned) {
+                    unreadableReturned = true;
+                    throw new IllegalArgumentException("Failed to read line 1");
+                }
+                return valid.next();
+            }
+        };
+
+        BulkProducerResponse response = new ProduceBulkMessages<>(producerResource, REQUEST, withUnreadable, 2)
+                .execute()
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, response.messagesRead());
+        assertEquals(1, response.messagesProduced());
+        assertEquals(1, response.messagesFailed());
+        assertTrue(response.firstError().isPresent());
+    }
+
+    @DisplayName("A failure without a message is reported by its type")
+    @Test
+    public void testFailureWithoutMessage() throws Exception {
+        when(producerResource.convertKafkaKey(anyString())).thenAnswer(answer -> answer.getArgument(0));
+        when(producerResource.convertKafkaValue(anyString())).thenAnswer(answer -> answer.getArgument(0));
+        when(producerResource.send(any(ProducerRecord.class))).thenReturn(failedFuture(new SerializationException()));
+
+        BulkProducerResponse response = new ProduceBulkMessages<>(producerResource, REQUEST, messages(3).iterator(), 2)
+                .execute()
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, response.messagesProduced());
+        assertEquals(3, response.messagesFailed());
+        assertEquals(Optional.of(SerializationException.class.getName()), response.firstError());
+    }
+
+    private List<ProducerRequest> messages(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> (ProducerRequest) buildProducerRequest().key("key" + i).build())
+                .collect(toList());
+    }
+
+    private RecordMetadata recordMetadata(int partition, long offset) {
+        return new RecordMetadata(new TopicPartition(testTopic, partition), offset, 0, 0L, 0L, 0, 0);
+    }
+}
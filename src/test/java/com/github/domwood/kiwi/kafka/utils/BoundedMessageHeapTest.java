@@ -0,0 +1,81 @@
+package com.github.domwood.kiwi.kafka.utils;
+
+import com.github.domwood.kiwi.data.output.ConsumedMessage;
+import com.github.domwood.kiwi.data.output.ImmutableConsumedMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedMessageHeapTest {
+
+    @DisplayName("Retains the latest messages by timestamp regardless of arrival order")
+    @Test
+    public void testRetainsLatestMessages() {
+        BoundedMessageHeap heap = new BoundedMessageHeap(3);
+
+        asList(message(50, 0, 0), message(10, 1, 0), message(40, 0, 1), message(30, 1, 1), message(20, 2, 1))
+                .forEach(heap::add);
+
+        assertTrue(heap.isFull());
+        assertEquals(asList(30L, 40L, 50L), timestamps(heap.drainOrdered()));
+        assertEquals(0, heap.size());
+    }
+
+    @DisplayName("Equal timestamps are ordered by offset then partition")
+    @Test
+    public void testTieBreakers() {
+        BoundedMessageHeap heap = new BoundedMessageHeap(10);
+
+        ConsumedMessage first = message(10, 1, 1);
+        ConsumedMessage second = message(10, 2, 0);
+        ConsumedMessage third = message(10, 2, 1);
+
+        heap.add(third);
+        heap.add(first);
+        heap.add(second);
+
+        assertEquals(asList(first, second, third), heap.drainOrdered());
+    }
+
+    @DisplayName("Older messages are rejected once the heap is full")
+    @Test
+    public void testRejectsOlderMessages() {
+        BoundedMessageHeap heap = new BoundedMessageHeap(1);
+
+        assertTrue(heap.add(message(20, 0, 0)));
+        assertFalse(heap.add(message(10, 0, 0)));
+        assertTrue(heap.add(message(30, 0, 0)));
+
+        assertEquals(asList(30L), timestamps(heap.drainOrdered()));
+    }
+
+    @DisplayName("Capacity must be positive")
+    @Test
+    public void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedMessageHeap(0));
+    }
+
+    private List<Long> timestamps(List<ConsumedMessage> messages) {
+        return messages.stream().map(ConsumedMessage::timestamp).collect(toList());
+    }
+
+    private ConsumedMessage message(long timestamp, long offset, int partition) {
+        return ImmutableConsumedMessage.builder()
+                .timestamp(timestamp)
+                .offset(offset)
+                .partition(partition)
+                .key("key")
+                .message("message")
+                .headers(emptyList())
+                .build();
+    }
+}
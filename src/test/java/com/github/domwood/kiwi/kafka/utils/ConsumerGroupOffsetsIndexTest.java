@@ -0,0 +1,130 @@
+package com.github.domwood.kiwi.kafka.utils;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConsumerGroupOffsetsIndexTest {
+
+    @DisplayName("Committed offsets are indexed by group and partition, and removed by their tombstones")
+    @Test
+    public void testOffsetCommits() {
+        ConsumerGroupOffsetsIndex index = new ConsumerGroupOffsetsIndex();
+
+        index.apply(offsetKey("billing", "orders", 0), offsetValueV3(42L));
+        index.apply(offsetKey("billing", "orders", 1), offsetValueV3(7L));
+        index.apply(offsetKey("billing", "orders", 0), offsetValueV3(50L));
+
+        assertEquals(ImmutableMap.of(new TopicPartition("orders", 0), 50L, new TopicPartition("orders", 1), 7L),
+                index.committedOffsets("billing"));
+
+        index.apply(offsetKey("billing", "orders", 0), null);
+        index.apply(offsetKey("billing", "orders", 1), null);
+
+        assertEquals(Collections.emptyMap(), index.committedOffsets("billing"));
+        assertEquals(Collections.emptySet(), index.groups());
+    }
+
+    @DisplayName("Groups are indexed by the topics assigned to their members, until the group is removed")
+    @Test
+    public void testGroupMetadata() {
+        ConsumerGroupOffsetsIndex index = new ConsumerGroupOffsetsIndex();
+
+        index.apply(groupKey("billing"), groupValueV3("orders", "payments"));
+        index.apply(groupKey("shipping"), groupValueV3("orders"));
+
+        assertEquals(ImmutableSet.of("billing", "shipping"), index.groupsForTopic("orders"));
+        assertEquals(ImmutableSet.of("billing"), index.groupsForTopic("payments"));
+
+        index.apply(groupKey("billing"), groupValueV3("orders"));
+        assertEquals(Collections.emptySet(), index.groupsForTopic("payments"));
+
+        index.apply(groupKey("shipping"), null);
+        assertEquals(ImmutableSet.of("billing"), index.groupsForTopic("orders"));
+        assertEquals(ImmutableSet.of("billing"), index.groups());
+    }
+
+    private static byte[] offsetKey(String group, String topic, int partition) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.putShort((short) 1);
+        putString(buffer, group);
+        putString(buffer, topic);
+        buffer.putInt(partition);
+        return toArray(buffer);
+    }
+
+    private static byte[] offsetValueV3(long offset) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.putShort((short) 3);
+        buffer.putLong(offset);
+        buffer.putInt(-1);
+        putString(buffer, "");
+        buffer.putLong(System.currentTimeMillis());
+        return toArray(buffer);
+    }
+
+    private static byte[] groupKey(String group) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.putShort((short) 2);
+        putString(buffer, group);
+        return toArray(buffer);
+    }
+
+    private static byte[] groupValueV3(String... assignedTopics) {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        buffer.putShort((short) 3);
+        putString(buffer, "consumer");
+        buffer.putInt(1);
+        putString(buffer, "range");
+        putString(buffer, "member-1");
+        buffer.putLong(System.currentTimeMillis());
+
+        buffer.putInt(1);
+        putString(buffer, "member-1");
+        buffer.putShort((short) -1);
+        putString(buffer, "client-1");
+        putString(buffer, "/127.0.0.1");
+        buffer.putInt(300000);
+        buffer.putInt(10000);
+        buffer.putInt(0);
+        byte[] assignment = assignment(assignedTopics);
+        buffer.putInt(assignment.length);
+        buffer.put(assignment);
+        return toArray(buffer);
+    }
+
+    private static byte[] assignment(String... topics) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.putShort((short) 1);
+        buffer.putInt(topics.length);
+        for (String topic : topics) {
+            putString(buffer, topic);
+            buffer.putInt(2);
+            buffer.putInt(0);
+            buffer.putInt(1);
+        }
+        buffer.putInt(-1);
+        return toArray(buffer);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+}
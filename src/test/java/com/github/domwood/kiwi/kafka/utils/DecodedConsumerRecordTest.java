@@ -0,0 +1,69 @@
+package com.github.domwood.kiwi.kafka.utils;
+
+import com.github.domwood.kiwi.data.output.ConsumedMessage;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class DecodedConsumerRecordTest {
+
+    @DisplayName("Key, value and headers are decoded once and shared with the consumed message")
+    @Test
+    public void testDecodedOnce() {
+        AtomicInteger keyDecodes = new AtomicInteger();
+        AtomicInteger valueDecodes = new AtomicInteger();
+        Function<String, String> keyDecoder = key -> {
+            keyDecodes.incrementAndGet();
+            return key;
+        };
+        Function<String, String> valueDecoder = value -> {
+            valueDecodes.incrementAndGet();
+            return value;
+        };
+
+        ConsumerRecord<String, String> kafkaRecord = new ConsumerRecord<>("topic", 1, 5L, "key", "value");
+        kafkaRecord.headers().add(new KafkaHeader("header", "headerValue"));
+
+        DecodedConsumerRecord<String, String> decodedRecord = new DecodedConsumerRecord<>(kafkaRecord, keyDecoder, valueDecoder);
+
+        assertEquals("key", decodedRecord.key());
+        assertEquals("value", decodedRecord.value());
+        assertSame(decodedRecord.headers(), decodedRecord.headers());
+
+        ConsumedMessage message = decodedRecord.toConsumedMessage();
+
+        assertEquals("key", message.key());
+        assertEquals("value", message.message());
+        assertEquals(1, message.partition());
+        assertEquals(5L, message.offset());
+        assertEquals(singletonList(Pair.of("header", "headerValue")), message.headers());
+        assertEquals(1, keyDecodes.get());
+        assertEquals(1, valueDecodes.get());
+    }
+
+    @DisplayName("Null keys are only decoded once")
+    @Test
+    public void testNullKeyDecodedOnce() {
+        AtomicInteger keyDecodes = new AtomicInteger();
+        Function<String, String> keyDecoder = key -> {
+            keyDecodes.incrementAndGet();
+            return key;
+        };
+
+        DecodedConsumerRecord<String, String> decodedRecord = new DecodedConsumerRecord<>(
+                new ConsumerRecord<>("topic", 0, 0L, null, "value"), keyDecoder, Function.identity());
+
+        decodedRecord.key();
+        decodedRecord.key();
+
+        assertEquals(1, keyDecodes.get());
+    }
+}
@@ -3,12 +3,18 @@ package com.github.domwood.kiwi.kafka.utils;
 import com.github.domwood.kiwi.data.output.ConsumerPosition;
 import com.github.domwood.kiwi.data.output.ImmutableConsumerPosition;
 import com.github.domwood.kiwi.kafka.resources.KafkaConsumerResource;
+import com.github.domwood.kiwi.utilities.TimeService;
+import com.google.common.collect.ImmutableMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.stream.IntStream;
 
 import static com.github.domwood.kiwi.testutils.TestDataFactory.*;
@@ -135,6 +141,25 @@ public class KafkaConsumerTrackerTest {
         assertEquals(expected, observed);
     }
 
+    @Test
+    public void testTailRefreshesEndOffsets(){
+        TimeService timeService = new TimeService();
+        Clock start = Clock.fixed(Instant.EPOCH, ZoneOffset.UTC);
+        timeService.setClock(start);
+        KafkaConsumerTracker consumerTracker = KafkaConsumerTracker.forTail(middleOffset, middleOffset, timeService);
+
+        assertEquals(150L, consumerTracker.gatherUpdatedPosition(consumerResource).getRight().endValue());
+
+        when(consumerResource.endOffsets(anySet()))
+                .thenReturn(ImmutableMap.of(topicPartition0, 100L, topicPartition1, 100L, topicPartition2, 100L));
+        timeService.setClock(Clock.offset(start, Duration.ofSeconds(5)));
+
+        ConsumerPosition observed = consumerTracker.gatherUpdatedPosition(consumerResource).getRight();
+
+        assertEquals(300L, observed.endValue());
+        assertEquals(150L, observed.consumerPosition());
+    }
+
     private ConsumerPosition position(long start, long end, long position, int percentage, int records){
         return position(start, end, position, percentage, records, 0);
     }
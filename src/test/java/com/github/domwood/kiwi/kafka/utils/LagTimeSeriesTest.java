@@ -0,0 +1,97 @@
+package com.github.domwood.kiwi.kafka.utils;
+
+import com.github.domwood.kiwi.data.output.LagSample;
+import com.github.domwood.kiwi.data.output.LagTrend;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LagTimeSeriesTest {
+
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+
+    @DisplayName("The fine samples are kept in a ring buffer, the oldest dropped once it is full")
+    @Test
+    public void testRingBuffer() {
+        LagTimeSeries series = new LagTimeSeries(10 * SECOND, 3, MINUTE, 10);
+        for (int i = 0; i < 5; i++) {
+            series.record(i * 10 * SECOND, i * 100, i * 150);
+        }
+
+        List<LagSample> samples = series.samples(10 * SECOND);
+        assertEquals(3, samples.size());
+        assertEquals(asList(20 * SECOND, 30 * SECOND, 40 * SECOND), timestamps(samples));
+        assertEquals(200L, samples.get(2).lag());
+    }
+
+    @DisplayName("Coarse samples keep the latest offsets seen within each bucket")
+    @Test
+    public void testDownsampling() {
+        LagTimeSeries series = new LagTimeSeries(10 * SECOND, 360, MINUTE, 10);
+        for (int i = 0; i < 12; i++) {
+            series.record(i * 10 * SECOND, i * 100, i * 100 + 50);
+        }
+
+        List<LagSample> samples = series.samples(MINUTE);
+        assertEquals(asList(50 * SECOND, 110 * SECOND), timestamps(samples));
+        assertEquals(1100L, samples.get(1).committedOffset());
+        assertEquals(12, series.samples(SECOND).size());
+    }
+
+    @DisplayName("Rates are taken over the window, with the time to catch up when consuming faster than producing")
+    @Test
+    public void testCatchingUp() {
+        LagTimeSeries series = new LagTimeSeries(10 * SECOND, 360, MINUTE, 10);
+        series.record(0, 0, 10_000);
+        series.record(100 * SECOND, 5_000, 12_000);
+        series.record(200 * SECOND, 10_000, 14_000);
+
+        LagTrend trend = series.trend(200 * SECOND);
+        assertEquals(4_000L, trend.lag());
+        assertEquals(50.0, trend.consumptionRate(), 0.001);
+        assertEquals(20.0, trend.productionRate(), 0.001);
+        assertEquals(Optional.of(134L), trend.catchUpSeconds());
+
+        LagTrend recent = series.trend(100 * SECOND);
+        assertEquals(50.0, recent.consumptionRate(), 0.001);
+    }
+
+    @DisplayName("There is no time to catch up when producing as fast or faster than consuming")
+    @Test
+    public void testFallingBehind() {
+        LagTimeSeries series = new LagTimeSeries(10 * SECOND, 360, MINUTE, 10);
+        series.record(0, 0, 1_000);
+        series.record(10 * SECOND, 100, 2_000);
+
+        LagTrend trend = series.trend(MINUTE);
+        assertEquals(1_900L, trend.lag());
+        assertEquals(Optional.empty(), trend.catchUpSeconds());
+    }
+
+    @DisplayName("Combined trends sum the lags and rates of their parts")
+    @Test
+    public void testCombine() {
+        LagTimeSeries first = new LagTimeSeries(10 * SECOND, 360, MINUTE, 10);
+        first.record(0, 0, 1_000);
+        first.record(100 * SECOND, 5_000, 2_000);
+        LagTimeSeries second = new LagTimeSeries(10 * SECOND, 360, MINUTE, 10);
+        second.record(100 * SECOND, 0, 3_000);
+
+        LagTrend trend = LagTimeSeries.combine(asList(first.trend(MINUTE * 2), second.trend(MINUTE * 2)));
+        assertEquals(3_000L, trend.lag());
+        assertEquals(50.0, trend.consumptionRate(), 0.001);
+        assertEquals(10.0, trend.productionRate(), 0.001);
+        assertEquals(Optional.of(75L), trend.catchUpSeconds());
+    }
+
+    private static List<Long> timestamps(List<LagSample> samples) {
+        return samples.stream().map(LagSample::timestamp).collect(toList());
+    }
+}
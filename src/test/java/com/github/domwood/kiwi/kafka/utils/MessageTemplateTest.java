@@ -0,0 +1,30 @@
+package com.github.domwood.kiwi.kafka.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MessageTemplateTest {
+
+    @Test
+    public void testPlaceholdersRendered() {
+        MessageTemplate template = MessageTemplate.compile("{\"id\":{{sequence}},\"key\":\"{{key}}\",\"at\":{{timestamp}}}");
+
+        assertEquals("{\"id\":7,\"key\":\"key-3\",\"at\":1600000000000}", template.render(7L, "key-3", 1600000000000L));
+        assertEquals("{\"id\":8,\"key\":\"key-1\",\"at\":1600000000001}", template.render(8L, "key-1", 1600000000001L));
+    }
+
+    @Test
+    public void testPaddingRendered() {
+        MessageTemplate template = MessageTemplate.compile("{{sequence}}:{{padding:5}}");
+
+        assertEquals("1:xxxxx", template.render(1L, "key", 0L));
+    }
+
+    @Test
+    public void testTextWithoutPlaceholdersUnchanged() {
+        MessageTemplate template = MessageTemplate.compile("{{unknown}} {single} text");
+
+        assertEquals("{{unknown}} {single} text", template.render(1L, "key", 0L));
+    }
+}
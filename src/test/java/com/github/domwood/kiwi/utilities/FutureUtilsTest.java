@@ -0,0 +1,70 @@
+package com.github.domwood.kiwi.utilities;
+
+import com.github.domwood.kiwi.exceptions.KiwiFutureException;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+public class FutureUtilsTest {
+
+    @DisplayName("Completes with the kafka future's result once it is available")
+    @Test
+    public void testCompletesWithResult() throws Exception {
+        KafkaFutureImpl<String> future = new KafkaFutureImpl<>();
+
+        CompletableFuture<String> observed = FutureUtils.toCompletable(future);
+        assertFalse(observed.isDone());
+
+        future.complete("result");
+
+        assertEquals("result", observed.get(10, TimeUnit.SECONDS));
+    }
+
+    @DisplayName("Fails with the kafka future's error")
+    @Test
+    public void testFailsWithError() {
+        KafkaFutureImpl<String> future = new KafkaFutureImpl<>();
+        future.completeExceptionally(new KafkaException("failed"));
+
+        CompletableFuture<String> observed = FutureUtils.toCompletable(future);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> observed.get(10, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof KiwiFutureException);
+        assertTrue(error.getCause().getCause() instanceof KafkaException);
+    }
+
+    @DisplayName("Fails and cancels the kafka future once the timeout passes")
+    @Test
+    public void testTimesOut() {
+        KafkaFutureImpl<String> future = new KafkaFutureImpl<>();
+        ScheduledExecutorService timeouts = mock(ScheduledExecutorService.class);
+        ArgumentCaptor<Runnable> timeout = ArgumentCaptor.forClass(Runnable.class);
+        doReturn(mock(ScheduledFuture.class)).when(timeouts).schedule(timeout.capture(), eq(50L), eq(TimeUnit.MILLISECONDS));
+
+        CompletableFuture<String> observed = FutureUtils.toCompletable(future, 50, TimeUnit.MILLISECONDS, timeouts);
+        assertFalse(observed.isDone());
+
+        timeout.getValue().run();
+
+        ExecutionException error = assertThrows(ExecutionException.class, observed::get);
+        assertTrue(error.getCause().getCause() instanceof TimeoutException);
+        assertTrue(future.isCancelled());
+    }
+}